@@ -3,8 +3,10 @@ package com.dentalflow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DentalFlowApplication {
     public static void main(String[] args) {
         SpringApplication.run(DentalFlowApplication.class, args);
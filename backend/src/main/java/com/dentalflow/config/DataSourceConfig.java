@@ -0,0 +1,38 @@
+package com.dentalflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * The application pool, declared the way Spring Boot would auto-configure it from spring.datasource.*
+ * (which it stops doing once a second DataSource exists), plus a one-connection pool for document
+ * number reservations on the same database and credentials. JPA, Flyway and JdbcTemplate use the
+ * primary one.
+ */
+@Configuration
+public class DataSourceConfig {
+    
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    /**
+     * Reservations run while the caller's transaction holds a connection from the main pool. Taking
+     * the second one from that pool could deadlock once every connection belongs to a request that is
+     * waiting for the same reservation, so they get their own. Closed with the context.
+     */
+    @Bean
+    public HikariDataSource numberingDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setPoolName("document-numbering");
+        return dataSource;
+    }
+}
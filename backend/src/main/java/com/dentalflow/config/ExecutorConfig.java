@@ -0,0 +1,64 @@
+package com.dentalflow.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+    
+    /**
+     * Runs independent report queries side by side. When the queue is full the request thread
+     * runs the query itself, which bounds the extra database connections reports can take.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${reports.executor.pool-size:4}") int poolSize,
+            @Value("${reports.executor.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+    
+    /**
+     * Drains per-subscriber message queues onto their WebSocket sessions, one drain task per
+     * subscriber at a time. A full queue rejects the task rather than running the send on the
+     * publishing thread; the broadcaster then drops that subscriber.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor messagePushExecutor(
+            @Value("${messages.push.pool-size:4}") int poolSize,
+            @Value("${messages.push.executor-queue-capacity:4096}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("message-push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+    
+    /**
+     * Sends low-stock alerts from per-subscriber queues to their SSE connections, one drain task
+     * per subscriber at a time. A full queue rejects the task and the tracker drops that subscriber.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor lowStockPushExecutor(
+            @Value("${inventory.low-stock.push.pool-size:2}") int poolSize,
+            @Value("${inventory.low-stock.push.executor-queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("low-stock-push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
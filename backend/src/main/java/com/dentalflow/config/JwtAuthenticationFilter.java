@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,7 +19,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtConfig jwtConfig;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
@@ -35,11 +34,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             String jwt = authHeader.substring(7);
-            if (jwtConfig.validateToken(jwt)) {
-                String username = jwtConfig.extractUsername(jwt);
+            VerifiedToken token = jwtConfig.verify(jwt).orElse(null);
+            if (token != null) {
+                String username = token.username();
                 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = principalCache.getPrincipal(username, token.role());
                     
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(
@@ -50,7 +50,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.info("Authenticated user: {}", username);
+                    logger.debug("Authenticated user: {}", username);
                 }
             }
         } catch (Exception e) {
@@ -1,17 +1,25 @@
-
 package com.dentalflow.config;
 
+import com.dentalflow.util.ExpiringCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
@@ -22,6 +30,19 @@ public class JwtConfig {
     
     private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+    
+    // Recently verified tokens keyed by SHA-256 digest, each expiring no later than the token's exp
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens;
+    
+    public JwtConfig(@Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize,
+                     @Value("${jwt.verified-cache.ttl-seconds:600}") long verifiedCacheTtlSeconds) {
+        this.verifiedTokens = new ExpiringCache<>(verifiedCacheSize, Duration.ofSeconds(verifiedCacheTtlSeconds));
+    }
+    
     public String generateToken(String username, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
@@ -38,21 +59,43 @@ public class JwtConfig {
                 .compact();
     }
     
-    public Boolean validateToken(String token) {
+    /**
+     * Parses and verifies the token at most once and returns its claims, or empty if the
+     * signature is invalid or the token has expired.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
         try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            Claims claims = extractAllClaims(token);
+            if (claims.getExpiration() == null) {
+                return Optional.empty();
+            }
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    claims.getExpiration().toInstant());
+            verifiedTokens.put(digest, verified, verified.expiresAt().toEpochMilli());
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
     
+    public Boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+    
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).map(VerifiedToken::username).orElse(null);
     }
     
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return verify(token).map(VerifiedToken::role).orElse(null);
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -61,18 +104,15 @@ public class JwtConfig {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.dentalflow.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates a WebSocket upgrade with the same JWT as the REST API. Browsers cannot set an
+ * Authorization header on the upgrade request, so the token may also be passed as ?token=.
+ * On success the username and the case id from /ws/cases/{caseId}/messages are stored as
+ * session attributes.
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+    
+    public static final String USERNAME_ATTRIBUTE = "username";
+    public static final String CASE_ID_ATTRIBUTE = "caseId";
+    
+    private final JwtConfig jwtConfig;
+    
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        UriComponents uri = UriComponentsBuilder.fromUri(request.getURI()).build();
+        String jwt = uri.getQueryParams().getFirst("token");
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwt = authHeader.substring(7);
+        }
+        
+        VerifiedToken token = jwt == null ? null : jwtConfig.verify(jwt).orElse(null);
+        if (token == null || token.username() == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        
+        List<String> segments = uri.getPathSegments();
+        attributes.put(USERNAME_ATTRIBUTE, token.username());
+        attributes.put(CASE_ID_ATTRIBUTE, segments.get(segments.size() - 2));
+        return true;
+    }
+    
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
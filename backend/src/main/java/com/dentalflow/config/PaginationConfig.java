@@ -0,0 +1,30 @@
+package com.dentalflow.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaginationConfig {
+    
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize;
+    
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+    
+    /**
+     * Limit for a keyset query: one row more than the page size, to detect whether a next page exists.
+     */
+    public Pageable window(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.dentalflow.config;
+
+import com.dentalflow.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Resolves the principal for an authenticated JWT request.
+ *
+ * In "claims" mode the principal is built from the signed role claim and never touches
+ * the users table; in "database" mode it is loaded through the UserDetailsService.
+ * Either way the result is kept in a bounded, TTL-evicting cache keyed by username.
+ */
+@Component
+public class PrincipalCache {
+    
+    public static final String MODE_CLAIMS = "claims";
+    
+    private final UserDetailsService userDetailsService;
+    private final boolean claimsMode;
+    private final ExpiringCache<String, UserDetails> principals;
+    
+    public PrincipalCache(UserDetailsService userDetailsService,
+                          @Value("${jwt.authentication-mode:claims}") String authenticationMode,
+                          @Value("${jwt.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${jwt.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.claimsMode = MODE_CLAIMS.equalsIgnoreCase(authenticationMode);
+        this.principals = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+    
+    public UserDetails getPrincipal(String username, String role) {
+        UserDetails cached = principals.get(username);
+        // A principal loaded from the database carries the stored role, which is the one that counts, so
+        // only a principal built from an earlier token's claim has to match this token's claim
+        if (cached != null && (!claimsMode || role == null || hasRole(cached, role))) {
+            return cached;
+        }
+        
+        UserDetails principal;
+        if (claimsMode && role != null) {
+            principal = new User(username, "", Collections.singleton(toAuthority(role)));
+        } else {
+            principal = userDetailsService.loadUserByUsername(username);
+        }
+        principals.put(username, principal);
+        return principal;
+    }
+    
+    /**
+     * Drops the cached principal so the next request re-resolves it, e.g. after the user's role changed.
+     */
+    public void evict(String username) {
+        principals.invalidate(username);
+    }
+    
+    public static GrantedAuthority toAuthority(String role) {
+        return new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+    }
+    
+    private boolean hasRole(UserDetails principal, String role) {
+        return principal.getAuthorities().contains(toAuthority(role));
+    }
+}
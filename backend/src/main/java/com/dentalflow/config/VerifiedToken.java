@@ -0,0 +1,9 @@
+package com.dentalflow.config;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims of a JWT whose signature and expiry have been verified.
+ */
+public record VerifiedToken(String username, String role, Instant expiresAt) {
+}
@@ -0,0 +1,24 @@
+package com.dentalflow.config;
+
+import com.dentalflow.controller.CaseMessageSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+    
+    private final CaseMessageSocketHandler caseMessageSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(caseMessageSocketHandler, "/ws/cases/*/messages")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins("*");
+    }
+}
@@ -1,6 +1,8 @@
 package com.dentalflow.controller;
 
 import com.dentalflow.dto.AppointmentDTO;
+import com.dentalflow.dto.CalendarDTO;
+import com.dentalflow.dto.FreeSlotDTO;
 import com.dentalflow.service.AppointmentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,8 +23,10 @@ public class AppointmentController {
     private final AppointmentService appointmentService;
     
     @GetMapping
-    public ResponseEntity<List<AppointmentDTO>> getAllAppointments() {
-        return ResponseEntity.ok(appointmentService.getAllAppointments());
+    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(appointmentService.getAllAppointments(cursor, limit));
     }
     
     @GetMapping("/dentist/{dentistId}")
@@ -56,6 +60,33 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.getAppointmentsByDentistAndDateRange(dentistId, startDate, endDate));
     }
     
+    @GetMapping("/availability")
+    public ResponseEntity<List<FreeSlotDTO>> getAvailability(
+            @RequestParam Long dentistId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer duration) {
+        return ResponseEntity.ok(appointmentService.getAvailability(dentistId, startDate, endDate, duration));
+    }
+    
+    // Compact week/month payload: parallel arrays per dentist and day plus name dictionaries
+    @GetMapping("/calendar")
+    public ResponseEntity<CalendarDTO> getCalendar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long dentistId) {
+        return ResponseEntity.ok(appointmentService.getCalendar(startDate, endDate, dentistId));
+    }
+    
+    // Earliest free slots with any dentist, e.g. for "first available" bookings
+    @GetMapping("/first-available")
+    public ResponseEntity<List<FreeSlotDTO>> getFirstAvailable(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) Integer duration,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(appointmentService.getFirstAvailable(startDate, duration, limit));
+    }
+    
     @GetMapping("/case/{caseId}")
     public ResponseEntity<List<AppointmentDTO>> getAppointmentsByCaseId(@PathVariable Long caseId) {
         return ResponseEntity.ok(appointmentService.getAppointmentsByCaseId(caseId));
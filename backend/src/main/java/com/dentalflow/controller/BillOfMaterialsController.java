@@ -0,0 +1,37 @@
+package com.dentalflow.controller;
+
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.service.BillOfMaterialsService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/bill-of-materials")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class BillOfMaterialsController {
+    
+    private final BillOfMaterialsService billOfMaterialsService;
+    
+    @GetMapping("/{caseType}")
+    public ResponseEntity<List<StockChangeDTO.LineDTO>> getBillOfMaterials(@PathVariable String caseType) {
+        return ResponseEntity.ok(billOfMaterialsService.getBillOfMaterials(caseType));
+    }
+    
+    // Replaces every line of the case type's bill with the given items
+    @PutMapping("/{caseType}")
+    public ResponseEntity<List<StockChangeDTO.LineDTO>> replaceBillOfMaterials(
+            @PathVariable String caseType, @Valid @RequestBody StockChangeDTO billOfMaterials) {
+        return ResponseEntity.ok(billOfMaterialsService.replaceBillOfMaterials(caseType, billOfMaterials.getItems()));
+    }
+    
+    @DeleteMapping("/{caseType}")
+    public ResponseEntity<Void> deleteBillOfMaterials(@PathVariable String caseType) {
+        billOfMaterialsService.replaceBillOfMaterials(caseType, List.of());
+        return ResponseEntity.noContent().build();
+    }
+}
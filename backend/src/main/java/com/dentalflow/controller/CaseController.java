@@ -5,10 +5,12 @@ import com.dentalflow.dto.CaseDTO;
 import com.dentalflow.service.CaseService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,8 +23,11 @@ public class CaseController {
     private final CaseService caseService;
     
     @GetMapping
-    public ResponseEntity<List<CaseDTO>> getAllCases(@RequestParam(required = false) String status) {
-        return ResponseEntity.ok(caseService.getAllCases(status));
+    public ResponseEntity<List<CaseDTO>> getAllCases(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(caseService.getAllCases(status, cursor, limit));
     }
     
     @GetMapping("/dentist/{dentistId}")
@@ -32,6 +37,13 @@ public class CaseController {
         return ResponseEntity.ok(caseService.getCasesByDentistId(dentistId, status));
     }
     
+    @GetMapping("/due")
+    public ResponseEntity<List<CaseDTO>> getCasesDueBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(caseService.getCasesDueBetween(startDate, endDate));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<CaseDTO> getCaseById(@PathVariable Long id) {
         return ResponseEntity.ok(caseService.getCaseById(id));
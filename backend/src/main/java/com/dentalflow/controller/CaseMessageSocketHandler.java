@@ -0,0 +1,36 @@
+package com.dentalflow.controller;
+
+import com.dentalflow.config.JwtHandshakeInterceptor;
+import com.dentalflow.service.CaseMessageBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Push-only channel at /ws/cases/{caseId}/messages: every message saved for the case is sent to
+ * the socket as a MessageDTO JSON frame. Messages are still sent through POST /api/messages.
+ */
+@Component
+@RequiredArgsConstructor
+public class CaseMessageSocketHandler extends TextWebSocketHandler {
+    
+    private final CaseMessageBroadcaster broadcaster;
+    
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        broadcaster.subscribe((String) session.getAttributes().get(JwtHandshakeInterceptor.CASE_ID_ATTRIBUTE), session);
+    }
+    
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // Inbound frames are ignored
+    }
+    
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        broadcaster.unsubscribe((String) session.getAttributes().get(JwtHandshakeInterceptor.CASE_ID_ATTRIBUTE), session);
+    }
+}
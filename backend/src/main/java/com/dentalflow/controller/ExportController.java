@@ -0,0 +1,60 @@
+package com.dentalflow.controller;
+
+import com.dentalflow.service.ExportService;
+import com.dentalflow.service.ExportService.ExportFormat;
+import com.dentalflow.service.ExportService.ExportType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportController {
+    
+    private final ExportService exportService;
+    
+    @GetMapping("/{type}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String type,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportType exportType = ExportType.parse(type);
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        boolean compress = gzip != null ? gzip : acceptEncoding != null && acceptEncoding.contains("gzip");
+        
+        StreamingResponseBody body = out -> {
+            if (compress) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                exportService.export(exportType, exportFormat, from, to, gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.export(exportType, exportFormat, from, to, out);
+            }
+        };
+        
+        String extension = exportFormat.name().toLowerCase(Locale.ROOT);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == ExportFormat.CSV
+                        ? MediaType.parseMediaType("text/csv")
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + exportType.name().toLowerCase(Locale.ROOT) + "." + extension + "\"");
+        if (compress) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -2,14 +2,22 @@
 package com.dentalflow.controller;
 
 import com.dentalflow.dto.InventoryItemDTO;
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.service.InventoryLedger;
 import com.dentalflow.service.InventoryService;
+import com.dentalflow.service.LowStockTracker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -18,10 +26,14 @@ import java.util.List;
 public class InventoryController {
     
     private final InventoryService inventoryService;
+    private final LowStockTracker lowStockTracker;
+    private final InventoryLedger inventoryLedger;
     
     @GetMapping
-    public ResponseEntity<List<InventoryItemDTO>> getAllItems() {
-        return ResponseEntity.ok(inventoryService.getAllItems());
+    public ResponseEntity<List<InventoryItemDTO>> getAllItems(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(inventoryService.getAllItems(cursor, limit));
     }
     
     @GetMapping("/low-stock")
@@ -29,6 +41,12 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getLowStockItems());
     }
     
+    // Server-sent events whenever an item crosses its reorder level
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStock() {
+        return lowStockTracker.subscribe();
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<InventoryItemDTO> getItemById(@PathVariable Long id) {
         return ResponseEntity.ok(inventoryService.getItemById(id));
@@ -44,6 +62,42 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.updateItem(id, itemDTO));
     }
     
+    // Stock changes apply deltas atomically instead of overwriting the quantity; 409 when stock is short
+    @PostMapping("/{id}/consume")
+    public ResponseEntity<InventoryItemDTO> consume(@PathVariable Long id, @Valid @RequestBody StockChangeDTO.LineDTO line) {
+        line.setItemId(id);
+        return ResponseEntity.ok(inventoryService.consume(List.of(line)).get(0));
+    }
+    
+    @PostMapping("/{id}/receive")
+    public ResponseEntity<InventoryItemDTO> receive(@PathVariable Long id, @Valid @RequestBody StockChangeDTO.LineDTO line) {
+        line.setItemId(id);
+        return ResponseEntity.ok(inventoryService.receive(List.of(line)).get(0));
+    }
+    
+    @PostMapping("/consume")
+    public ResponseEntity<List<InventoryItemDTO>> consumeBatch(@Valid @RequestBody StockChangeDTO change) {
+        return ResponseEntity.ok(inventoryService.consume(change.getItems()));
+    }
+    
+    @PostMapping("/receive")
+    public ResponseEntity<List<InventoryItemDTO>> receiveBatch(@Valid @RequestBody StockChangeDTO change) {
+        return ResponseEntity.ok(inventoryService.receive(change.getItems()));
+    }
+    
+    @GetMapping("/{id}/quantity")
+    public ResponseEntity<Map<String, Object>> getQuantityAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(Map.of("itemId", id, "at", at, "quantity", inventoryService.getQuantityAt(id, at)));
+    }
+    
+    // Runs the nightly ledger compaction now
+    @PostMapping("/ledger/compact")
+    public ResponseEntity<Map<String, Integer>> compactLedger() {
+        return ResponseEntity.ok(inventoryLedger.compact());
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
         inventoryService.deleteItem(id);
@@ -21,8 +21,11 @@ public class InvoiceController {
     private final InvoiceService invoiceService;
     
     @GetMapping
-    public ResponseEntity<List<InvoiceDTO>> getAllInvoices(@RequestParam(required = false) String status) {
-        return ResponseEntity.ok(invoiceService.getAllInvoices(status));
+    public ResponseEntity<List<InvoiceDTO>> getAllInvoices(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(invoiceService.getAllInvoices(status, cursor, limit));
     }
     
     @GetMapping("/{id}")
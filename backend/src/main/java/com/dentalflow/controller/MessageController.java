@@ -3,6 +3,7 @@ package com.dentalflow.controller;
 
 import com.dentalflow.dto.ContactDTO;
 import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.dto.UnreadCountDTO;
 import com.dentalflow.service.MessageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -21,17 +23,39 @@ public class MessageController {
     private final MessageService messageService;
     
     @GetMapping("/contacts")
-    public ResponseEntity<List<ContactDTO>> getAllContacts() {
-        return ResponseEntity.ok(messageService.getAllContacts());
+    public ResponseEntity<List<ContactDTO>> getAllContacts(@RequestParam(required = false) String receiverId) {
+        return ResponseEntity.ok(messageService.getAllContacts(receiverId));
     }
     
+    @GetMapping("/unread")
+    public ResponseEntity<List<UnreadCountDTO>> getUnreadCounts(@RequestParam String receiverId) {
+        return ResponseEntity.ok(messageService.getUnreadCounts(receiverId));
+    }
+    
+    // Marks one thread read: a case thread with caseId, or a direct conversation with senderId
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markThreadRead(
+            @RequestParam String receiverId,
+            @RequestParam(required = false) String caseId,
+            @RequestParam(required = false) String senderId,
+            @RequestParam(required = false) Long upToId) {
+        return ResponseEntity.ok(Map.of("updated", messageService.markThreadRead(receiverId, caseId, senderId, upToId)));
+    }
+    
+    // Newest chunk by default; ?after= fetches only newer messages, ?before= scrolls back
     @GetMapping("/case/{caseId}")
-    public ResponseEntity<List<MessageDTO>> getMessagesByCaseId(@PathVariable String caseId) {
-        return ResponseEntity.ok(messageService.getMessagesByCaseId(caseId));
+    public ResponseEntity<List<MessageDTO>> getMessagesByCaseId(
+            @PathVariable String caseId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(messageService.getMessagesByCaseId(caseId, after, before, limit));
     }
     
+    // 202 without an id when the message was queued for write-behind rather than saved
     @PostMapping
     public ResponseEntity<MessageDTO> sendMessage(@Valid @RequestBody MessageDTO messageDTO) {
-        return new ResponseEntity<>(messageService.sendMessage(messageDTO), HttpStatus.CREATED);
+        MessageDTO sent = messageService.sendMessage(messageDTO);
+        return new ResponseEntity<>(sent, sent.getId() != null ? HttpStatus.CREATED : HttpStatus.ACCEPTED);
     }
 }
@@ -0,0 +1,26 @@
+package com.dentalflow.controller;
+
+import com.dentalflow.dto.CursorPageDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * List endpoints return the page items as the body and the opaque cursor for the
+ * following page in the X-Next-Cursor header (absent on the last page).
+ */
+final class PageResponses {
+    
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    private PageResponses() {
+    }
+    
+    static <T> ResponseEntity<List<T>> ok(CursorPageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -20,8 +20,10 @@ public class PatientController {
     private final PatientService patientService;
     
     @GetMapping
-    public ResponseEntity<List<PatientDTO>> getAllPatients() {
-        return ResponseEntity.ok(patientService.getAllPatients());
+    public ResponseEntity<List<PatientDTO>> getAllPatients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(patientService.getAllPatients(cursor, limit));
     }
     
     @GetMapping("/dentist/{dentistId}")
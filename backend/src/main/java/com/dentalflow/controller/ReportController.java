@@ -2,11 +2,14 @@
 package com.dentalflow.controller;
 
 import com.dentalflow.dto.ReportDTO;
+import com.dentalflow.service.InvoiceRollupService;
 import com.dentalflow.service.ReportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/reports")
 @RequiredArgsConstructor
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 public class ReportController {
     
     private final ReportService reportService;
+    private final InvoiceRollupService rollupService;
     
     @GetMapping("/financial")
     public ResponseEntity<ReportDTO> getFinancialReport(
@@ -32,4 +36,10 @@ public class ReportController {
             @RequestParam(defaultValue = "12") int months) {
         return ResponseEntity.ok(reportService.getDentistReport(months));
     }
+    
+    // Recomputes the invoice rollups behind the financial and dentist reports
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRollups() {
+        return ResponseEntity.ok(Map.of("rows", rollupService.rebuild()));
+    }
 }
@@ -3,6 +3,7 @@ package com.dentalflow.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -32,6 +33,10 @@ public class AppointmentDTO {
     @NotNull(message = "Appointment time is required")
     private LocalTime appointmentTime;
     
+    // Defaults to schedule.default-duration-minutes when omitted
+    @Positive(message = "Duration must be positive")
+    private Integer durationMinutes;
+    
     @NotBlank(message = "Appointment type is required")
     private String appointmentType;
     
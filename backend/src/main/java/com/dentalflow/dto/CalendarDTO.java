@@ -0,0 +1,41 @@
+package com.dentalflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact calendar payload. Names appear once in the dictionaries; each dentist/day carries its
+ * appointments as parallel arrays, with type and status given as indexes into typeCodes/statusCodes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDTO {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<Long, String> dentists;
+    private Map<Long, String> patients;
+    private List<String> typeCodes;
+    private List<String> statusCodes;
+    private List<DayDTO> days;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayDTO {
+        private LocalDate date;
+        private Long dentistId;
+        private long[] ids;
+        private long[] patientIds;
+        // Minutes since midnight
+        private int[] starts;
+        private int[] durations;
+        private int[] types;
+        private int[] statuses;
+    }
+}
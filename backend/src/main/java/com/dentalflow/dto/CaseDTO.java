@@ -27,6 +27,8 @@ public class CaseDTO {
     
     private String priority;
     
+    private String caseType;
+    
     @NotNull(message = "Patient is required")
     private Long patientId;
     
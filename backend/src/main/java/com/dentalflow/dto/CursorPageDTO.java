@@ -0,0 +1,32 @@
+package com.dentalflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+    
+    /**
+     * Builds a page from rows fetched with a limit of pageSize + 1; the extra row only
+     * signals that another page exists and is not returned.
+     */
+    public static <E, T> CursorPageDTO<T> of(List<E> rows, int pageSize,
+                                             Function<E, T> mapper, Function<E, String> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        List<T> items = pageRows.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+}
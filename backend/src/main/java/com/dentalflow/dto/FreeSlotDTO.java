@@ -0,0 +1,21 @@
+package com.dentalflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDTO {
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    
+    // Set when the search spans several dentists
+    private Long dentistId;
+    private String dentistName;
+}
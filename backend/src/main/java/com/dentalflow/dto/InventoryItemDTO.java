@@ -9,6 +9,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
@@ -45,4 +47,18 @@ public class InventoryItemDTO {
     private String lastOrdered;
     private String createdAt;
     private String updatedAt;
+    
+    /**
+     * Constructor for JPQL projections; formats the temporal columns the same way InventoryService does.
+     */
+    public InventoryItemDTO(Long id, String name, String description, Integer quantity, BigDecimal unitPrice,
+                            Integer reorderLevel, String unit, Long categoryId, String categoryName,
+                            Long supplierId, String supplierName, LocalDate lastOrdered,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, description, quantity, unitPrice, reorderLevel, unit, categoryId, categoryName,
+                supplierId, supplierName,
+                lastOrdered != null ? lastOrdered.toString() : null,
+                createdAt != null ? createdAt.toString() : null,
+                updatedAt != null ? updatedAt.toString() : null);
+    }
 }
@@ -0,0 +1,18 @@
+package com.dentalflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sent on the low-stock feed when an item crosses its reorder level: low is true when it drops to
+ * or below the level, false when it is restocked above it or deleted (item is then null).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlertDTO {
+    private Long itemId;
+    private boolean low;
+    private InventoryItemDTO item;
+}
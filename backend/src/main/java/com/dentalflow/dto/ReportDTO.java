@@ -16,6 +16,9 @@ public class ReportDTO {
     private InvoiceSummaryDTO invoiceSummary;
     private List<Map<String, Object>> monthlyRevenue;
     private List<Map<String, Object>> topDentists;
+    private List<CycleTimeDTO> turnaroundByMonth;
+    private List<CycleTimeDTO> turnaroundByDentist;
+    private List<CycleTimeDTO> dwellByStatus;
     
     @Data
     @NoArgsConstructor
@@ -28,4 +31,21 @@ public class ReportDTO {
         private Long paidCount;
         private BigDecimal paidTotal;
     }
+    
+    /**
+     * Duration statistics in hours for one month, dentist or status, depending on the list it appears in.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CycleTimeDTO {
+        private String period;
+        private Long dentistId;
+        private String dentistName;
+        private String status;
+        private Long count;
+        private Double averageHours;
+        private Double p50Hours;
+        private Double p90Hours;
+    }
 }
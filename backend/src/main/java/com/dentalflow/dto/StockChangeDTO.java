@@ -0,0 +1,38 @@
+package com.dentalflow.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Quantities to consume from or receive into stock; applied to all lines or to none.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeDTO {
+    @NotEmpty(message = "At least one item is required")
+    @Valid
+    private List<LineDTO> items;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineDTO {
+        // Taken from the path on the single-item endpoints
+        private Long itemId;
+        
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be positive")
+        private Integer quantity;
+        
+        // Case the stock was used for or received against, recorded in the movement ledger
+        private Long caseId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dentalflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCountDTO {
+    // "case" or "direct"
+    private String threadType;
+    // Case id for case threads, sender id for direct ones
+    private String threadId;
+    private Long unread;
+}
@@ -0,0 +1,7 @@
+package com.dentalflow.event;
+
+/**
+ * Published when a case has been deleted.
+ */
+public record CaseDeletedEvent(Long caseId) {
+}
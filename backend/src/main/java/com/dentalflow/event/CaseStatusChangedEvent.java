@@ -0,0 +1,9 @@
+package com.dentalflow.event;
+
+import com.dentalflow.model.CaseStatusTransition;
+
+/**
+ * Published when a case is created or its status changes, carrying the logged transition.
+ */
+public record CaseStatusChangedEvent(CaseStatusTransition transition) {
+}
@@ -0,0 +1,9 @@
+package com.dentalflow.event;
+
+import java.util.Collection;
+
+/**
+ * Published when inventory items are created, deleted, or have their quantity or reorder level changed.
+ */
+public record InventoryChangedEvent(Collection<Long> itemIds) {
+}
@@ -0,0 +1,8 @@
+package com.dentalflow.event;
+
+/**
+ * Published whenever an invoice is created, updated, changes status or is deleted. The id is null
+ * when figures derived from all invoices changed at once, as after a rollup rebuild.
+ */
+public record InvoiceChangedEvent(Long invoiceId) {
+}
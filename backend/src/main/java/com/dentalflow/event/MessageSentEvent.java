@@ -0,0 +1,9 @@
+package com.dentalflow.event;
+
+import com.dentalflow.dto.MessageDTO;
+
+/**
+ * Published when a message has been saved, carrying the message as clients see it.
+ */
+public record MessageSentEvent(MessageDTO message) {
+}
@@ -0,0 +1,11 @@
+package com.dentalflow.exception;
+
+/**
+ * The request is valid but clashes with the current state, e.g. an overlapping booking.
+ */
+public class ConflictException extends RuntimeException {
+    
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.dentalflow.exception;
+
+/**
+ * The request cannot be taken on right now because a bounded resource is full; the client may retry.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
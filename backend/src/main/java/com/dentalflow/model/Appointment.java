@@ -14,19 +14,26 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "appointments")
+@NamedEntityGraph(name = Appointment.WITH_PARTIES, attributeNodes = {
+        @NamedAttributeNode("patient"),
+        @NamedAttributeNode("dentist"),
+        @NamedAttributeNode("relatedCase")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Appointment {
+    public static final String WITH_PARTIES = "Appointment.withParties";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dentist_id", nullable = false)
     private Dentist dentist;
     
@@ -36,6 +43,9 @@ public class Appointment {
     @Column(nullable = false)
     private LocalTime appointmentTime;
     
+    @Column(nullable = false)
+    private Integer durationMinutes;
+    
     @Column(nullable = false)
     private String appointmentType;
     
@@ -44,7 +54,7 @@ public class Appointment {
     @Column(nullable = false)
     private String status;  // "scheduled", "completed", "cancelled", "no-show"
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "case_id")
     private Case relatedCase;
     
@@ -0,0 +1,37 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Quantity of one inventory item that a case of the given type uses up when it is completed.
+ */
+@Entity
+@Table(name = "bill_of_material_lines")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillOfMaterialLine {
+    
+    @EmbeddedId
+    private Key id;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "case_type", nullable = false, length = 64)
+        private String caseType;
+        
+        @Column(name = "item_id", nullable = false)
+        private Long itemId;
+    }
+}
@@ -13,10 +13,16 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "cases")
+@NamedEntityGraph(name = Case.WITH_PARTIES, attributeNodes = {
+        @NamedAttributeNode("patient"),
+        @NamedAttributeNode("dentist")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Case {
+    public static final String WITH_PARTIES = "Case.withParties";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -34,26 +40,28 @@ public class Case {
     
     private String priority;
     
-    @ManyToOne
+    // Selects the bill of materials deducted when the case is completed
+    @Column(name = "case_type", length = 64)
+    private String caseType;
+    
+    // Set once completion has deducted the bill of materials, so a reopened case is not deducted again
+    @Column(name = "materials_consumed", nullable = false)
+    private boolean materialsConsumed;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id")
     private Patient patient;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dentist_id")
     private Dentist dentist;
     
     private LocalDate dueDate;
     
     @CreationTimestamp
+    @Column(nullable = false)
     private LocalDateTime createdAt;
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
-    
-    @PrePersist
-    public void prePersist() {
-        if (caseNumber == null) {
-            caseNumber = "CASE-" + System.currentTimeMillis();
-        }
-    }
 }
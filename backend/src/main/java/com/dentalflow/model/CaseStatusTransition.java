@@ -0,0 +1,38 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only case status log. A null fromStatus marks the case's creation.
+ * The case and dentist are stored as plain ids so the history outlives deleted cases.
+ */
+@Entity
+@Table(name = "case_status_transitions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseStatusTransition {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "case_id", nullable = false)
+    private Long caseId;
+    
+    @Column(name = "dentist_id")
+    private Long dentistId;
+    
+    private String fromStatus;
+    
+    @Column(nullable = false)
+    private String toStatus;
+    
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
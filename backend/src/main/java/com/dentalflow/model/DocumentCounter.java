@@ -0,0 +1,25 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next unreserved sequence number for one document series, e.g. "INV-2026".
+ * Rows are read and advanced by {@link com.dentalflow.service.DocumentNumberAllocator}.
+ */
+@Entity
+@Table(name = "document_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCounter {
+    
+    @Id
+    @Column(length = 32)
+    private String series;
+    
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
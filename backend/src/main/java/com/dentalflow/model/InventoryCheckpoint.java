@@ -0,0 +1,40 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An item's quantity just before asOf, i.e. the sum of all movements that occurred earlier.
+ * Written at each month start by the ledger compaction so a quantity-at-date lookup needs one
+ * checkpoint plus at most a month of movements.
+ */
+@Entity
+@Table(name = "inventory_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryCheckpoint {
+    
+    @EmbeddedId
+    private Key id;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "item_id", nullable = false)
+        private Long itemId;
+        
+        @Column(name = "as_of", nullable = false)
+        private LocalDateTime asOf;
+    }
+}
@@ -0,0 +1,48 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only stock ledger. Movements are written in batches by
+ * {@link com.dentalflow.service.InventoryLedger}; the item and case are plain ids so the
+ * history outlives deleted rows.
+ */
+@Entity
+@Table(name = "inventory_movements")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovement {
+    
+    public static final String RECEIVE = "receive";
+    public static final String CONSUME = "consume";
+    public static final String ADJUST = "adjust";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private String movementType;
+    
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+    
+    @Column(name = "case_id")
+    private Long caseId;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    public static InventoryMovement of(Long itemId, String movementType, int quantityDelta, Long caseId) {
+        return new InventoryMovement(null, itemId, movementType, quantityDelta, caseId, LocalDateTime.now());
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,10 +17,16 @@ import java.util.List;
 
 @Entity
 @Table(name = "invoices")
+@NamedEntityGraph(name = Invoice.WITH_PARTIES, attributeNodes = {
+        @NamedAttributeNode("patient"),
+        @NamedAttributeNode("dentist")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Invoice {
+    public static final String WITH_PARTIES = "Invoice.withParties";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,15 +37,16 @@ public class Invoice {
     @Column(nullable = false)
     private String status;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dentist_id", nullable = false)
     private Dentist dentist;
     
-    @ManyToOne
+    // Only the id is read when mapping, which an uninitialized proxy answers without a query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "case_id")
     private Case caseRef;
     
@@ -62,6 +70,7 @@ public class Invoice {
     private LocalDate paidDate;
     
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<InvoiceItem> items = new ArrayList<>();
     
     @CreationTimestamp
@@ -69,11 +78,4 @@ public class Invoice {
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
-    
-    @PrePersist
-    public void prePersist() {
-        if (invoiceNumber == null) {
-            invoiceNumber = "INV-" + LocalDate.now().getYear() + "-" + System.currentTimeMillis() % 10000;
-        }
-    }
 }
@@ -0,0 +1,46 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Invoice count and total per issue day, dentist and status. Kept in step with the invoices table
+ * by {@link com.dentalflow.service.InvoiceRollupService} so reports never scan the invoices themselves.
+ */
+@Entity
+@Table(name = "invoice_daily_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceDailyRollup {
+    
+    @EmbeddedId
+    private Key id;
+    
+    @Column(name = "invoice_count", nullable = false)
+    private Long invoiceCount;
+    
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "issue_date", nullable = false)
+        private LocalDate issueDate;
+        
+        @Column(name = "dentist_id", nullable = false)
+        private Long dentistId;
+        
+        @Column(nullable = false)
+        private String status;
+    }
+}
@@ -4,7 +4,9 @@ package com.dentalflow.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -17,10 +19,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class InvoiceItem {
+    // Assigned by InvoiceService from DocumentNumberAllocator blocks, so line-item inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Hibernate hashes the items when it flushes, and hashing the invoice would load its lazy associations
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne
     @JoinColumn(name = "invoice_id", nullable = false)
     private Invoice invoice;
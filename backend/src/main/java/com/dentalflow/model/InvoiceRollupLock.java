@@ -0,0 +1,21 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stripe of the lock taken by {@link com.dentalflow.service.InvoiceRollupService}: an invoice writer
+ * holds one stripe, a rollup rebuild all of them.
+ */
+@Entity
+@Table(name = "invoice_rollup_lock")
+@Data
+@NoArgsConstructor
+public class InvoiceRollupLock {
+    
+    public static final int STRIPES = 16;
+    
+    @Id
+    private Integer id;
+}
@@ -0,0 +1,51 @@
+package com.dentalflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Number of unread messages one receiver has in one thread. A thread is a case ("case", caseId)
+ * or, for messages without a case, a direct conversation ("direct", senderId). Maintained by
+ * {@link com.dentalflow.service.MessageService} as messages are sent and marked read.
+ */
+@Entity
+@Table(name = "message_unread_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageUnreadCounter {
+    
+    public static final String CASE_THREAD = "case";
+    public static final String DIRECT_THREAD = "direct";
+    
+    @EmbeddedId
+    private Key id;
+    
+    @Column(nullable = false)
+    private Long unread;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "receiver_id", nullable = false)
+        private String receiverId;
+        
+        @Column(name = "thread_type", nullable = false, length = 16)
+        private String threadType;
+        
+        @Column(name = "thread_id", nullable = false)
+        private String threadId;
+        
+        public static Key of(Message message) {
+            return message.getCaseId() != null
+                    ? new Key(message.getReceiverId(), CASE_THREAD, message.getCaseId())
+                    : new Key(message.getReceiverId(), DIRECT_THREAD, message.getSenderId());
+        }
+    }
+}
@@ -2,19 +2,89 @@
 package com.dentalflow.repository;
 
 import com.dentalflow.model.Appointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByDentistId(Long dentistId);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByPatientId(Long patientId);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByAppointmentDate(LocalDate date);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByDentistIdAndAppointmentDate(Long dentistId, LocalDate date);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByDentistIdAndAppointmentDateBetween(Long dentistId, LocalDate startDate, LocalDate endDate);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByPatientIdAndAppointmentDateBetween(Long patientId, LocalDate startDate, LocalDate endDate);
+    
+    @EntityGraph(Appointment.WITH_PARTIES)
     List<Appointment> findByRelatedCaseId(Long caseId);  // Changed from findByCaseId to findByRelatedCaseId
+    
+    // Keyset pages ordered chronologically by (appointmentDate, id). The parties are fetched with LEFT JOINs,
+    // which no appointment lacks, so that MySQL walks idx_appointments_date instead of starting from dentists
+    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.patient LEFT JOIN FETCH a.dentist LEFT JOIN FETCH a.relatedCase " +
+           "ORDER BY a.appointmentDate, a.id")
+    List<Appointment> findFirstPage(Pageable pageable);
+    
+    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.patient LEFT JOIN FETCH a.dentist LEFT JOIN FETCH a.relatedCase " +
+           "WHERE a.appointmentDate > ?1 OR (a.appointmentDate = ?1 AND a.id > ?2) " +
+           "ORDER BY a.appointmentDate, a.id")
+    List<Appointment> findPageAfter(LocalDate appointmentDate, Long id, Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.patient LEFT JOIN FETCH a.dentist LEFT JOIN FETCH a.relatedCase " +
+           "WHERE (?1 IS NULL OR a.appointmentDate >= ?1) AND (?2 IS NULL OR a.appointmentDate <= ?2) " +
+           "ORDER BY a.appointmentDate, a.id")
+    Stream<Appointment> streamForExport(LocalDate from, LocalDate to);
+    
+    /**
+     * The slot an appointment occupies, without loading the entity.
+     */
+    record BookingRow(Long appointmentId, Long dentistId, LocalDate date, LocalTime startTime, Integer durationMinutes) {
+    }
+    
+    // Feeds the in-memory schedule index at startup; the status is compared in lower case, as Booking.of ignores its case
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.dentalflow.repository.AppointmentRepository$BookingRow(a.id, a.dentist.id, a.appointmentDate, " +
+           "a.appointmentTime, a.durationMinutes) FROM Appointment a WHERE a.appointmentDate >= ?1 AND LOWER(a.status) <> ?2")
+    Stream<BookingRow> streamBookingsFrom(LocalDate from, String excludedStatus);
+    
+    /**
+     * Flat calendar row; names are resolved in the same query so no entity is loaded.
+     */
+    record CalendarRow(Long id, LocalDate date, LocalTime time, Integer durationMinutes, String type, String status,
+                       Long dentistId, String dentistFirstName, String dentistLastName,
+                       Long patientId, String patientFirstName, String patientLastName) {
+    }
+    
+    // Ordered to match idx_appointments_calendar, so the range is read in order without a sort
+    @Query("SELECT new com.dentalflow.repository.AppointmentRepository$CalendarRow(a.id, a.appointmentDate, " +
+           "a.appointmentTime, a.durationMinutes, a.appointmentType, a.status, d.id, d.firstName, d.lastName, " +
+           "p.id, p.firstName, p.lastName) " +
+           "FROM Appointment a JOIN a.dentist d JOIN a.patient p " +
+           "WHERE a.appointmentDate BETWEEN ?1 AND ?2 AND (?3 IS NULL OR d.id = ?3) " +
+           "ORDER BY a.appointmentDate, d.id, a.appointmentTime")
+    List<CalendarRow> findCalendarRows(LocalDate startDate, LocalDate endDate, Long dentistId);
 }
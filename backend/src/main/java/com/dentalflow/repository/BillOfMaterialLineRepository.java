@@ -0,0 +1,20 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.BillOfMaterialLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BillOfMaterialLineRepository extends JpaRepository<BillOfMaterialLine, BillOfMaterialLine.Key> {
+    
+    @Query("SELECT l FROM BillOfMaterialLine l WHERE l.id.caseType = ?1 ORDER BY l.id.itemId")
+    List<BillOfMaterialLine> findByCaseType(String caseType);
+    
+    @Modifying
+    @Query("DELETE FROM BillOfMaterialLine l WHERE l.id.caseType = ?1")
+    int deleteByCaseType(String caseType);
+}
@@ -2,15 +2,67 @@
 package com.dentalflow.repository;
 
 import com.dentalflow.model.Case;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CaseRepository extends JpaRepository<Case, Long> {
+    // Locks the row so concurrent status changes each see the status the previous one left
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Case c WHERE c.id = ?1")
+    Optional<Case> findForUpdateById(Long id);
+    
+    @EntityGraph(Case.WITH_PARTIES)
     List<Case> findByStatus(String status);
+    
+    @EntityGraph(Case.WITH_PARTIES)
     List<Case> findByPatientId(Long patientId);
+    
+    @EntityGraph(Case.WITH_PARTIES)
     List<Case> findByDentistId(Long dentistId);
+    
+    @EntityGraph(Case.WITH_PARTIES)
     List<Case> findByDentistIdAndStatus(Long dentistId, String status);
+    
+    // Keyset pages ordered newest first by (createdAt, id)
+    @EntityGraph(Case.WITH_PARTIES)
+    @Query("SELECT c FROM Case c WHERE (?1 IS NULL OR c.status = ?1) ORDER BY c.createdAt DESC, c.id DESC")
+    List<Case> findFirstPage(String status, Pageable pageable);
+    
+    @EntityGraph(Case.WITH_PARTIES)
+    @Query("SELECT c FROM Case c WHERE (?1 IS NULL OR c.status = ?1) " +
+           "AND (c.createdAt < ?2 OR (c.createdAt = ?2 AND c.id < ?3)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Case> findPageAfter(String status, LocalDateTime createdAt, Long id, Pageable pageable);
+    
+    // Cases due in a date range, soonest first, for the calendar and deadline views
+    @EntityGraph(Case.WITH_PARTIES)
+    @Query("SELECT c FROM Case c WHERE c.dueDate BETWEEN ?1 AND ?2 ORDER BY c.dueDate, c.id")
+    List<Case> findDueBetween(LocalDate from, LocalDate to);
+    
+    @EntityGraph(Case.WITH_PARTIES)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Case c WHERE (?1 IS NULL OR c.createdAt >= ?1) AND (?2 IS NULL OR c.createdAt < ?2) ORDER BY c.id")
+    Stream<Case> streamForExport(LocalDateTime from, LocalDateTime to);
+    
+    @Query("SELECT c.id FROM Case c WHERE c.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
 }
@@ -0,0 +1,30 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.CaseStatusTransition;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+@Repository
+public interface CaseStatusTransitionRepository extends JpaRepository<CaseStatusTransition, Long> {
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM CaseStatusTransition t ORDER BY t.id")
+    Stream<CaseStatusTransition> streamAll();
+    
+    // Gives cases created before the log existed a creation entry carrying their current status
+    @Modifying
+    @Query(value = "INSERT INTO case_status_transitions (case_id, dentist_id, from_status, to_status, changed_at) " +
+                   "SELECT c.id, c.dentist_id, NULL, c.status, c.created_at FROM cases c " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM case_status_transitions t WHERE t.case_id = c.id)", nativeQuery = true)
+    int insertMissingCreations();
+}
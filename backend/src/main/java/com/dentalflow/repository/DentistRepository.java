@@ -3,8 +3,21 @@ package com.dentalflow.repository;
 
 import com.dentalflow.model.Dentist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface DentistRepository extends JpaRepository<Dentist, Long> {
+    
+    /**
+     * A dentist's id and name, without loading the entity.
+     */
+    record NameRow(Long id, String firstName, String lastName) {
+    }
+    
+    @Query("SELECT new com.dentalflow.repository.DentistRepository$NameRow(d.id, d.firstName, d.lastName) " +
+           "FROM Dentist d ORDER BY d.id")
+    List<NameRow> findAllNames();
 }
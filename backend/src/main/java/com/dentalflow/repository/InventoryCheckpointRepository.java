@@ -0,0 +1,41 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, InventoryCheckpoint.Key> {
+    
+    Optional<InventoryCheckpoint> findFirstByIdItemIdAndIdAsOfLessThanEqualOrderByIdAsOfDesc(Long itemId, LocalDateTime at);
+    
+    Optional<InventoryCheckpoint> findFirstByIdItemIdOrderByIdAsOfAsc(Long itemId);
+    
+    @Query("SELECT MAX(c.id.asOf) FROM InventoryCheckpoint c")
+    LocalDateTime findLatestAsOf();
+    
+    /**
+     * Writes a checkpoint at ?1 for every item with history: its latest earlier checkpoint plus
+     * the movements since then. Items that already have a checkpoint at ?1 are left alone.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO inventory_checkpoints (item_id, as_of, quantity) " +
+                   "SELECT t.item_id, ?1, SUM(t.quantity) FROM (" +
+                   "  SELECT c.item_id, c.quantity FROM inventory_checkpoints c " +
+                   "  WHERE c.as_of = (SELECT MAX(p.as_of) FROM inventory_checkpoints p " +
+                   "                   WHERE p.item_id = c.item_id AND p.as_of < ?1) " +
+                   "  UNION ALL " +
+                   "  SELECT m.item_id, m.quantity_delta FROM inventory_movements m " +
+                   "  WHERE m.occurred_at < ?1 AND m.occurred_at >= COALESCE(" +
+                   "      (SELECT MAX(p.as_of) FROM inventory_checkpoints p WHERE p.item_id = m.item_id AND p.as_of < ?1), " +
+                   "      m.occurred_at)" +
+                   ") t " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM inventory_checkpoints e WHERE e.item_id = t.item_id AND e.as_of = ?1) " +
+                   "GROUP BY t.item_id", nativeQuery = true)
+    int insertCheckpointsAt(LocalDateTime asOf);
+}
@@ -1,15 +1,26 @@
 
 package com.dentalflow.repository;
 
+import com.dentalflow.dto.InventoryItemDTO;
 import com.dentalflow.model.InventoryItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
+public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long>, InventoryItemRepositoryCustom {
+    // Read-only list rows selected straight into the DTO, bypassing the persistence context
+    String ITEM_VIEW = "SELECT new com.dentalflow.dto.InventoryItemDTO(i.id, i.name, i.description, i.quantity, i.unitPrice, " +
+                       "i.reorderLevel, i.unit, c.id, c.name, s.id, s.name, i.lastOrdered, i.createdAt, i.updatedAt) " +
+                       "FROM InventoryItem i LEFT JOIN i.category c LEFT JOIN i.supplier s ";
+    
     List<InventoryItem> findByCategory_Id(Long categoryId);
     List<InventoryItem> findBySupplier_Id(Long supplierId);
     
@@ -17,6 +28,26 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     List<InventoryItem> findByQuantityLessThanEqual(Integer reorderLevel);
     
     // Alternative approach using @Query annotation
-    @Query("SELECT i FROM InventoryItem i WHERE i.quantity <= i.reorderLevel")
-    List<InventoryItem> findLowStockItems();
+    @Query(ITEM_VIEW + "WHERE i.quantity <= i.reorderLevel ORDER BY i.name, i.id")
+    List<InventoryItemDTO> findLowStockItems();
+    
+    long countByIdIn(Collection<Long> ids);
+    
+    // Locks the row so the ledger sees the exact quantity an update replaces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.id = ?1")
+    Optional<InventoryItem> findForUpdateById(Long id);
+    
+    // Reads quantities from the database, not from entities that may predate a native update
+    @Query(ITEM_VIEW + "WHERE i.id IN ?1 ORDER BY i.id")
+    List<InventoryItemDTO> findViewsByIdIn(Collection<Long> ids);
+    
+    // Keyset pages ordered alphabetically by (name, id)
+    @Query(ITEM_VIEW + "ORDER BY i.name, i.id")
+    List<InventoryItemDTO> findFirstPage(Pageable pageable);
+    
+    @Query(ITEM_VIEW +
+           "WHERE i.name > ?1 OR (i.name = ?1 AND i.id > ?2) " +
+           "ORDER BY i.name, i.id")
+    List<InventoryItemDTO> findPageAfter(String name, Long id, Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package com.dentalflow.repository;
+
+import java.util.Map;
+
+public interface InventoryItemRepositoryCustom {
+    
+    /**
+     * Adds each delta to its item's quantity in one UPDATE, skipping any item the delta would
+     * take below zero. Returns the number of items changed; fewer than deltas.size() means
+     * some item was short or does not exist.
+     */
+    int applyQuantityDeltas(Map<Long, Integer> deltasById);
+}
@@ -0,0 +1,51 @@
+package com.dentalflow.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class InventoryItemRepositoryImpl implements InventoryItemRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public int applyQuantityDeltas(Map<Long, Integer> deltasById) {
+        if (deltasById.isEmpty()) {
+            return 0;
+        }
+        // Ids in ascending order; the primary key range scan then locks rows in that order, so
+        // concurrent multi-item changes cannot deadlock each other
+        Map<Long, Integer> deltas = new TreeMap<>(deltasById);
+        
+        StringBuilder newQuantity = new StringBuilder("CASE id");
+        StringBuilder ids = new StringBuilder();
+        int parameter = 1;
+        for (int i = 0; i < deltas.size(); i++) {
+            newQuantity.append(" WHEN ?").append(parameter++).append(" THEN quantity + ?").append(parameter++);
+        }
+        newQuantity.append(" END");
+        for (int i = 0; i < deltas.size(); i++) {
+            ids.append(i == 0 ? "?" : ", ?").append(parameter++);
+        }
+        int updatedAt = parameter;
+        
+        Query update = entityManager.createNativeQuery(
+                "UPDATE inventory_items SET quantity = " + newQuantity + ", updated_at = ?" + updatedAt +
+                " WHERE id IN (" + ids + ") AND " + newQuantity + " >= 0");
+        parameter = 1;
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            update.setParameter(parameter++, delta.getKey());
+            update.setParameter(parameter++, delta.getValue());
+        }
+        for (Long id : deltas.keySet()) {
+            update.setParameter(parameter++, id);
+        }
+        update.setParameter(updatedAt, LocalDateTime.now());
+        return update.executeUpdate();
+    }
+}
@@ -0,0 +1,27 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.InventoryMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+    
+    // Served by idx_inventory_movements_item (item_id, occurred_at)
+    @Query("SELECT COALESCE(SUM(m.quantityDelta), 0) FROM InventoryMovement m " +
+           "WHERE m.itemId = ?1 AND m.occurredAt >= ?2 AND m.occurredAt < ?3")
+    long sumDeltas(Long itemId, LocalDateTime from, LocalDateTime to);
+    
+    boolean existsByItemIdAndOccurredAtLessThan(Long itemId, LocalDateTime before);
+    
+    @Query("SELECT MIN(m.occurredAt) FROM InventoryMovement m")
+    LocalDateTime findEarliestOccurredAt();
+    
+    @Modifying
+    @Query("DELETE FROM InventoryMovement m WHERE m.occurredAt < ?1")
+    int deleteOccurredBefore(LocalDateTime cutoff);
+}
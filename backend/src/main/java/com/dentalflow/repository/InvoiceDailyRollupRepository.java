@@ -0,0 +1,51 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.InvoiceDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public interface InvoiceDailyRollupRepository extends JpaRepository<InvoiceDailyRollup, InvoiceDailyRollup.Key> {
+    
+    // Adds (or with negative values, removes) one invoice's contribution to its day/dentist/status row
+    @Modifying
+    @Query(value = "INSERT INTO invoice_daily_rollups (issue_date, dentist_id, status, invoice_count, total_amount) " +
+                   "VALUES (?1, ?2, ?3, ?4, ?5) " +
+                   "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + VALUES(invoice_count), " +
+                   "total_amount = total_amount + VALUES(total_amount)", nativeQuery = true)
+    void addContribution(LocalDate issueDate, Long dentistId, String status, long count, BigDecimal total);
+    
+    @Modifying
+    @Query(value = "DELETE FROM invoice_daily_rollups", nativeQuery = true)
+    int deleteAllRows();
+    
+    @Modifying
+    @Query(value = "INSERT INTO invoice_daily_rollups (issue_date, dentist_id, status, invoice_count, total_amount) " +
+                   "SELECT issue_date, dentist_id, status, COUNT(*), SUM(total) FROM invoices " +
+                   "GROUP BY issue_date, dentist_id, status", nativeQuery = true)
+    int insertFromInvoices();
+    
+    @Query("SELECT FUNCTION('YEAR', r.id.issueDate) as year, FUNCTION('MONTH', r.id.issueDate) as month, SUM(r.totalAmount) as total " +
+           "FROM InvoiceDailyRollup r WHERE r.id.issueDate >= ?1 GROUP BY FUNCTION('YEAR', r.id.issueDate), FUNCTION('MONTH', r.id.issueDate) " +
+           "HAVING SUM(r.invoiceCount) > 0 ORDER BY FUNCTION('YEAR', r.id.issueDate), FUNCTION('MONTH', r.id.issueDate)")
+    List<Map<String, Object>> getMonthlyRevenue(LocalDate startDate);
+    
+    @Query("SELECT d.id as dentistId, d.firstName as firstName, d.lastName as lastName, " +
+           "SUM(r.invoiceCount) as invoiceCount, SUM(r.totalAmount) as totalAmount " +
+           "FROM InvoiceDailyRollup r JOIN Dentist d ON d.id = r.id.dentistId " +
+           "GROUP BY d.id, d.firstName, d.lastName HAVING SUM(r.invoiceCount) > 0 ORDER BY SUM(r.invoiceCount) DESC")
+    List<Map<String, Object>> getTopDentistsByInvoiceCount();
+    
+    @Query("SELECT d.id as dentistId, d.firstName as firstName, d.lastName as lastName, SUM(r.totalAmount) as totalRevenue " +
+           "FROM InvoiceDailyRollup r JOIN Dentist d ON d.id = r.id.dentistId " +
+           "WHERE r.id.issueDate >= ?1 AND r.id.status = 'paid' " +
+           "GROUP BY d.id, d.firstName, d.lastName HAVING SUM(r.invoiceCount) > 0 ORDER BY SUM(r.totalAmount) DESC")
+    List<Map<String, Object>> getTopDentistsByRevenue(LocalDate startDate);
+}
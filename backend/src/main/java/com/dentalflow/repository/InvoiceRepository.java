@@ -1,47 +1,84 @@
 
 package com.dentalflow.repository;
 
+import com.dentalflow.dto.ReportDTO;
 import com.dentalflow.model.Invoice;
+import com.dentalflow.model.InvoiceItem;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+    // Locks the row so the rollup contribution taken before a change is the one that change replaces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id = ?1")
+    Optional<Invoice> findForUpdateById(Long id);
+    
+    // The parties are fetched with LEFT JOINs, which no invoice lacks, so that MySQL cannot reorder the join to
+    // start from dentists and read every invoice through the dentist index. The keyset pages and export do the same
+    @Query("SELECT i FROM Invoice i LEFT JOIN FETCH i.patient LEFT JOIN FETCH i.dentist WHERE i.status = ?1")
     List<Invoice> findByStatus(String status);
+    
+    @EntityGraph(Invoice.WITH_PARTIES)
     List<Invoice> findByPatientId(Long patientId);
+    
+    @EntityGraph(Invoice.WITH_PARTIES)
     List<Invoice> findByDentistId(Long dentistId);
     
-    @Query("SELECT SUM(i.total) FROM Invoice i WHERE i.status = ?1")
-    BigDecimal getTotalAmountByStatus(String status);
+    // Keyset pages ordered newest first by (issueDate, id)
+    @Query("SELECT i FROM Invoice i LEFT JOIN FETCH i.patient LEFT JOIN FETCH i.dentist " +
+           "WHERE (?1 IS NULL OR i.status = ?1) ORDER BY i.issueDate DESC, i.id DESC")
+    List<Invoice> findFirstPage(String status, Pageable pageable);
     
-    @Query("SELECT COUNT(i) FROM Invoice i WHERE i.status = ?1")
-    Long getCountByStatus(String status);
+    @Query("SELECT i FROM Invoice i LEFT JOIN FETCH i.patient LEFT JOIN FETCH i.dentist " +
+           "WHERE (?1 IS NULL OR i.status = ?1) " +
+           "AND (i.issueDate < ?2 OR (i.issueDate = ?2 AND i.id < ?3)) " +
+           "ORDER BY i.issueDate DESC, i.id DESC")
+    List<Invoice> findPageAfter(String status, LocalDate issueDate, Long id, Pageable pageable);
     
-    @Query("SELECT i FROM Invoice i WHERE i.dueDate < CURRENT_DATE AND i.status = 'unpaid'")
-    List<Invoice> findOverdueInvoices();
+    /**
+     * One invoice with one of its line items; the item is null for an invoice that has none.
+     */
+    record ExportRow(Invoice invoice, InvoiceItem item) {
+    }
     
-    @Query("SELECT i.dentist.id as dentistId, i.dentist.firstName as firstName, i.dentist.lastName as lastName, COUNT(i) as invoiceCount, SUM(i.total) as totalAmount " +
-           "FROM Invoice i GROUP BY i.dentist.id, i.dentist.firstName, i.dentist.lastName ORDER BY COUNT(i) DESC")
-    List<Map<String, Object>> getTopDentistsByInvoiceCount();
+    // Driven from the invoice so one without line items still yields a row.
+    // With useCursorFetch=true on the JDBC URL, MySQL reads these through a server-side cursor, 1000 rows at a time
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.dentalflow.repository.InvoiceRepository$ExportRow(i, it) FROM Invoice i " +
+           "LEFT JOIN FETCH i.patient LEFT JOIN FETCH i.dentist LEFT JOIN i.items it " +
+           "WHERE (?1 IS NULL OR i.issueDate >= ?1) AND (?2 IS NULL OR i.issueDate <= ?2) " +
+           "ORDER BY i.id, it.id")
+    Stream<ExportRow> streamForExport(LocalDate from, LocalDate to);
     
-    @Query("SELECT FUNCTION('YEAR', i.issueDate) as year, FUNCTION('MONTH', i.issueDate) as month, SUM(i.total) as total " +
-           "FROM Invoice i WHERE i.issueDate >= ?1 GROUP BY FUNCTION('YEAR', i.issueDate), FUNCTION('MONTH', i.issueDate) " +
-           "ORDER BY FUNCTION('YEAR', i.issueDate), FUNCTION('MONTH', i.issueDate)")
-    List<Map<String, Object>> getMonthlyRevenue(LocalDate startDate);
+    // Paid, unpaid and overdue (unpaid past due) counts and totals in one pass; totals are null when nothing matches
+    @Query("SELECT new com.dentalflow.dto.ReportDTO$InvoiceSummaryDTO(" +
+           "COUNT(CASE WHEN i.status = 'unpaid' THEN 1 END), SUM(CASE WHEN i.status = 'unpaid' THEN i.total END), " +
+           "COUNT(CASE WHEN i.status = 'unpaid' AND i.dueDate < CURRENT_DATE THEN 1 END), " +
+           "SUM(CASE WHEN i.status = 'unpaid' AND i.dueDate < CURRENT_DATE THEN i.total END), " +
+           "COUNT(CASE WHEN i.status = 'paid' THEN 1 END), SUM(CASE WHEN i.status = 'paid' THEN i.total END)) " +
+           "FROM Invoice i WHERE i.status IN ('unpaid', 'paid')")
+    ReportDTO.InvoiceSummaryDTO getInvoiceSummary();
     
     @Query("SELECT d.id as dentistId, d.firstName as firstName, d.lastName as lastName, COUNT(c) as caseCount " +
            "FROM Dentist d JOIN d.cases c " +
            "GROUP BY d.id, d.firstName, d.lastName ORDER BY COUNT(c) DESC")
     List<Map<String, Object>> getTopDentistsByCaseCount();
-    
-    @Query("SELECT i.dentist.id as dentistId, i.dentist.firstName as firstName, i.dentist.lastName as lastName, SUM(i.total) as totalRevenue " +
-           "FROM Invoice i WHERE i.issueDate >= ?1 AND i.status = 'paid' " +
-           "GROUP BY i.dentist.id, i.dentist.firstName, i.dentist.lastName ORDER BY SUM(i.total) DESC")
-    List<Map<String, Object>> getTopDentistsByRevenue(LocalDate startDate);
 }
@@ -0,0 +1,24 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.InvoiceRollupLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceRollupLockRepository extends JpaRepository<InvoiceRollupLock, Integer> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM InvoiceRollupLock l WHERE l.id = ?1")
+    Optional<InvoiceRollupLock> lockStripe(Integer id);
+    
+    // In id order, so two rebuilds queue up rather than deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM InvoiceRollupLock l ORDER BY l.id")
+    List<InvoiceRollupLock> lockAllStripes();
+}
@@ -2,14 +2,36 @@
 package com.dentalflow.repository;
 
 import com.dentalflow.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
-    List<Message> findByCaseId(String caseId);
+    // Thread paging, all served by idx_messages_case (case_id, id)
+    @Query("SELECT m FROM Message m WHERE m.caseId = ?1 ORDER BY m.id DESC")
+    List<Message> findLatestByCaseId(String caseId, Pageable pageable);
+    
+    @Query("SELECT m FROM Message m WHERE m.caseId = ?1 AND m.id < ?2 ORDER BY m.id DESC")
+    List<Message> findByCaseIdBefore(String caseId, Long beforeId, Pageable pageable);
+    
+    @Query("SELECT m FROM Message m WHERE m.caseId = ?1 AND m.id > ?2 ORDER BY m.id")
+    List<Message> findByCaseIdAfter(String caseId, Long afterId, Pageable pageable);
+    
+    // Mark-read for one thread up to the newest message the reader has seen; both use idx_messages_receiver_read
+    @Modifying
+    @Query("UPDATE Message m SET m.isRead = true " +
+           "WHERE m.receiverId = ?1 AND m.caseId = ?2 AND m.isRead = false AND m.id <= ?3")
+    int markCaseThreadRead(String receiverId, String caseId, Long upToId);
+    
+    @Modifying
+    @Query("UPDATE Message m SET m.isRead = true " +
+           "WHERE m.receiverId = ?1 AND m.senderId = ?2 AND m.caseId IS NULL AND m.isRead = false AND m.id <= ?3")
+    int markDirectThreadRead(String receiverId, String senderId, Long upToId);
+    
     List<Message> findBySenderIdAndReceiverId(String senderId, String receiverId);
-    List<Message> findByReceiverIdAndIsReadFalse(String receiverId);
 }
@@ -0,0 +1,28 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.model.MessageUnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MessageUnreadCounterRepository extends JpaRepository<MessageUnreadCounter, MessageUnreadCounter.Key> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO message_unread_counters (receiver_id, thread_type, thread_id, unread) " +
+                   "VALUES (?1, ?2, ?3, ?4) " +
+                   "ON DUPLICATE KEY UPDATE unread = unread + VALUES(unread)", nativeQuery = true)
+    void add(String receiverId, String threadType, String threadId, long count);
+    
+    // Takes off exactly the rows a mark-read UPDATE changed, so increments committed meanwhile are kept
+    @Modifying
+    @Query("UPDATE MessageUnreadCounter c SET c.unread = CASE WHEN c.unread > ?4 THEN c.unread - ?4 ELSE 0 END " +
+           "WHERE c.id.receiverId = ?1 AND c.id.threadType = ?2 AND c.id.threadId = ?3")
+    int decrement(String receiverId, String threadType, String threadId, long count);
+    
+    @Query("SELECT c FROM MessageUnreadCounter c WHERE c.id.receiverId = ?1 AND c.unread > 0")
+    List<MessageUnreadCounter> findUnreadByReceiverId(String receiverId);
+}
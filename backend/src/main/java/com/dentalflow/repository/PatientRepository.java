@@ -1,13 +1,45 @@
 
 package com.dentalflow.repository;
 
+import com.dentalflow.dto.PatientDTO;
 import com.dentalflow.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    // Read-only list rows selected straight into the DTO, bypassing the persistence context
+    String PATIENT_VIEW = "SELECT new com.dentalflow.dto.PatientDTO(p.id, p.firstName, p.lastName, p.email, p.phone, p.address, " +
+                          "d.id, CONCAT(d.firstName, ' ', d.lastName)) " +
+                          "FROM Patient p LEFT JOIN p.dentist d ";
+    
     List<Patient> findByDentistId(Long dentistId);
+    
+    @Query(PATIENT_VIEW + "WHERE d.id = ?1 ORDER BY p.lastName, p.id")
+    List<PatientDTO> findViewsByDentistId(Long dentistId);
+    
+    // Keyset pages ordered alphabetically by (lastName, id)
+    @Query(PATIENT_VIEW + "ORDER BY p.lastName, p.id")
+    List<PatientDTO> findFirstPage(Pageable pageable);
+    
+    @Query(PATIENT_VIEW +
+           "WHERE p.lastName > ?1 OR (p.lastName = ?1 AND p.id > ?2) " +
+           "ORDER BY p.lastName, p.id")
+    List<PatientDTO> findPageAfter(String lastName, Long id, Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PATIENT_VIEW + "WHERE (?1 IS NULL OR p.createdAt >= ?1) AND (?2 IS NULL OR p.createdAt < ?2) ORDER BY p.id")
+    Stream<PatientDTO> streamForExport(LocalDateTime from, LocalDateTime to);
 }
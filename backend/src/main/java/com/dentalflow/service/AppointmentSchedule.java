@@ -0,0 +1,342 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.FreeSlotDTO;
+import com.dentalflow.exception.ConflictException;
+import com.dentalflow.model.Appointment;
+import com.dentalflow.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of booked time per dentist and day, used to reject overlapping appointments and
+ * to list free time without querying the appointments table. Each day keeps its bookings in a
+ * TreeMap keyed by start minute, so an overlap check is two O(log n) lookups.
+ * <p>
+ * Bookings and cancellations made inside a transaction are held as tentative changes of that
+ * transaction until it commits: listings show only committed time, while overlap checks also see
+ * other transactions' tentative bookings and still count a slot as taken until its cancellation
+ * commits. A rolled back transaction's changes are dropped.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentSchedule {
+    
+    public static final String CANCELLED = "cancelled";
+    
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSchedule.class);
+    
+    private final AppointmentRepository appointmentRepository;
+    
+    @Value("${schedule.day-start:08:00}")
+    private LocalTime dayStart;
+    
+    @Value("${schedule.day-end:18:00}")
+    private LocalTime dayEnd;
+    
+    @Value("${schedule.availability-max-days:31}")
+    private int availabilityMaxDays;
+    
+    private final Map<DayKey, Day> days = new ConcurrentHashMap<>();
+    
+    // Binds the current transaction's Changes
+    private final Object changesKey = new Object();
+    
+    /**
+     * The time an appointment occupies; cancelled appointments occupy none.
+     */
+    public record Booking(Long appointmentId, Long dentistId, LocalDate date, LocalTime startTime, Integer durationMinutes) {
+        
+        public static Booking of(Appointment appointment) {
+            if (CANCELLED.equalsIgnoreCase(appointment.getStatus())) {
+                return null;
+            }
+            return new Booking(appointment.getId(), appointment.getDentist().getId(), appointment.getAppointmentDate(),
+                    appointment.getAppointmentTime(), appointment.getDurationMinutes());
+        }
+        
+        int startMinute() {
+            return startTime.getHour() * 60 + startTime.getMinute();
+        }
+        
+        int endMinute() {
+            return startMinute() + durationMinutes;
+        }
+    }
+    
+    private record DayKey(Long dentistId, LocalDate date) {
+    }
+    
+    // Committed bookings, which listings read, and the tentative changes of transactions still in flight
+    private static class Day {
+        private final TreeMap<Integer, Booking> booked = new TreeMap<>();
+        private final List<Change> pending = new ArrayList<>();
+    }
+    
+    private record Change(Booking booking, boolean release, Object owner) {
+    }
+    
+    // Past days are never booked into again, so only today onwards is indexed
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        int count = 0;
+        try (Stream<AppointmentRepository.BookingRow> rows = appointmentRepository.streamBookingsFrom(LocalDate.now(), CANCELLED)) {
+            for (AppointmentRepository.BookingRow row : (Iterable<AppointmentRepository.BookingRow>) rows::iterator) {
+                Booking booking = new Booking(row.appointmentId(), row.dentistId(), row.date(), row.startTime(),
+                        row.durationMinutes());
+                day(booking).booked.put(booking.startMinute(), booking);
+                count++;
+            }
+        }
+        logger.info("Loaded {} upcoming appointments into the schedule index", count);
+    }
+    
+    // Drops the days that have passed, as load() would not have indexed them
+    @Scheduled(cron = "${schedule.eviction-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        int evicted = evictBefore(LocalDate.now());
+        logger.info("Evicted {} past dentist days from the schedule index", evicted);
+    }
+    
+    int evictBefore(LocalDate date) {
+        int before = days.size();
+        days.keySet().removeIf(key -> key.date().isBefore(date));
+        return before - days.size();
+    }
+    
+    /**
+     * Adds a booking, or throws ConflictException if it overlaps another one for the same dentist.
+     * When moving an appointment, cancel its old booking first.
+     */
+    public void book(Booking booking) {
+        if (booking.endMinute() > 24 * 60) {
+            throw new IllegalArgumentException("Appointment must end on the day it starts");
+        }
+        Day day = day(booking);
+        Changes changes = currentChanges();
+        synchronized (day) {
+            Booking overlapping = findOverlap(day, booking, changes);
+            if (overlapping != null) {
+                throw new ConflictException("Dentist already has appointment " + overlapping.appointmentId()
+                        + " at " + overlapping.startTime() + " on " + overlapping.date());
+            }
+            if (changes == null) {
+                day.booked.put(booking.startMinute(), booking);
+            } else {
+                changes.add(day, new Change(booking, false, changes));
+            }
+        }
+    }
+    
+    public void cancel(Booking booking) {
+        Day day = days.get(new DayKey(booking.dentistId(), booking.date()));
+        if (day == null) {
+            return;
+        }
+        Changes changes = currentChanges();
+        synchronized (day) {
+            if (changes == null) {
+                day.booked.remove(booking.startMinute(), booking);
+            } else if (!changes.dropBooking(day, booking)
+                    && booking.equals(day.booked.get(booking.startMinute())) && !isReleasedBy(day, booking, changes)) {
+                changes.add(day, new Change(booking, true, changes));
+            }
+        }
+    }
+    
+    /**
+     * Free stretches of at least minDuration minutes within working hours, day by day.
+     */
+    public List<FreeSlotDTO> findFreeSlots(Long dentistId, LocalDate from, LocalDate to, int minDuration) {
+        if (to.isBefore(from) || from.plusDays(availabilityMaxDays).isBefore(to)) {
+            throw new IllegalArgumentException("Date range must be ordered and span at most " + availabilityMaxDays + " days");
+        }
+        List<FreeSlotDTO> slots = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (int[] stretch : freeStretches(dentistId, date, minDuration)) {
+                slots.add(new FreeSlotDTO(date, toTime(stretch[0]), toTime(stretch[1]), null, null));
+            }
+        }
+        return slots;
+    }
+    
+    /**
+     * One day's free time cut into consecutive slots of exactly the given length, none starting before notBefore.
+     */
+    public List<FreeSlotDTO> findBookableSlots(Long dentistId, LocalDate date, int duration, LocalTime notBefore) {
+        int earliest = notBefore.getHour() * 60 + notBefore.getMinute() + (notBefore.getSecond() > 0 ? 1 : 0);
+        List<FreeSlotDTO> slots = new ArrayList<>();
+        for (int[] stretch : freeStretches(dentistId, date, duration)) {
+            for (int start = stretch[0]; start + duration <= stretch[1]; start += duration) {
+                if (start >= earliest) {
+                    slots.add(new FreeSlotDTO(date, toTime(start), toTime(start + duration), dentistId, null));
+                }
+            }
+        }
+        return slots;
+    }
+    
+    // Free [start, end) minute ranges of at least minDuration within working hours
+    private List<int[]> freeStretches(Long dentistId, LocalDate date, int minDuration) {
+        int open = dayStart.toSecondOfDay() / 60;
+        int close = dayEnd.toSecondOfDay() / 60;
+        List<int[]> stretches = new ArrayList<>();
+        int cursor = open;
+        Day day = days.get(new DayKey(dentistId, date));
+        if (day != null) {
+            synchronized (day) {
+                // A booking that starts before opening can still run into working hours
+                Map.Entry<Integer, Booking> before = day.booked.lowerEntry(open);
+                if (before != null) {
+                    cursor = Math.max(cursor, before.getValue().endMinute());
+                }
+                for (Booking booking : day.booked.subMap(open, close).values()) {
+                    if (booking.startMinute() - cursor >= minDuration) {
+                        stretches.add(new int[]{cursor, booking.startMinute()});
+                    }
+                    cursor = Math.max(cursor, booking.endMinute());
+                }
+            }
+        }
+        if (close - cursor >= minDuration) {
+            stretches.add(new int[]{cursor, close});
+        }
+        return stretches;
+    }
+    
+    private static LocalTime toTime(int minute) {
+        return minute >= 24 * 60 ? LocalTime.MAX : LocalTime.of(minute / 60, minute % 60);
+    }
+    
+    // Committed bookings this transaction is not releasing, and every transaction's tentative bookings
+    private static Booking findOverlap(Day day, Booking booking, Changes changes) {
+        // Committed bookings never overlap each other, so nothing before the nearest earlier one can clash
+        Map.Entry<Integer, Booking> before = day.booked.floorEntry(booking.startMinute());
+        if (before != null && before.getValue().endMinute() > booking.startMinute()
+                && !isReleasedBy(day, before.getValue(), changes)) {
+            return before.getValue();
+        }
+        for (Booking after : day.booked.subMap(booking.startMinute(), false, booking.endMinute(), false).values()) {
+            if (!isReleasedBy(day, after, changes)) {
+                return after;
+            }
+        }
+        for (Change change : day.pending) {
+            if (!change.release() && change.booking().startMinute() < booking.endMinute()
+                    && booking.startMinute() < change.booking().endMinute()) {
+                return change.booking();
+            }
+        }
+        return null;
+    }
+    
+    private static boolean isReleasedBy(Day day, Booking booking, Changes changes) {
+        if (changes == null) {
+            return false;
+        }
+        for (Change change : day.pending) {
+            if (change.release() && change.owner() == changes && change.booking().equals(booking)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private Day day(Booking booking) {
+        return days.computeIfAbsent(new DayKey(booking.dentistId(), booking.date()), k -> new Day());
+    }
+    
+    // The current transaction's changes, or null outside a transaction, where changes apply at once
+    private Changes currentChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(changesKey);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(changesKey, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+    
+    /**
+     * One transaction's tentative changes, applied to the committed bookings when it commits and
+     * dropped when it rolls back. add and dropBooking are called holding the day's lock.
+     */
+    private class Changes implements TransactionSynchronization {
+        
+        private final Map<Day, List<Change>> byDay = new LinkedHashMap<>();
+        
+        void add(Day day, Change change) {
+            day.pending.add(change);
+            byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(change);
+        }
+        
+        // Forgets a booking this transaction made itself, so cancelling it leaves nothing to apply
+        boolean dropBooking(Day day, Booking booking) {
+            List<Change> dayChanges = byDay.getOrDefault(day, List.of());
+            for (Change change : dayChanges) {
+                if (!change.release() && change.booking().equals(booking)) {
+                    dayChanges.remove(change);
+                    day.pending.remove(change);
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(changesKey);
+        }
+        
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(changesKey, this);
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(changesKey);
+            byDay.forEach((day, dayChanges) -> {
+                synchronized (day) {
+                    day.pending.removeAll(dayChanges);
+                    if (status == STATUS_ROLLED_BACK) {
+                        return;
+                    }
+                    // Releases first, so an appointment moved within its own time keeps its new booking
+                    for (Change change : dayChanges) {
+                        if (change.release()) {
+                            day.booked.remove(change.booking().startMinute(), change.booking());
+                        }
+                    }
+                    for (Change change : dayChanges) {
+                        if (!change.release()) {
+                            day.booked.put(change.booking().startMinute(), change.booking());
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
 import com.dentalflow.dto.AppointmentDTO;
+import com.dentalflow.dto.CalendarDTO;
+import com.dentalflow.dto.CursorPageDTO;
+import com.dentalflow.dto.FreeSlotDTO;
 import com.dentalflow.model.Appointment;
 import com.dentalflow.model.Case;
-import com.dentalflow.model.Dentist;
 import com.dentalflow.model.Patient;
 import com.dentalflow.repository.AppointmentRepository;
-import com.dentalflow.repository.CaseRepository;
-import com.dentalflow.repository.DentistRepository;
-import com.dentalflow.repository.PatientRepository;
+import com.dentalflow.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,14 +32,36 @@ import java.util.stream.Collectors;
 public class AppointmentService {
     
     private final AppointmentRepository appointmentRepository;
-    private final PatientRepository patientRepository;
-    private final DentistRepository dentistRepository;
-    private final CaseRepository caseRepository;
+    private final EntityReferences entityReferences;
+    private final ReferenceDataCache referenceDataCache;
+    private final PaginationConfig paginationConfig;
+    private final AppointmentSchedule schedule;
     
-    public List<AppointmentDTO> getAllAppointments() {
-        return appointmentRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Value("${schedule.default-duration-minutes:30}")
+    private int defaultDurationMinutes;
+    
+    @Value("${schedule.availability-max-days:31}")
+    private int availabilityMaxDays;
+    
+    @Value("${schedule.calendar-max-days:62}")
+    private int calendarMaxDays;
+    
+    @Value("${schedule.search.max-results:50}")
+    private int maxSearchResults;
+    
+    public CursorPageDTO<AppointmentDTO> getAllAppointments(String cursor, Integer limit) {
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        
+        List<Appointment> appointments;
+        if (cursor == null || cursor.isEmpty()) {
+            appointments = appointmentRepository.findFirstPage(window);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            appointments = appointmentRepository.findPageAfter(after.dateKey(), after.id(), window);
+        }
+        return CursorPageDTO.of(appointments, pageSize, this::convertToDTO,
+                a -> PageCursor.encode(a.getAppointmentDate(), a.getId()));
     }
     
     public List<AppointmentDTO> getAppointmentsByDentistId(Long dentistId) {
@@ -76,37 +106,139 @@ public class AppointmentService {
                 .orElseThrow(() -> new EntityNotFoundException("Appointment not found with id: " + id));
     }
     
+    // Free time for a dentist, answered from the in-memory schedule index
+    public List<FreeSlotDTO> getAvailability(Long dentistId, LocalDate startDate, LocalDate endDate, Integer durationMinutes) {
+        int minDuration = durationMinutes != null ? durationMinutes : defaultDurationMinutes;
+        return schedule.findFreeSlots(dentistId, startDate, endDate, minDuration);
+    }
+    
+    /**
+     * The earliest bookable slots with any dentist from startDate on, ordered by date, time and dentist.
+     * Days are searched one at a time and the search stops after the first day that completes the
+     * requested count; within a day every dentist has to be looked at, since any of them may have the
+     * earliest slot. Each dentist-day is a lookup in the in-memory schedule index that takes microseconds,
+     * so the search runs on the calling thread: handing lookups to an executor cost more than they did.
+     */
+    public List<FreeSlotDTO> getFirstAvailable(LocalDate startDate, Integer durationMinutes, Integer limit) {
+        int duration = durationMinutes != null ? durationMinutes : defaultDurationMinutes;
+        int wanted = limit != null ? Math.max(1, Math.min(limit, maxSearchResults)) : 10;
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = startDate != null && startDate.isAfter(today) ? startDate : today;
+        LocalTime now = LocalTime.now();
+        Map<Long, String> dentistNames = referenceDataCache.getDentistNames();
+        
+        List<FreeSlotDTO> found = new ArrayList<>();
+        for (int i = 0; i < availabilityMaxDays && found.size() < wanted; i++) {
+            LocalDate date = firstDay.plusDays(i);
+            LocalTime notBefore = date.equals(today) ? now : LocalTime.MIDNIGHT;
+            List<FreeSlotDTO> daySlots = new ArrayList<>();
+            for (Long dentistId : dentistNames.keySet()) {
+                daySlots.addAll(schedule.findBookableSlots(dentistId, date, duration, notBefore));
+            }
+            
+            daySlots.sort(Comparator.comparing(FreeSlotDTO::getStartTime).thenComparing(FreeSlotDTO::getDentistId));
+            for (FreeSlotDTO slot : daySlots.subList(0, Math.min(daySlots.size(), wanted - found.size()))) {
+                slot.setDentistName(dentistNames.get(slot.getDentistId()));
+                found.add(slot);
+            }
+        }
+        return found;
+    }
+    
+    public CalendarDTO getCalendar(LocalDate startDate, LocalDate endDate, Long dentistId) {
+        if (endDate.isBefore(startDate) || startDate.plusDays(calendarMaxDays).isBefore(endDate)) {
+            throw new IllegalArgumentException("Date range must be ordered and span at most " + calendarMaxDays + " days");
+        }
+        List<AppointmentRepository.CalendarRow> rows = appointmentRepository.findCalendarRows(startDate, endDate, dentistId);
+        
+        Map<Long, String> dentists = new LinkedHashMap<>();
+        Map<Long, String> patients = new LinkedHashMap<>();
+        Map<String, Integer> typeCodes = new LinkedHashMap<>();
+        Map<String, Integer> statusCodes = new LinkedHashMap<>();
+        List<CalendarDTO.DayDTO> days = new ArrayList<>();
+        
+        // Rows arrive grouped by (date, dentist), so each run of equal keys becomes one day
+        int from = 0;
+        while (from < rows.size()) {
+            AppointmentRepository.CalendarRow first = rows.get(from);
+            int to = from;
+            while (to < rows.size() && rows.get(to).date().equals(first.date())
+                    && rows.get(to).dentistId().equals(first.dentistId())) {
+                to++;
+            }
+            int n = to - from;
+            CalendarDTO.DayDTO day = new CalendarDTO.DayDTO(first.date(), first.dentistId(),
+                    new long[n], new long[n], new int[n], new int[n], new int[n], new int[n]);
+            for (int i = 0; i < n; i++) {
+                AppointmentRepository.CalendarRow row = rows.get(from + i);
+                dentists.putIfAbsent(row.dentistId(), row.dentistFirstName() + " " + row.dentistLastName());
+                patients.putIfAbsent(row.patientId(), row.patientFirstName() + " " + row.patientLastName());
+                day.getIds()[i] = row.id();
+                day.getPatientIds()[i] = row.patientId();
+                day.getStarts()[i] = row.time().getHour() * 60 + row.time().getMinute();
+                day.getDurations()[i] = row.durationMinutes();
+                day.getTypes()[i] = typeCodes.computeIfAbsent(row.type(), t -> typeCodes.size());
+                day.getStatuses()[i] = statusCodes.computeIfAbsent(row.status(), s -> statusCodes.size());
+            }
+            days.add(day);
+            from = to;
+        }
+        
+        return new CalendarDTO(startDate, endDate, dentists, patients,
+                new ArrayList<>(typeCodes.keySet()), new ArrayList<>(statusCodes.keySet()), days);
+    }
+    
+    @Transactional
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO) {
         Appointment appointment = convertToEntity(appointmentDTO);
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        // An overlap throws here and rolls the insert back
+        AppointmentSchedule.Booking booking = AppointmentSchedule.Booking.of(savedAppointment);
+        if (booking != null) {
+            schedule.book(booking);
+        }
         return convertToDTO(savedAppointment);
     }
     
+    @Transactional
     public AppointmentDTO updateAppointment(Long id, AppointmentDTO appointmentDTO) {
         Appointment existingAppointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Appointment not found with id: " + id));
+        AppointmentSchedule.Booking previous = AppointmentSchedule.Booking.of(existingAppointment);
         
         Appointment appointment = convertToEntity(appointmentDTO);
         appointment.setId(id);
         appointment.setCreatedAt(existingAppointment.getCreatedAt());
         
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        if (previous != null) {
+            schedule.cancel(previous);
+        }
+        AppointmentSchedule.Booking booking = AppointmentSchedule.Booking.of(updatedAppointment);
+        if (booking != null) {
+            schedule.book(booking);
+        }
         return convertToDTO(updatedAppointment);
     }
     
+    @Transactional
     public void deleteAppointment(Long id) {
-        if (!appointmentRepository.existsById(id)) {
-            throw new EntityNotFoundException("Appointment not found with id: " + id);
+        Appointment appointment = appointmentRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Appointment not found with id: " + id));
+        AppointmentSchedule.Booking booking = AppointmentSchedule.Booking.of(appointment);
+        appointmentRepository.delete(appointment);
+        if (booking != null) {
+            schedule.cancel(booking);
         }
-        appointmentRepository.deleteById(id);
     }
     
-    private AppointmentDTO convertToDTO(Appointment appointment) {
+    AppointmentDTO convertToDTO(Appointment appointment) {
         AppointmentDTO dto = new AppointmentDTO();
         
         dto.setId(appointment.getId());
         dto.setAppointmentDate(appointment.getAppointmentDate());
         dto.setAppointmentTime(appointment.getAppointmentTime());
+        dto.setDurationMinutes(appointment.getDurationMinutes());
         dto.setAppointmentType(appointment.getAppointmentType());
         dto.setNotes(appointment.getNotes());
         dto.setStatus(appointment.getStatus());
@@ -142,26 +274,17 @@ public class AppointmentService {
         
         entity.setAppointmentDate(dto.getAppointmentDate());
         entity.setAppointmentTime(dto.getAppointmentTime());
+        entity.setDurationMinutes(dto.getDurationMinutes() != null ? dto.getDurationMinutes() : defaultDurationMinutes);
         entity.setAppointmentType(dto.getAppointmentType());
         entity.setNotes(dto.getNotes());
         entity.setStatus(dto.getStatus());
         
-        if (dto.getPatientId() != null) {
-            Patient patient = patientRepository.findById(dto.getPatientId())
-                    .orElseThrow(() -> new EntityNotFoundException("Patient not found with id: " + dto.getPatientId()));
-            entity.setPatient(patient);
-        }
+        // The response reads the patient's name and the case's title, so neither is bound by reference
+        entity.setPatient(entityReferences.load(Patient.class, dto.getPatientId()));
+        entity.setRelatedCase(entityReferences.load(Case.class, dto.getCaseId()));
         
         if (dto.getDentistId() != null) {
-            Dentist dentist = dentistRepository.findById(dto.getDentistId())
-                    .orElseThrow(() -> new EntityNotFoundException("Dentist not found with id: " + dto.getDentistId()));
-            entity.setDentist(dentist);
-        }
-        
-        if (dto.getCaseId() != null) {
-            Case relatedCase = caseRepository.findById(dto.getCaseId())
-                    .orElseThrow(() -> new EntityNotFoundException("Case not found with id: " + dto.getCaseId()));
-            entity.setRelatedCase(relatedCase);
+            entity.setDentist(referenceDataCache.getDentist(dto.getDentistId()));
         }
         
         return entity;
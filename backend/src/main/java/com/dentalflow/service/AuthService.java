@@ -2,6 +2,7 @@
 package com.dentalflow.service;
 
 import com.dentalflow.config.JwtConfig;
+import com.dentalflow.config.PrincipalCache;
 import com.dentalflow.dto.AuthRequestDTO;
 import com.dentalflow.dto.AuthResponseDTO;
 import com.dentalflow.dto.RegisterRequestDTO;
@@ -27,6 +28,7 @@ public class AuthService {
     private final JwtConfig jwtConfig;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final PrincipalCache principalCache;
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     
     public AuthResponseDTO register(RegisterRequestDTO registerRequest) {
@@ -53,6 +55,7 @@ public class AuthService {
         user.setRole(registerRequest.getRole());
         
         User savedUser = userRepository.save(user);
+        principalCache.evict(savedUser.getUsername());
         logger.info("User saved successfully: {}", savedUser.getUsername());
         
         // Generate JWT token
@@ -92,6 +95,9 @@ public class AuthService {
                     .orElseGet(() -> userRepository.findByEmail(loginRequest.getUsername())
                             .orElseThrow(() -> new UsernameNotFoundException("User not found")));
             
+            // A fresh login carries the current role, so drop any principal cached from an older token
+            principalCache.evict(user.getUsername());
+            
             // Generate JWT token
             String token = jwtConfig.generateToken(user.getUsername(), user.getRole());
             logger.info("JWT token generated for user: {}", user.getUsername());
@@ -0,0 +1,73 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.model.BillOfMaterialLine;
+import com.dentalflow.model.Case;
+import com.dentalflow.repository.BillOfMaterialLineRepository;
+import com.dentalflow.repository.InventoryItemRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-case-type bills of materials, and their deduction from stock when a case is completed.
+ */
+@Service
+@RequiredArgsConstructor
+public class BillOfMaterialsService {
+    
+    private final BillOfMaterialLineRepository lineRepository;
+    private final InventoryItemRepository itemRepository;
+    private final InventoryService inventoryService;
+    
+    public List<StockChangeDTO.LineDTO> getBillOfMaterials(String caseType) {
+        return lineRepository.findByCaseType(caseType).stream()
+                .map(line -> new StockChangeDTO.LineDTO(line.getId().getItemId(), line.getQuantity(), null))
+                .collect(Collectors.toList());
+    }
+    
+    @Transactional
+    public List<StockChangeDTO.LineDTO> replaceBillOfMaterials(String caseType, List<StockChangeDTO.LineDTO> lines) {
+        Set<Long> itemIds = new HashSet<>();
+        for (StockChangeDTO.LineDTO line : lines) {
+            if (line.getItemId() == null || !itemIds.add(line.getItemId())) {
+                throw new IllegalArgumentException("Each line needs a distinct item id");
+            }
+        }
+        if (itemRepository.countByIdIn(itemIds) < itemIds.size()) {
+            throw new EntityNotFoundException("Inventory item not found in bill of materials for: " + caseType);
+        }
+        
+        lineRepository.deleteByCaseType(caseType);
+        lineRepository.saveAll(lines.stream()
+                .map(line -> new BillOfMaterialLine(new BillOfMaterialLine.Key(caseType, line.getItemId()), line.getQuantity()))
+                .collect(Collectors.toList()));
+        return getBillOfMaterials(caseType);
+    }
+    
+    /**
+     * Deducts the case type's materials as part of the caller's transaction. All items are taken
+     * in one conditional UPDATE; a ConflictException for any short item rolls the caller back.
+     * Returns false when the case has no type or its type has no bill of materials.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean consumeFor(Case caseEntity) {
+        if (caseEntity.getCaseType() == null) {
+            return false;
+        }
+        List<StockChangeDTO.LineDTO> lines = getBillOfMaterials(caseEntity.getCaseType());
+        if (lines.isEmpty()) {
+            return false;
+        }
+        lines.forEach(line -> line.setCaseId(caseEntity.getId()));
+        inventoryService.consume(lines);
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package com.dentalflow.service;
+
+import com.dentalflow.event.CaseDeletedEvent;
+import com.dentalflow.event.CaseStatusChangedEvent;
+import com.dentalflow.model.CaseStatusTransition;
+import com.dentalflow.repository.CaseRepository;
+import com.dentalflow.repository.CaseStatusTransitionRepository;
+import com.dentalflow.util.QuantileSketch;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Case cycle-time statistics kept in memory and updated as status transitions arrive.
+ * Turnaround runs from a case's creation to its move to "completed" (or straight to "delivered"); dwell
+ * is the time a case spent in an open status before leaving it. Both are bucketed by the month in which they ended, so any window of
+ * months is answered by merging a handful of summaries instead of reading the transition log.
+ */
+@Service
+@RequiredArgsConstructor
+public class CaseCycleTimeAggregator {
+    
+    public static final String COMPLETED = "completed";
+    public static final String DELIVERED = "delivered";
+    
+    private static final Logger logger = LoggerFactory.getLogger(CaseCycleTimeAggregator.class);
+    private static final double SKETCH_ACCURACY = 0.01;
+    
+    private final CaseStatusTransitionRepository transitionRepository;
+    private final CaseRepository caseRepository;
+    
+    // Open cases only: an entry goes when its case is completed, delivered or deleted, so the map grows
+    // with the open workload rather than the log
+    private final Map<Long, CaseState> cases = new HashMap<>();
+    private final Map<YearMonth, Stats> turnaround = new HashMap<>();
+    private final Map<YearMonth, Map<Long, Stats>> dentistTurnaround = new HashMap<>();
+    private final Map<YearMonth, Map<String, Stats>> statusDwell = new HashMap<>();
+    
+    // Events that arrive while the startup replay runs; applying them first would make the replay skip
+    // the earlier transitions of their cases, so they wait until it has finished
+    private final List<Object> heldEvents = new ArrayList<>();
+    private boolean replayed;
+    private long replayedUpTo;
+    
+    /**
+     * Count, sum and quantile sketch of durations in seconds. Merging two summaries gives the summary
+     * of all their values combined.
+     */
+    public static final class Stats {
+        private long count;
+        private double sum;
+        private final QuantileSketch sketch = new QuantileSketch(SKETCH_ACCURACY);
+        
+        void add(double seconds) {
+            count++;
+            sum += seconds;
+            sketch.add(seconds);
+        }
+        
+        void merge(Stats other) {
+            count += other.count;
+            sum += other.sum;
+            sketch.merge(other.sketch);
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public double getMean() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+        
+        public double quantile(double q) {
+            return sketch.quantile(q);
+        }
+    }
+    
+    private record CaseState(long lastTransitionId, String status, LocalDateTime since, LocalDateTime createdAt) {
+    }
+    
+    // Rebuilds the aggregates from the log once at startup; later transitions arrive as events
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void replay() {
+        int backfilled = transitionRepository.insertMissingCreations();
+        try (Stream<CaseStatusTransition> transitions = transitionRepository.streamAll()) {
+            transitions.forEach(this::replayTransition);
+        }
+        synchronized (this) {
+            // The log outlives deleted cases, so the replay brings back the ones deleted while still open
+            if (!cases.isEmpty()) {
+                cases.keySet().retainAll(caseRepository.findExistingIds(cases.keySet()));
+            }
+            for (Object event : heldEvents) {
+                // The log is read in id order, so a transition up to the last one replayed was in it
+                if (event instanceof CaseStatusChangedEvent changed && changed.transition().getId() > replayedUpTo) {
+                    apply(changed.transition());
+                } else if (event instanceof CaseDeletedEvent deleted) {
+                    cases.remove(deleted.caseId());
+                }
+            }
+            logger.info("Replayed case status log ({} creation entries backfilled, {} live events held)",
+                    backfilled, heldEvents.size());
+            heldEvents.clear();
+            replayed = true;
+        }
+    }
+    
+    private synchronized void replayTransition(CaseStatusTransition transition) {
+        apply(transition);
+        replayedUpTo = Math.max(replayedUpTo, transition.getId());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCaseStatusChanged(CaseStatusChangedEvent event) {
+        if (replayed) {
+            apply(event.transition());
+        } else {
+            heldEvents.add(event);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCaseDeleted(CaseDeletedEvent event) {
+        if (replayed) {
+            cases.remove(event.caseId());
+        } else {
+            heldEvents.add(event);
+        }
+    }
+    
+    public synchronized void apply(CaseStatusTransition transition) {
+        CaseState previous = cases.get(transition.getCaseId());
+        if (previous != null && transition.getId() <= previous.lastTransitionId()) {
+            // Already seen
+            return;
+        }
+        
+        LocalDateTime at = transition.getChangedAt();
+        YearMonth period = YearMonth.from(at);
+        LocalDateTime createdAt = at;
+        if (previous != null && transition.getFromStatus() != null) {
+            createdAt = previous.createdAt();
+            statusDwell.computeIfAbsent(period, p -> new HashMap<>())
+                    .computeIfAbsent(previous.status(), s -> new Stats())
+                    .add(seconds(previous.since(), at));
+            
+            if (isExit(transition.getToStatus())) {
+                double cycle = seconds(createdAt, at);
+                turnaround.computeIfAbsent(period, p -> new Stats()).add(cycle);
+                if (transition.getDentistId() != null) {
+                    dentistTurnaround.computeIfAbsent(period, p -> new HashMap<>())
+                            .computeIfAbsent(transition.getDentistId(), d -> new Stats())
+                            .add(cycle);
+                }
+            }
+        }
+        if (isExit(transition.getToStatus())) {
+            // Only open cases are kept; one reopened later is tracked from its reopening as if it were new.
+            // A completed case moving on to "delivered" is not tracked, so it is not put back either
+            cases.remove(transition.getCaseId());
+        } else {
+            cases.put(transition.getCaseId(), new CaseState(transition.getId(), transition.getToStatus(), at, createdAt));
+        }
+    }
+    
+    /**
+     * Turnaround per month for the given months, oldest first; months without completions are left out.
+     */
+    public synchronized TreeMap<YearMonth, Stats> getTurnaroundByMonth(YearMonth from, YearMonth to) {
+        TreeMap<YearMonth, Stats> result = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            Stats stats = turnaround.get(month);
+            if (stats != null) {
+                result.computeIfAbsent(month, m -> new Stats()).merge(stats);
+            }
+        }
+        return result;
+    }
+    
+    public synchronized Map<Long, Stats> getTurnaroundByDentist(YearMonth from, YearMonth to) {
+        return mergeRange(dentistTurnaround, from, to);
+    }
+    
+    public synchronized Map<String, Stats> getDwellByStatus(YearMonth from, YearMonth to) {
+        return mergeRange(statusDwell, from, to);
+    }
+    
+    private static <K> Map<K, Stats> mergeRange(Map<YearMonth, Map<K, Stats>> source, YearMonth from, YearMonth to) {
+        Map<K, Stats> result = new HashMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            Map<K, Stats> stats = source.get(month);
+            if (stats != null) {
+                stats.forEach((key, value) -> result.computeIfAbsent(key, k -> new Stats()).merge(value));
+            }
+        }
+        return result;
+    }
+    
+    // Statuses in which a case has left the lab's workload
+    private static boolean isExit(String status) {
+        return COMPLETED.equalsIgnoreCase(status) || DELIVERED.equalsIgnoreCase(status);
+    }
+    
+    private static double seconds(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, Duration.between(from, to).toMillis() / 1000.0);
+    }
+}
@@ -0,0 +1,178 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.event.MessageSentEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process fan-out of saved case messages to WebSocket subscribers.
+ *
+ * A message is serialized once and offered to a bounded queue per subscriber, so publishing
+ * never waits on a socket. Each queue is drained by at most one task on messagePushExecutor.
+ * A subscriber whose queue is full is too slow to keep up: it is dropped at once rather than
+ * allowed to buffer without limit, and the client reloads the thread when it reconnects.
+ * Its session is closed by the push thread once the send in flight returns, which the send
+ * time limit bounds, so a stalled client holds a push thread for at most that long. When every
+ * push thread is busy and the executor's backlog is full, a subscriber that needs a drain is
+ * dropped too, instead of the send running on the publishing thread.
+ */
+@Service
+public class CaseMessageBroadcaster {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CaseMessageBroadcaster.class);
+    
+    private static final CloseStatus SLOW_CONSUMER = CloseStatus.POLICY_VIOLATION.withReason("Subscriber too slow");
+    private static final CloseStatus OVERLOADED = CloseStatus.SERVICE_OVERLOAD.withReason("Push backlog full");
+    // Tomcat's per-session limit on a blocking send; other containers ignore the property
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+    
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor messagePushExecutor;
+    private final int queueCapacity;
+    private final long sendTimeLimitMillis;
+    
+    private final Map<String, Set<Subscriber>> subscribersByCase = new ConcurrentHashMap<>();
+    
+    public CaseMessageBroadcaster(ObjectMapper objectMapper,
+                                  @Qualifier("messagePushExecutor") ThreadPoolTaskExecutor messagePushExecutor,
+                                  @Value("${messages.push.subscriber-queue-capacity:256}") int queueCapacity,
+                                  @Value("${messages.push.send-time-limit-ms:5000}") long sendTimeLimitMillis) {
+        this.objectMapper = objectMapper;
+        this.messagePushExecutor = messagePushExecutor;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+    }
+    
+    public void subscribe(String caseId, WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session containerSession = nativeSession.getNativeSession(Session.class);
+            if (containerSession != null) {
+                containerSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeLimitMillis);
+            }
+        }
+        subscribersByCase.computeIfAbsent(caseId, id -> ConcurrentHashMap.newKeySet())
+                .add(new Subscriber(session, new ArrayBlockingQueue<>(queueCapacity)));
+    }
+    
+    public void unsubscribe(String caseId, WebSocketSession session) {
+        subscribersByCase.computeIfPresent(caseId, (id, subscribers) -> {
+            subscribers.removeIf(subscriber -> subscriber.session() == session);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+    
+    // Only committed messages are pushed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        MessageDTO message = event.message();
+        if (message.getCaseId() == null) {
+            return;
+        }
+        Set<Subscriber> subscribers = subscribersByCase.get(message.getCaseId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        
+        TextMessage frame;
+        try {
+            frame = new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize message {} for push", message.getId(), e);
+            return;
+        }
+        
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue().offer(frame)) {
+                scheduleDrain(message.getCaseId(), subscriber);
+            } else {
+                drop(message.getCaseId(), subscriber, SLOW_CONSUMER);
+            }
+        }
+    }
+    
+    private void scheduleDrain(String caseId, Subscriber subscriber) {
+        if (!subscriber.draining().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            messagePushExecutor.execute(() -> drain(caseId, subscriber));
+        } catch (TaskRejectedException e) {
+            subscriber.draining().set(false);
+            // No send is in flight for this subscriber, so closing it here does not wait on its socket
+            logger.warn("Dropping subscriber {} on case {}: push backlog full", subscriber.session().getId(), caseId);
+            unsubscribe(caseId, subscriber.session());
+            subscriber.queue().clear();
+            closeQuietly(subscriber.session(), OVERLOADED);
+        }
+    }
+    
+    private void drain(String caseId, Subscriber subscriber) {
+        try {
+            TextMessage frame;
+            while (subscriber.closeStatus().get() == null && (frame = subscriber.queue().poll()) != null) {
+                subscriber.session().sendMessage(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping subscriber {} after failed send", subscriber.session().getId(), e);
+            unsubscribe(caseId, subscriber.session());
+            subscriber.queue().clear();
+            subscriber.closeStatus().compareAndSet(null, CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            subscriber.draining().set(false);
+        }
+        CloseStatus closeStatus = subscriber.closeStatus().get();
+        if (closeStatus != null) {
+            closeQuietly(subscriber.session(), closeStatus);
+        } else if (!subscriber.queue().isEmpty()) {
+            // A frame offered after the last poll but before the flag was cleared would otherwise wait for the next message
+            scheduleDrain(caseId, subscriber);
+        }
+    }
+    
+    // Stops pushing to the subscriber at once; the session is closed on a push thread once the send in flight returns
+    private void drop(String caseId, Subscriber subscriber, CloseStatus status) {
+        logger.info("Dropping slow subscriber {} on case {}", subscriber.session().getId(), caseId);
+        unsubscribe(caseId, subscriber.session());
+        subscriber.queue().clear();
+        subscriber.closeStatus().compareAndSet(null, status);
+        scheduleDrain(caseId, subscriber);
+    }
+    
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Error closing WebSocket session {}", session.getId(), e);
+        }
+    }
+    
+    private record Subscriber(WebSocketSession session, BlockingQueue<TextMessage> queue, AtomicBoolean draining,
+                              AtomicReference<CloseStatus> closeStatus) {
+        Subscriber(WebSocketSession session, BlockingQueue<TextMessage> queue) {
+            this(session, queue, new AtomicBoolean(), new AtomicReference<>());
+        }
+    }
+}
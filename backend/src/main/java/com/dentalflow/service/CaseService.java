@@ -1,20 +1,30 @@
 
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
 import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.CursorPageDTO;
+import com.dentalflow.event.CaseDeletedEvent;
+import com.dentalflow.event.CaseStatusChangedEvent;
 import com.dentalflow.model.Case;
-import com.dentalflow.model.Dentist;
+import com.dentalflow.model.CaseStatusTransition;
 import com.dentalflow.model.Patient;
 import com.dentalflow.repository.CaseRepository;
-import com.dentalflow.repository.DentistRepository;
-import com.dentalflow.repository.PatientRepository;
+import com.dentalflow.repository.CaseStatusTransitionRepository;
+import com.dentalflow.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,21 +32,34 @@ import java.util.stream.Collectors;
 public class CaseService {
     
     private final CaseRepository caseRepository;
-    private final PatientRepository patientRepository;
-    private final DentistRepository dentistRepository;
+    private final EntityReferences entityReferences;
+    private final ReferenceDataCache referenceDataCache;
+    private final DocumentNumberAllocator numberAllocator;
+    private final CaseStatusTransitionRepository transitionRepository;
+    private final PaginationConfig paginationConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BillOfMaterialsService billOfMaterialsService;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
-    public List<CaseDTO> getAllCases(String status) {
+    // The due-date view shares the appointment calendar's span, so one request never reads more than a calendar page
+    @Value("${schedule.calendar-max-days:62}")
+    private int calendarMaxDays;
+    
+    public CursorPageDTO<CaseDTO> getAllCases(String status, String cursor, Integer limit) {
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        String statusFilter = (status != null && !status.isEmpty()) ? status : null;
+        
         List<Case> cases;
-        if (status != null && !status.isEmpty()) {
-            cases = caseRepository.findByStatus(status);
+        if (cursor == null || cursor.isEmpty()) {
+            cases = caseRepository.findFirstPage(statusFilter, window);
         } else {
-            cases = caseRepository.findAll();
+            PageCursor after = PageCursor.decode(cursor);
+            cases = caseRepository.findPageAfter(statusFilter, after.dateTimeKey(), after.id(), window);
         }
-        return cases.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return CursorPageDTO.of(cases, pageSize, this::convertToDTO,
+                c -> PageCursor.encode(c.getCreatedAt(), c.getId()));
     }
     
     public List<CaseDTO> getCasesByDentistId(Long dentistId, String status) {
@@ -51,49 +74,112 @@ public class CaseService {
                 .collect(Collectors.toList());
     }
     
+    public List<CaseDTO> getCasesDueBetween(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate) || startDate.plusDays(calendarMaxDays).isBefore(endDate)) {
+            throw new IllegalArgumentException("Date range must be ordered and span at most " + calendarMaxDays + " days");
+        }
+        return caseRepository.findDueBetween(startDate, endDate).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     public CaseDTO getCaseById(Long id) {
         return caseRepository.findById(id)
                 .map(this::convertToDTO)
                 .orElseThrow(() -> new EntityNotFoundException("Case not found with id: " + id));
     }
     
+    @Transactional
     public CaseDTO createCase(CaseDTO caseDTO) {
         Case caseEntity = convertToEntity(caseDTO);
+        if (caseEntity.getCaseNumber() == null) {
+            caseEntity.setCaseNumber(numberAllocator.next(DocumentNumberAllocator.CASE));
+        }
         Case savedCase = caseRepository.save(caseEntity);
+        recordTransition(savedCase, null);
         return convertToDTO(savedCase);
     }
     
+    @Transactional
     public CaseDTO updateCase(Long id, CaseDTO caseDTO) {
-        Case existingCase = caseRepository.findById(id)
+        Case existingCase = caseRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Case not found with id: " + id));
+        String previousStatus = existingCase.getStatus();
         
         Case caseEntity = convertToEntity(caseDTO);
         caseEntity.setId(id);
         caseEntity.setCaseNumber(existingCase.getCaseNumber());
         caseEntity.setCreatedAt(existingCase.getCreatedAt());
+        caseEntity.setMaterialsConsumed(existingCase.isMaterialsConsumed());
+        // Edits that leave the type out keep it, so completing the case still consumes its bill of materials
+        if (caseEntity.getCaseType() == null) {
+            caseEntity.setCaseType(existingCase.getCaseType());
+        }
         
         Case updatedCase = caseRepository.save(caseEntity);
+        if (!Objects.equals(previousStatus, updatedCase.getStatus())) {
+            recordTransition(updatedCase, previousStatus);
+        }
+        consumeMaterialsOnCompletion(updatedCase, previousStatus);
         return convertToDTO(updatedCase);
     }
     
+    @Transactional
     public CaseDTO updateStatus(Long id, String status) {
-        Case existingCase = caseRepository.findById(id)
+        Case existingCase = caseRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Case not found with id: " + id));
+        String previousStatus = existingCase.getStatus();
         existingCase.setStatus(status);
         Case updatedCase = caseRepository.save(existingCase);
+        if (!Objects.equals(previousStatus, status)) {
+            recordTransition(updatedCase, previousStatus);
+        }
+        consumeMaterialsOnCompletion(updatedCase, previousStatus);
         return convertToDTO(updatedCase);
     }
     
+    // Completing a case uses up its bill of materials once, however often it is reopened and completed again;
+    // a shortage rolls the status change back with a 409
+    private void consumeMaterialsOnCompletion(Case caseEntity, String previousStatus) {
+        if (CaseCycleTimeAggregator.COMPLETED.equalsIgnoreCase(caseEntity.getStatus())
+                && !CaseCycleTimeAggregator.COMPLETED.equalsIgnoreCase(previousStatus)
+                && !caseEntity.isMaterialsConsumed()
+                && billOfMaterialsService.consumeFor(caseEntity)) {
+            caseEntity.setMaterialsConsumed(true);
+        }
+    }
+    
+    // Appends to the status log; the cycle-time aggregator picks the entry up once the transaction commits
+    private void recordTransition(Case caseEntity, String fromStatus) {
+        CaseStatusTransition transition = new CaseStatusTransition();
+        transition.setCaseId(caseEntity.getId());
+        transition.setDentistId(caseEntity.getDentist() != null ? caseEntity.getDentist().getId() : null);
+        transition.setFromStatus(fromStatus);
+        transition.setToStatus(caseEntity.getStatus());
+        transition.setChangedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new CaseStatusChangedEvent(transitionRepository.save(transition)));
+    }
+    
+    @Transactional
     public void deleteCase(Long id) {
         if (!caseRepository.existsById(id)) {
             throw new EntityNotFoundException("Case not found with id: " + id);
         }
         caseRepository.deleteById(id);
+        eventPublisher.publishEvent(new CaseDeletedEvent(id));
     }
     
-    private CaseDTO convertToDTO(Case caseEntity) {
+    CaseDTO convertToDTO(Case caseEntity) {
         CaseDTO dto = new CaseDTO();
-        BeanUtils.copyProperties(caseEntity, dto);
+        
+        dto.setId(caseEntity.getId());
+        dto.setCaseNumber(caseEntity.getCaseNumber());
+        dto.setTitle(caseEntity.getTitle());
+        dto.setDescription(caseEntity.getDescription());
+        dto.setStatus(caseEntity.getStatus());
+        dto.setPriority(caseEntity.getPriority());
+        dto.setCaseType(caseEntity.getCaseType());
+        dto.setDueDate(caseEntity.getDueDate());
         
         if (caseEntity.getPatient() != null) {
             dto.setPatientId(caseEntity.getPatient().getId());
@@ -118,18 +204,20 @@ public class CaseService {
     
     private Case convertToEntity(CaseDTO dto) {
         Case entity = new Case();
-        BeanUtils.copyProperties(dto, entity);
         
-        if (dto.getPatientId() != null) {
-            Patient patient = patientRepository.findById(dto.getPatientId())
-                    .orElseThrow(() -> new EntityNotFoundException("Patient not found with id: " + dto.getPatientId()));
-            entity.setPatient(patient);
-        }
+        entity.setId(dto.getId());
+        entity.setCaseNumber(dto.getCaseNumber());
+        entity.setTitle(dto.getTitle());
+        entity.setDescription(dto.getDescription());
+        entity.setStatus(dto.getStatus());
+        entity.setPriority(dto.getPriority());
+        entity.setCaseType(dto.getCaseType());
+        entity.setDueDate(dto.getDueDate());
+        
+        entity.setPatient(entityReferences.load(Patient.class, dto.getPatientId()));
         
         if (dto.getDentistId() != null) {
-            Dentist dentist = dentistRepository.findById(dto.getDentistId())
-                    .orElseThrow(() -> new EntityNotFoundException("Dentist not found with id: " + dto.getDentistId()));
-            entity.setDentist(dentist);
+            entity.setDentist(referenceDataCache.getDentist(dto.getDentistId()));
         }
         
         return entity;
@@ -6,7 +6,6 @@ import com.dentalflow.model.Dentist;
 import com.dentalflow.repository.DentistRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,6 +16,7 @@ import java.util.stream.Collectors;
 public class DentistService {
     
     private final DentistRepository dentistRepository;
+    private final ReferenceDataCache referenceDataCache;
     
     public List<DentistDTO> getAllDentists() {
         return dentistRepository.findAll().stream()
@@ -33,6 +33,7 @@ public class DentistService {
     public DentistDTO createDentist(DentistDTO dentistDTO) {
         Dentist dentist = convertToEntity(dentistDTO);
         Dentist savedDentist = dentistRepository.save(dentist);
+        referenceDataCache.invalidateDentist(savedDentist.getId());
         return convertToDTO(savedDentist);
     }
     
@@ -45,6 +46,7 @@ public class DentistService {
         dentist.setCreatedAt(existingDentist.getCreatedAt());
         
         Dentist updatedDentist = dentistRepository.save(dentist);
+        referenceDataCache.invalidateDentist(id);
         return convertToDTO(updatedDentist);
     }
     
@@ -53,17 +55,28 @@ public class DentistService {
             throw new EntityNotFoundException("Dentist not found with id: " + id);
         }
         dentistRepository.deleteById(id);
+        referenceDataCache.invalidateDentist(id);
     }
     
-    private DentistDTO convertToDTO(Dentist dentist) {
+    DentistDTO convertToDTO(Dentist dentist) {
         DentistDTO dto = new DentistDTO();
-        BeanUtils.copyProperties(dentist, dto);
+        dto.setId(dentist.getId());
+        dto.setFirstName(dentist.getFirstName());
+        dto.setLastName(dentist.getLastName());
+        dto.setEmail(dentist.getEmail());
+        dto.setPhone(dentist.getPhone());
+        dto.setAddress(dentist.getAddress());
         return dto;
     }
     
     private Dentist convertToEntity(DentistDTO dto) {
         Dentist entity = new Dentist();
-        BeanUtils.copyProperties(dto, entity);
+        entity.setId(dto.getId());
+        entity.setFirstName(dto.getFirstName());
+        entity.setLastName(dto.getLastName());
+        entity.setEmail(dto.getEmail());
+        entity.setPhone(dto.getPhone());
+        entity.setAddress(dto.getAddress());
         return entity;
     }
 }
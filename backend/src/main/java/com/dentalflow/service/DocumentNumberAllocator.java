@@ -0,0 +1,115 @@
+package com.dentalflow.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out per-year document numbers such as INV-2026-000123, and ids for tables that do not use
+ * auto_increment. Each node reserves a block of values from the document_counters table and serves it
+ * from memory, so values are unique across nodes but may skip those left unused in a block when a node stops.
+ */
+@Service
+public class DocumentNumberAllocator {
+    
+    public static final String INVOICE = "INV";
+    public static final String CASE = "CASE";
+    public static final String INVOICE_ITEM_IDS = "invoice_items";
+    
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    
+    // Reservations commit on their own, on the numberingDataSource pool (see DataSourceConfig)
+    public DocumentNumberAllocator(@Qualifier("numberingDataSource") DataSource counterDataSource,
+                                   @Value("${numbering.block-size:50}") int blockSize) {
+        this.blockSize = blockSize;
+        this.jdbcTemplate = new JdbcTemplate(counterDataSource);
+        this.reserveTransaction = new TransactionTemplate(new DataSourceTransactionManager(counterDataSource));
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    public String next(String prefix) {
+        String series = prefix + "-" + LocalDate.now().getYear();
+        return String.format("%s-%06d", series, nextValue(series));
+    }
+    
+    public long nextId(String series) {
+        return nextValue(series);
+    }
+    
+    private long nextValue(String series) {
+        while (true) {
+            Block block = blocks.get(series);
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    return value;
+                }
+            }
+            refill(series, block);
+        }
+    }
+    
+    private void refill(String series, Block exhausted) {
+        // Only one thread goes to the database; the others retry against the new block
+        synchronized (this) {
+            if (blocks.get(series) == exhausted) {
+                blocks.put(series, reserve(series));
+            }
+        }
+    }
+    
+    private Block reserve(String series) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return reserveTransaction.execute(status -> {
+                    List<Long> current = jdbcTemplate.queryForList(
+                            "SELECT next_value FROM document_counters WHERE series = ? FOR UPDATE", Long.class, series);
+                    long start;
+                    if (current.isEmpty()) {
+                        start = 1;
+                        jdbcTemplate.update("INSERT INTO document_counters (series, next_value) VALUES (?, ?)",
+                                series, start + blockSize);
+                    } else {
+                        start = current.get(0);
+                        jdbcTemplate.update("UPDATE document_counters SET next_value = ? WHERE series = ?",
+                                start + blockSize, series);
+                    }
+                    return new Block(start, start + blockSize);
+                });
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Another node created the counter row for a new series at the same moment
+                if (attempt == MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.dentalflow.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Table;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds associations by reference instead of loading each one. A {@link Batch} hands out
+ * uninitialized references and then checks that all of them exist in a single query; rows the
+ * response reads anyway are loaded instead.
+ */
+@Service
+public class EntityReferences {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public Batch batch() {
+        return new Batch();
+    }
+    
+    /**
+     * Loads a row whose fields the caller will read, or returns null for a null id. Binding such a row
+     * by reference would cost the existence check and then the load, so it is fetched outright instead.
+     */
+    public <T> T load(Class<T> type, Long id) {
+        if (id == null) {
+            return null;
+        }
+        T entity = entityManager.find(type, id);
+        if (entity == null) {
+            throw new EntityNotFoundException(type.getSimpleName() + " not found with id: " + id);
+        }
+        return entity;
+    }
+    
+    public final class Batch {
+    
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<Long> ids = new ArrayList<>();
+    
+        private Batch() {
+        }
+    
+        /**
+         * Returns a reference that is not loaded until one of its fields is read, or null for a null id.
+         * The row is only known to exist once {@link #verify()} has run.
+         */
+        public <T> T reference(Class<T> type, Long id) {
+            if (id == null) {
+                return null;
+            }
+            types.add(type);
+            ids.add(id);
+            return entityManager.getReference(type, id);
+        }
+    
+        /**
+         * Counts every referenced row in one round trip and throws for the first one that is missing.
+         */
+        public void verify() {
+            if (ids.isEmpty()) {
+                return;
+            }
+            StringBuilder sql = new StringBuilder("SELECT ");
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("(SELECT COUNT(*) FROM ").append(types.get(i).getAnnotation(Table.class).name())
+                        .append(" WHERE id = ?").append(i + 1).append(")");
+            }
+            Query query = entityManager.createNativeQuery(sql.toString());
+            for (int i = 0; i < ids.size(); i++) {
+                query.setParameter(i + 1, ids.get(i));
+            }
+            Object result = query.getSingleResult();
+            Object[] counts = ids.size() == 1 ? new Object[] { result } : (Object[]) result;
+            for (int i = 0; i < ids.size(); i++) {
+                if (((Number) counts[i]).longValue() == 0) {
+                    throw new EntityNotFoundException(types.get(i).getSimpleName() + " not found with id: " + ids.get(i));
+                }
+            }
+        }
+    }
+}
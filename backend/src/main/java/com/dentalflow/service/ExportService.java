@@ -0,0 +1,294 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.AppointmentDTO;
+import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.dto.PatientDTO;
+import com.dentalflow.model.Appointment;
+import com.dentalflow.model.Case;
+import com.dentalflow.model.Invoice;
+import com.dentalflow.model.InvoiceItem;
+import com.dentalflow.repository.AppointmentRepository;
+import com.dentalflow.repository.CaseRepository;
+import com.dentalflow.repository.InvoiceRepository;
+import com.dentalflow.repository.PatientRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables to a response stream row by row. Rows come from streaming repository
+ * queries and each exported record is detached once written, so memory stays flat
+ * regardless of table size.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    
+    private static final TypeReference<LinkedHashMap<String, Object>> ROW_TYPE = new TypeReference<>() {};
+    
+    private final InvoiceRepository invoiceRepository;
+    private final CaseRepository caseRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final InvoiceService invoiceService;
+    private final CaseService caseService;
+    private final AppointmentService appointmentService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    public enum ExportType {
+        INVOICES, CASES, APPOINTMENTS, PATIENTS;
+        
+        public static ExportType parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export type: " + value);
+            }
+        }
+    }
+    
+    public enum ExportFormat {
+        NDJSON, CSV;
+        
+        public static ExportFormat parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export format: " + value);
+            }
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public void export(ExportType type, ExportFormat format, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rows = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        
+        try {
+            switch (type) {
+                case INVOICES -> exportInvoices(from, to, rows);
+                case CASES -> exportCases(from, to, rows);
+                case APPOINTMENTS -> exportAppointments(from, to, rows);
+                case PATIENTS -> exportPatients(from, to, rows);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+    
+    private void exportInvoices(LocalDate from, LocalDate to, RowWriter rows) {
+        rows.header(InvoiceDTO.class, InvoiceItemDTO.class);
+        
+        // Rows arrive ordered by invoice, so each invoice is complete when the next one starts
+        try (Stream<InvoiceRepository.ExportRow> exportRows = invoiceRepository.streamForExport(from, to)) {
+            Iterator<InvoiceRepository.ExportRow> iterator = exportRows.iterator();
+            InvoiceDTO current = null;
+            while (iterator.hasNext()) {
+                InvoiceRepository.ExportRow row = iterator.next();
+                Invoice invoice = row.invoice();
+                if (current == null || !current.getId().equals(invoice.getId())) {
+                    if (current != null) {
+                        rows.invoice(current);
+                        entityManager.clear();
+                    }
+                    current = invoiceService.convertHeaderToDTO(invoice);
+                    current.setItems(new ArrayList<>());
+                }
+                InvoiceItem item = row.item();
+                if (item != null) {
+                    current.getItems().add(invoiceService.convertItemToDTO(item));
+                    entityManager.detach(item);
+                }
+            }
+            if (current != null) {
+                rows.invoice(current);
+            }
+        }
+    }
+    
+    private void exportCases(LocalDate from, LocalDate to, RowWriter rows) {
+        rows.header(CaseDTO.class, null);
+        try (Stream<Case> cases = caseRepository.streamForExport(startOf(from), endOf(to))) {
+            cases.forEach(caseEntity -> {
+                rows.row(caseService.convertToDTO(caseEntity));
+                entityManager.clear();
+            });
+        }
+    }
+    
+    private void exportAppointments(LocalDate from, LocalDate to, RowWriter rows) {
+        rows.header(AppointmentDTO.class, null);
+        try (Stream<Appointment> appointments = appointmentRepository.streamForExport(from, to)) {
+            appointments.forEach(appointment -> {
+                rows.row(appointmentService.convertToDTO(appointment));
+                entityManager.clear();
+            });
+        }
+    }
+    
+    private void exportPatients(LocalDate from, LocalDate to, RowWriter rows) {
+        rows.header(PatientDTO.class, null);
+        // Projection rows are never managed, so there is nothing to detach
+        try (Stream<PatientDTO> patients = patientRepository.streamForExport(startOf(from), endOf(to))) {
+            patients.forEach(rows::row);
+        }
+    }
+    
+    private static LocalDateTime startOf(LocalDate from) {
+        return from != null ? from.atStartOfDay() : null;
+    }
+    
+    private static LocalDateTime endOf(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
+    
+    private abstract static class RowWriter {
+        protected final Writer writer;
+        
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+        
+        void header(Class<?> rowType, Class<?> itemType) {
+        }
+        
+        abstract void row(Object dto);
+        
+        void invoice(InvoiceDTO invoice) {
+            row(invoice);
+        }
+        
+        protected void write(String text) {
+            try {
+                writer.write(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    private class NdjsonRowWriter extends RowWriter {
+        
+        NdjsonRowWriter(Writer writer) {
+            super(writer);
+        }
+        
+        @Override
+        void row(Object dto) {
+            try {
+                write(objectMapper.writeValueAsString(dto));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            write("\n");
+        }
+    }
+    
+    /**
+     * Flat CSV; invoices are written one line per line item, with the invoice columns repeated.
+     * An invoice without items gets a single line with the item columns left empty.
+     */
+    private class CsvRowWriter extends RowWriter {
+        
+        private int itemColumnCount;
+        
+        CsvRowWriter(Writer writer) {
+            super(writer);
+        }
+        
+        @Override
+        void header(Class<?> rowType, Class<?> itemType) {
+            List<String> columns = new ArrayList<>(columnsOf(rowType));
+            if (itemType != null) {
+                columns.remove("items");
+                List<String> itemColumns = columnsOf(itemType);
+                itemColumnCount = itemColumns.size();
+                itemColumns.forEach(column -> columns.add("item" + capitalize(column)));
+            }
+            writeLine(columns);
+        }
+        
+        @Override
+        void row(Object dto) {
+            writeLine(objectMapper.convertValue(dto, ROW_TYPE).values());
+        }
+        
+        @Override
+        void invoice(InvoiceDTO invoice) {
+            Map<String, Object> header = objectMapper.convertValue(invoice, ROW_TYPE);
+            header.remove("items");
+            if (invoice.getItems().isEmpty()) {
+                List<Object> values = new ArrayList<>(header.values());
+                values.addAll(Collections.nCopies(itemColumnCount, null));
+                writeLine(values);
+            }
+            for (InvoiceItemDTO item : invoice.getItems()) {
+                List<Object> values = new ArrayList<>(header.values());
+                values.addAll(objectMapper.convertValue(item, ROW_TYPE).values());
+                writeLine(values);
+            }
+        }
+        
+        private List<String> columnsOf(Class<?> type) {
+            try {
+                return new ArrayList<>(objectMapper.convertValue(
+                        type.getDeclaredConstructor().newInstance(), ROW_TYPE).keySet());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot derive CSV columns for " + type.getSimpleName(), e);
+            }
+        }
+        
+        private void writeLine(Iterable<?> values) {
+            StringBuilder line = new StringBuilder();
+            for (Object value : values) {
+                if (line.length() > 0) {
+                    line.append(',');
+                }
+                line.append(escape(value));
+            }
+            line.append('\n');
+            write(line.toString());
+        }
+        
+        private String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+                return "\"" + text.replace("\"", "\"\"") + "\"";
+            }
+            return text;
+        }
+        
+        private String capitalize(String column) {
+            return Character.toUpperCase(column.charAt(0)) + column.substring(1);
+        }
+    }
+}
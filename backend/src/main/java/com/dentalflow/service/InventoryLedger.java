@@ -0,0 +1,123 @@
+package com.dentalflow.service;
+
+import com.dentalflow.model.InventoryCheckpoint;
+import com.dentalflow.model.InventoryMovement;
+import com.dentalflow.repository.InventoryCheckpointRepository;
+import com.dentalflow.repository.InventoryMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Append-only ledger of stock movements next to the quantity snapshot in inventory_items.
+ *
+ * Movements are recorded in the transaction that changes the snapshot, as one JDBC batch.
+ * A nightly compaction writes a checkpoint per item at each month start that has passed and
+ * deletes movements older than the retention window, which the checkpoints already account
+ * for. The quantity at any instant is then the latest checkpoint before it plus the movements
+ * since, which is at most a month of rows.
+ */
+@Service
+public class InventoryLedger {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+    
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private static final String INSERT_SQL = "INSERT INTO inventory_movements " +
+            "(item_id, movement_type, quantity_delta, case_id, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    
+    private final InventoryMovementRepository movementRepository;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int retainMonths;
+    
+    public InventoryLedger(InventoryMovementRepository movementRepository,
+                           InventoryCheckpointRepository checkpointRepository,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                           @Value("${inventory.ledger.retain-months:24}") int retainMonths) {
+        this.movementRepository = movementRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.retainMonths = retainMonths;
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, movements, batchSize, (ps, movement) -> {
+            ps.setLong(1, movement.getItemId());
+            ps.setString(2, movement.getMovementType());
+            ps.setInt(3, movement.getQuantityDelta());
+            if (movement.getCaseId() != null) {
+                ps.setLong(4, movement.getCaseId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setTimestamp(5, Timestamp.valueOf(movement.getOccurredAt()));
+        });
+    }
+    
+    @Transactional(readOnly = true)
+    public int getQuantityAt(Long itemId, LocalDateTime at) {
+        Optional<InventoryCheckpoint> checkpoint =
+                checkpointRepository.findFirstByIdItemIdAndIdAsOfLessThanEqualOrderByIdAsOfDesc(itemId, at);
+        LocalDateTime from = checkpoint.map(c -> c.getId().getAsOf()).orElse(BEGINNING);
+        if (checkpoint.isEmpty()) {
+            // Items that predate the ledger have a first checkpoint but no movements before it
+            checkpointRepository.findFirstByIdItemIdOrderByIdAsOfAsc(itemId).ifPresent(first -> {
+                if (!movementRepository.existsByItemIdAndOccurredAtLessThan(itemId, first.getId().getAsOf())) {
+                    throw new IllegalArgumentException("Stock history for item " + itemId + " starts at " + first.getId().getAsOf());
+                }
+            });
+        }
+        if (!from.equals(at) && at.isBefore(retentionCutoff())) {
+            throw new IllegalArgumentException("Movements before " + retentionCutoff() +
+                    " have been compacted; earlier quantities are only available at month starts");
+        }
+        return checkpoint.map(InventoryCheckpoint::getQuantity).orElse(0) + (int) movementRepository.sumDeltas(itemId, from, at);
+    }
+    
+    @Scheduled(cron = "${inventory.ledger.compaction-cron:0 30 2 * * *}")
+    @Transactional
+    public Map<String, Integer> compact() {
+        LocalDateTime currentMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime latest = checkpointRepository.findLatestAsOf();
+        if (latest == null) {
+            latest = movementRepository.findEarliestOccurredAt();
+        }
+        
+        int checkpoints = 0;
+        if (latest != null) {
+            LocalDateTime boundary = latest.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            for (; !boundary.isAfter(currentMonth); boundary = boundary.plusMonths(1)) {
+                checkpoints += checkpointRepository.insertCheckpointsAt(boundary);
+            }
+        }
+        int pruned = movementRepository.deleteOccurredBefore(retentionCutoff());
+        logger.info("Compacted inventory ledger: {} checkpoints written, {} movements pruned", checkpoints, pruned);
+        return Map.of("checkpoints", checkpoints, "pruned", pruned);
+    }
+    
+    private LocalDateTime retentionCutoff() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(retainMonths).atStartOfDay();
+    }
+}
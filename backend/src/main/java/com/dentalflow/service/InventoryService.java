@@ -1,21 +1,30 @@
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
+import com.dentalflow.dto.CursorPageDTO;
 import com.dentalflow.dto.InventoryItemDTO;
-import com.dentalflow.model.InventoryCategory;
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.event.InventoryChangedEvent;
+import com.dentalflow.exception.ConflictException;
 import com.dentalflow.model.InventoryItem;
-import com.dentalflow.model.Supplier;
-import com.dentalflow.repository.InventoryCategoryRepository;
+import com.dentalflow.model.InventoryMovement;
 import com.dentalflow.repository.InventoryItemRepository;
-import com.dentalflow.repository.SupplierRepository;
+import com.dentalflow.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,23 +32,31 @@ import java.util.stream.Collectors;
 public class InventoryService {
     
     private final InventoryItemRepository itemRepository;
-    private final InventoryCategoryRepository categoryRepository;
-    private final SupplierRepository supplierRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final PaginationConfig paginationConfig;
+    private final LowStockTracker lowStockTracker;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
-    public List<InventoryItemDTO> getAllItems() {
-        List<InventoryItem> items = itemRepository.findAll();
-        return items.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<InventoryItemDTO> getAllItems(String cursor, Integer limit) {
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        
+        List<InventoryItemDTO> items;
+        if (cursor == null || cursor.isEmpty()) {
+            items = itemRepository.findFirstPage(window);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            items = itemRepository.findPageAfter(after.key(), after.id(), window);
+        }
+        return CursorPageDTO.of(items, pageSize, Function.identity(),
+                i -> PageCursor.encode(i.getName(), i.getId()));
     }
     
     public List<InventoryItemDTO> getLowStockItems() {
-        List<InventoryItem> items = itemRepository.findLowStockItems();
-        return items.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return lowStockTracker.getLowStockItems();
     }
     
     public InventoryItemDTO getItemById(Long id) {
@@ -52,32 +69,103 @@ public class InventoryService {
     public InventoryItemDTO createItem(InventoryItemDTO itemDTO) {
         InventoryItem item = convertToEntity(itemDTO);
         InventoryItem savedItem = itemRepository.save(item);
+        if (savedItem.getQuantity() != 0) {
+            inventoryLedger.record(List.of(InventoryMovement.of(savedItem.getId(), InventoryMovement.ADJUST,
+                    savedItem.getQuantity(), null)));
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.of(savedItem.getId())));
         return convertToDTO(savedItem);
     }
     
     @Transactional
     public InventoryItemDTO updateItem(Long id, InventoryItemDTO itemDTO) {
-        InventoryItem existingItem = itemRepository.findById(id)
+        InventoryItem existingItem = itemRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+        int previousQuantity = existingItem.getQuantity();
         
         InventoryItem updatedItem = convertToEntity(itemDTO);
         updatedItem.setId(existingItem.getId());
         updatedItem.setCreatedAt(existingItem.getCreatedAt());
         
         InventoryItem savedItem = itemRepository.save(updatedItem);
+        if (savedItem.getQuantity() != previousQuantity) {
+            inventoryLedger.record(List.of(InventoryMovement.of(id, InventoryMovement.ADJUST,
+                    savedItem.getQuantity() - previousQuantity, null)));
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.of(id)));
         return convertToDTO(savedItem);
     }
     
-    public void deleteItem(Long id) {
+    /**
+     * Takes the quantities out of stock atomically: either every line is applied or, if any item
+     * is short, none is and a ConflictException is raised.
+     */
+    @Transactional
+    public List<InventoryItemDTO> consume(List<StockChangeDTO.LineDTO> lines) {
+        return applyStockChange(lines, InventoryMovement.CONSUME, -1);
+    }
+    
+    @Transactional
+    public List<InventoryItemDTO> receive(List<StockChangeDTO.LineDTO> lines) {
+        return applyStockChange(lines, InventoryMovement.RECEIVE, 1);
+    }
+    
+    public int getQuantityAt(Long id, LocalDateTime at) {
         if (!itemRepository.existsById(id)) {
             throw new EntityNotFoundException("Inventory item not found with id: " + id);
         }
-        itemRepository.deleteById(id);
+        return inventoryLedger.getQuantityAt(id, at);
     }
     
-    private InventoryItemDTO convertToDTO(InventoryItem item) {
+    private List<InventoryItemDTO> applyStockChange(List<StockChangeDTO.LineDTO> lines, String movementType, int sign) {
+        // Lines for the same item are combined so each row is changed once
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (StockChangeDTO.LineDTO line : lines) {
+            if (line.getItemId() == null) {
+                throw new IllegalArgumentException("Item id is required");
+            }
+            deltas.merge(line.getItemId(), sign * line.getQuantity(), Integer::sum);
+        }
+        
+        int updated = itemRepository.applyQuantityDeltas(deltas);
+        if (updated < deltas.size()) {
+            // Thrown inside the transaction, so any rows already changed are rolled back
+            List<Long> missing = new ArrayList<>(deltas.keySet());
+            itemRepository.findAllById(deltas.keySet()).forEach(item -> missing.remove(item.getId()));
+            if (!missing.isEmpty()) {
+                throw new EntityNotFoundException("Inventory item not found with id: " + missing.get(0));
+            }
+            throw new ConflictException("Insufficient stock for the requested quantities");
+        }
+        // The ledger keeps one movement per line, so each keeps its case reference
+        inventoryLedger.record(lines.stream()
+                .map(line -> InventoryMovement.of(line.getItemId(), movementType, sign * line.getQuantity(), line.getCaseId()))
+                .collect(Collectors.toList()));
+        eventPublisher.publishEvent(new InventoryChangedEvent(deltas.keySet()));
+        return itemRepository.findViewsByIdIn(deltas.keySet());
+    }
+    
+    @Transactional
+    public void deleteItem(Long id) {
+        InventoryItem item = itemRepository.findForUpdateById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory item not found with id: " + id));
+        if (item.getQuantity() != 0) {
+            inventoryLedger.record(List.of(InventoryMovement.of(id, InventoryMovement.ADJUST, -item.getQuantity(), null)));
+        }
+        itemRepository.delete(item);
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.of(id)));
+    }
+    
+    InventoryItemDTO convertToDTO(InventoryItem item) {
         InventoryItemDTO dto = new InventoryItemDTO();
-        BeanUtils.copyProperties(item, dto);
+        
+        dto.setId(item.getId());
+        dto.setName(item.getName());
+        dto.setDescription(item.getDescription());
+        dto.setQuantity(item.getQuantity());
+        dto.setUnitPrice(item.getUnitPrice());
+        dto.setReorderLevel(item.getReorderLevel());
+        dto.setUnit(item.getUnit());
         
         if (item.getCategory() != null) {
             dto.setCategoryId(item.getCategory().getId());
@@ -106,18 +194,21 @@ public class InventoryService {
     
     private InventoryItem convertToEntity(InventoryItemDTO dto) {
         InventoryItem entity = new InventoryItem();
-        BeanUtils.copyProperties(dto, entity);
+        
+        entity.setId(dto.getId());
+        entity.setName(dto.getName());
+        entity.setDescription(dto.getDescription());
+        entity.setQuantity(dto.getQuantity());
+        entity.setUnitPrice(dto.getUnitPrice());
+        entity.setReorderLevel(dto.getReorderLevel());
+        entity.setUnit(dto.getUnit());
         
         if (dto.getCategoryId() != null) {
-            InventoryCategory category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new EntityNotFoundException("Category not found with id: " + dto.getCategoryId()));
-            entity.setCategory(category);
+            entity.setCategory(referenceDataCache.getCategory(dto.getCategoryId()));
         }
         
         if (dto.getSupplierId() != null) {
-            Supplier supplier = supplierRepository.findById(dto.getSupplierId())
-                    .orElseThrow(() -> new EntityNotFoundException("Supplier not found with id: " + dto.getSupplierId()));
-            entity.setSupplier(supplier);
+            entity.setSupplier(referenceDataCache.getSupplier(dto.getSupplierId()));
         }
         
         if (dto.getLastOrdered() != null && !dto.getLastOrdered().isEmpty()) {
@@ -0,0 +1,106 @@
+package com.dentalflow.service;
+
+import com.dentalflow.event.InvoiceChangedEvent;
+import com.dentalflow.model.Invoice;
+import com.dentalflow.model.InvoiceRollupLock;
+import com.dentalflow.repository.InvoiceDailyRollupRepository;
+import com.dentalflow.repository.InvoiceRepository;
+import com.dentalflow.repository.InvoiceRollupLockRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Maintains invoice_daily_rollups. Invoice writes apply their change here inside their own transaction,
+ * so the rollup commits or rolls back together with the invoice. Each write first locks one stripe of
+ * invoice_rollup_lock and a rebuild locks all of them, so a rebuild waits for writes in flight and holds off
+ * new ones until it commits, while writers only wait on each other when they pick the same stripe.
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoiceRollupService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceRollupService.class);
+    
+    private final InvoiceDailyRollupRepository rollupRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceRollupLockRepository lockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * What one invoice adds to the rollup. Taken before an update, since saving merges onto the managed invoice.
+     */
+    public record Contribution(LocalDate issueDate, Long dentistId, String status, BigDecimal total) {
+        public static Contribution of(Invoice invoice) {
+            return new Contribution(invoice.getIssueDate(), invoice.getDentist().getId(),
+                    invoice.getStatus(), invoice.getTotal());
+        }
+    }
+    
+    /**
+     * Called by an invoice write before it reads or changes any invoice, and held until it commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockForInvoiceWrite() {
+        int stripe = ThreadLocalRandom.current().nextInt(InvoiceRollupLock.STRIPES) + 1;
+        lockRepository.lockStripe(stripe)
+                .orElseThrow(() -> new IllegalStateException("invoice_rollup_lock stripe " + stripe + " is missing"));
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Contribution contribution) {
+        rollupRepository.addContribution(contribution.issueDate(), contribution.dentistId(), contribution.status(),
+                1, contribution.total());
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Contribution contribution) {
+        rollupRepository.addContribution(contribution.issueDate(), contribution.dentistId(), contribution.status(),
+                -1, contribution.total().negate());
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replace(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        remove(before);
+        add(after);
+    }
+    
+    /**
+     * Recomputes every rollup row from the invoices table. Invoice writes wait while it runs.
+     */
+    @Transactional
+    public int rebuild() {
+        if (lockRepository.lockAllStripes().size() != InvoiceRollupLock.STRIPES) {
+            throw new IllegalStateException("invoice_rollup_lock is missing stripes");
+        }
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertFromInvoices();
+        logger.info("Rebuilt invoice rollups: {} rows", rows);
+        // Reports cached from the old rows would otherwise be served until they expire
+        eventPublisher.publishEvent(new InvoiceChangedEvent(null));
+        return rows;
+    }
+    
+    // Backfills databases that had invoices before the rollup table existed
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0 && invoiceRepository.count() > 0) {
+            rebuild();
+        }
+    }
+}
@@ -1,16 +1,18 @@
 
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
+import com.dentalflow.dto.CursorPageDTO;
 import com.dentalflow.dto.InvoiceDTO;
 import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.event.InvoiceChangedEvent;
 import com.dentalflow.model.*;
-import com.dentalflow.repository.CaseRepository;
-import com.dentalflow.repository.DentistRepository;
 import com.dentalflow.repository.InvoiceRepository;
-import com.dentalflow.repository.PatientRepository;
+import com.dentalflow.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,22 +26,29 @@ import java.util.stream.Collectors;
 public class InvoiceService {
     
     private final InvoiceRepository invoiceRepository;
-    private final PatientRepository patientRepository;
-    private final DentistRepository dentistRepository;
-    private final CaseRepository caseRepository;
+    private final EntityReferences entityReferences;
+    private final ReferenceDataCache referenceDataCache;
+    private final DocumentNumberAllocator numberAllocator;
+    private final InvoiceRollupService rollupService;
+    private final PaginationConfig paginationConfig;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
-    public List<InvoiceDTO> getAllInvoices(String status) {
+    public CursorPageDTO<InvoiceDTO> getAllInvoices(String status, String cursor, Integer limit) {
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        String statusFilter = (status != null && !status.isEmpty()) ? status : null;
+        
         List<Invoice> invoices;
-        if (status != null && !status.isEmpty()) {
-            invoices = invoiceRepository.findByStatus(status);
+        if (cursor == null || cursor.isEmpty()) {
+            invoices = invoiceRepository.findFirstPage(statusFilter, window);
         } else {
-            invoices = invoiceRepository.findAll();
+            PageCursor after = PageCursor.decode(cursor);
+            invoices = invoiceRepository.findPageAfter(statusFilter, after.dateKey(), after.id(), window);
         }
-        return invoices.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return CursorPageDTO.of(invoices, pageSize, this::convertToDTO,
+                i -> PageCursor.encode(i.getIssueDate(), i.getId()));
     }
     
     public InvoiceDTO getInvoiceById(Long id) {
@@ -50,48 +59,89 @@ public class InvoiceService {
     
     @Transactional
     public InvoiceDTO createInvoice(InvoiceDTO invoiceDTO) {
+        rollupService.lockForInvoiceWrite();
         Invoice invoice = convertToEntity(invoiceDTO);
+        if (invoice.getInvoiceNumber() == null) {
+            invoice.setInvoiceNumber(numberAllocator.next(DocumentNumberAllocator.INVOICE));
+        }
         calculateTotals(invoice, invoiceDTO.getItems());
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        rollupService.add(InvoiceRollupService.Contribution.of(savedInvoice));
+        eventPublisher.publishEvent(new InvoiceChangedEvent(savedInvoice.getId()));
         return convertToDTO(savedInvoice);
     }
     
     @Transactional
     public InvoiceDTO updateInvoice(Long id, InvoiceDTO invoiceDTO) {
-        Invoice existingInvoice = invoiceRepository.findById(id)
+        rollupService.lockForInvoiceWrite();
+        Invoice existingInvoice = invoiceRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Invoice not found with id: " + id));
+        InvoiceRollupService.Contribution before = InvoiceRollupService.Contribution.of(existingInvoice);
         
         Invoice invoice = convertToEntity(invoiceDTO);
         invoice.setId(existingInvoice.getId());
         invoice.setInvoiceNumber(existingInvoice.getInvoiceNumber());
         invoice.setCreatedAt(existingInvoice.getCreatedAt());
         
-        // Clear existing items and re-add them
+        // Clear existing items, then add the new ones to the merged invoice so they are persisted
+        // as new rows rather than merged, which would look up each assigned id first
         invoice.getItems().clear();
-        calculateTotals(invoice, invoiceDTO.getItems());
-        
         Invoice updatedInvoice = invoiceRepository.save(invoice);
+        calculateTotals(updatedInvoice, invoiceDTO.getItems());
+        
+        rollupService.replace(before, InvoiceRollupService.Contribution.of(updatedInvoice));
+        eventPublisher.publishEvent(new InvoiceChangedEvent(id));
         return convertToDTO(updatedInvoice);
     }
     
+    @Transactional
     public InvoiceDTO updateStatus(Long id, String status) {
-        Invoice existingInvoice = invoiceRepository.findById(id)
+        rollupService.lockForInvoiceWrite();
+        Invoice existingInvoice = invoiceRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Invoice not found with id: " + id));
+        InvoiceRollupService.Contribution before = InvoiceRollupService.Contribution.of(existingInvoice);
         existingInvoice.setStatus(status);
         Invoice updatedInvoice = invoiceRepository.save(existingInvoice);
+        rollupService.replace(before, InvoiceRollupService.Contribution.of(updatedInvoice));
+        eventPublisher.publishEvent(new InvoiceChangedEvent(id));
         return convertToDTO(updatedInvoice);
     }
     
+    @Transactional
     public void deleteInvoice(Long id) {
-        if (!invoiceRepository.existsById(id)) {
-            throw new EntityNotFoundException("Invoice not found with id: " + id);
-        }
-        invoiceRepository.deleteById(id);
+        rollupService.lockForInvoiceWrite();
+        Invoice invoice = invoiceRepository.findForUpdateById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Invoice not found with id: " + id));
+        rollupService.remove(InvoiceRollupService.Contribution.of(invoice));
+        invoiceRepository.delete(invoice);
+        eventPublisher.publishEvent(new InvoiceChangedEvent(id));
     }
     
-    private InvoiceDTO convertToDTO(Invoice invoice) {
+    InvoiceDTO convertToDTO(Invoice invoice) {
+        InvoiceDTO dto = convertHeaderToDTO(invoice);
+        
+        List<InvoiceItemDTO> itemDTOs = invoice.getItems().stream()
+                .map(this::convertItemToDTO)
+                .collect(Collectors.toList());
+        dto.setItems(itemDTOs);
+        
+        return dto;
+    }
+    
+    // Maps everything except the line items, which callers may already hold separately
+    InvoiceDTO convertHeaderToDTO(Invoice invoice) {
         InvoiceDTO dto = new InvoiceDTO();
-        BeanUtils.copyProperties(invoice, dto);
+        
+        dto.setId(invoice.getId());
+        dto.setInvoiceNumber(invoice.getInvoiceNumber());
+        dto.setStatus(invoice.getStatus());
+        dto.setAmount(invoice.getAmount());
+        dto.setTax(invoice.getTax());
+        dto.setTotal(invoice.getTotal());
+        dto.setNotes(invoice.getNotes());
+        dto.setIssueDate(invoice.getIssueDate());
+        dto.setDueDate(invoice.getDueDate());
+        dto.setPaidDate(invoice.getPaidDate());
         
         if (invoice.getPatient() != null) {
             dto.setPatientId(invoice.getPatient().getId());
@@ -115,40 +165,41 @@ public class InvoiceService {
             dto.setUpdatedAt(invoice.getUpdatedAt().format(DATE_FORMATTER));
         }
         
-        List<InvoiceItemDTO> itemDTOs = invoice.getItems().stream()
-                .map(this::convertItemToDTO)
-                .collect(Collectors.toList());
-        dto.setItems(itemDTOs);
-        
         return dto;
     }
     
-    private InvoiceItemDTO convertItemToDTO(InvoiceItem item) {
+    InvoiceItemDTO convertItemToDTO(InvoiceItem item) {
         InvoiceItemDTO dto = new InvoiceItemDTO();
-        BeanUtils.copyProperties(item, dto);
+        dto.setId(item.getId());
+        dto.setDescription(item.getDescription());
+        dto.setQuantity(item.getQuantity());
+        dto.setUnitPrice(item.getUnitPrice());
+        dto.setAmount(item.getAmount());
         return dto;
     }
     
     private Invoice convertToEntity(InvoiceDTO dto) {
         Invoice entity = new Invoice();
-        BeanUtils.copyProperties(dto, entity);
         
-        if (dto.getPatientId() != null) {
-            Patient patient = patientRepository.findById(dto.getPatientId())
-                    .orElseThrow(() -> new EntityNotFoundException("Patient not found with id: " + dto.getPatientId()));
-            entity.setPatient(patient);
-        }
+        entity.setId(dto.getId());
+        entity.setInvoiceNumber(dto.getInvoiceNumber());
+        entity.setStatus(dto.getStatus());
+        entity.setAmount(dto.getAmount());
+        entity.setTax(dto.getTax());
+        entity.setTotal(dto.getTotal());
+        entity.setNotes(dto.getNotes());
+        entity.setIssueDate(dto.getIssueDate());
+        entity.setDueDate(dto.getDueDate());
+        entity.setPaidDate(dto.getPaidDate());
+        
+        // The response reads the patient's name, but only the case's id
+        entity.setPatient(entityReferences.load(Patient.class, dto.getPatientId()));
+        EntityReferences.Batch references = entityReferences.batch();
+        entity.setCaseRef(references.reference(Case.class, dto.getCaseId()));
+        references.verify();
         
         if (dto.getDentistId() != null) {
-            Dentist dentist = dentistRepository.findById(dto.getDentistId())
-                    .orElseThrow(() -> new EntityNotFoundException("Dentist not found with id: " + dto.getDentistId()));
-            entity.setDentist(dentist);
-        }
-        
-        if (dto.getCaseId() != null) {
-            Case caseEntity = caseRepository.findById(dto.getCaseId())
-                    .orElseThrow(() -> new EntityNotFoundException("Case not found with id: " + dto.getCaseId()));
-            entity.setCaseRef(caseEntity);
+            entity.setDentist(referenceDataCache.getDentist(dto.getDentistId()));
         }
         
         return entity;
@@ -159,6 +210,7 @@ public class InvoiceService {
         
         for (InvoiceItemDTO itemDTO : itemDTOs) {
             InvoiceItem item = new InvoiceItem();
+            item.setId(numberAllocator.nextId(DocumentNumberAllocator.INVOICE_ITEM_IDS));
             item.setDescription(itemDTO.getDescription());
             item.setQuantity(itemDTO.getQuantity());
             item.setUnitPrice(itemDTO.getUnitPrice());
@@ -0,0 +1,206 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InventoryItemDTO;
+import com.dentalflow.dto.LowStockAlertDTO;
+import com.dentalflow.event.InventoryChangedEvent;
+import com.dentalflow.repository.InventoryItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Items at or below their reorder level, kept in memory. The set is loaded once at startup and then
+ * refreshed only for the items named in each InventoryChangedEvent, so reading it never scans the
+ * inventory table. Crossings of the threshold are sent to subscribers of the low-stock feed.
+ *
+ * Items are read from the database before the tracker's monitor is taken. Every read draws a ticket
+ * first, after the change it follows has committed, so a read with a later ticket has seen at least
+ * as much as one with an earlier ticket; a read is applied to an item only if no later one has been.
+ *
+ * Alerts are offered to a bounded queue per subscriber and sent by lowStockPushExecutor, so the
+ * committing thread never writes to a client. A subscriber whose queue is full, or that needs a
+ * drain while the executor's backlog is full, is dropped and reloads the list when it reconnects.
+ */
+@Service
+public class LowStockTracker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LowStockTracker.class);
+    
+    private static final Comparator<InventoryItemDTO> BY_NAME =
+            Comparator.comparing(InventoryItemDTO::getName).thenComparing(InventoryItemDTO::getId);
+    
+    private final InventoryItemRepository itemRepository;
+    private final ThreadPoolTaskExecutor lowStockPushExecutor;
+    private final int queueCapacity;
+    
+    private final AtomicLong tickets = new AtomicLong();
+    // Guarded by this, along with the ticket of the read last applied to each item and of the last rebuild
+    private final Map<Long, InventoryItemDTO> lowStock = new HashMap<>();
+    private final Map<Long, Long> appliedTickets = new HashMap<>();
+    private long rebuildTicket;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    
+    public LowStockTracker(InventoryItemRepository itemRepository,
+                           @Qualifier("lowStockPushExecutor") ThreadPoolTaskExecutor lowStockPushExecutor,
+                           @Value("${inventory.low-stock.push.subscriber-queue-capacity:64}") int queueCapacity) {
+        this.itemRepository = itemRepository;
+        this.lowStockPushExecutor = lowStockPushExecutor;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long ticket = tickets.incrementAndGet();
+        Map<Long, InventoryItemDTO> rebuilt = itemRepository.findLowStockItems().stream()
+                .collect(Collectors.toMap(InventoryItemDTO::getId, Function.identity()));
+        synchronized (this) {
+            if (ticket < rebuildTicket) {
+                return;
+            }
+            // Items refreshed by a read newer than this one keep what that read found
+            appliedTickets.forEach((id, applied) -> {
+                if (applied > ticket && lowStock.containsKey(id)) {
+                    rebuilt.put(id, lowStock.get(id));
+                } else if (applied > ticket) {
+                    rebuilt.remove(id);
+                }
+            });
+            appliedTickets.values().removeIf(applied -> applied < ticket);
+            lowStock.clear();
+            lowStock.putAll(rebuilt);
+            rebuildTicket = ticket;
+            logger.info("Loaded {} low-stock items", lowStock.size());
+        }
+    }
+    
+    public synchronized List<InventoryItemDTO> getLowStockItems() {
+        List<InventoryItemDTO> items = new ArrayList<>(lowStock.values());
+        items.sort(BY_NAME);
+        return items;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        long ticket = tickets.incrementAndGet();
+        Map<Long, InventoryItemDTO> current = itemRepository.findViewsByIdIn(event.itemIds()).stream()
+                .collect(Collectors.toMap(InventoryItemDTO::getId, Function.identity()));
+        List<LowStockAlertDTO> alerts = new ArrayList<>();
+        synchronized (this) {
+            for (Long id : event.itemIds()) {
+                if (ticket < rebuildTicket || ticket < appliedTickets.getOrDefault(id, 0L)) {
+                    // A later read has already been applied to this item
+                    continue;
+                }
+                appliedTickets.put(id, ticket);
+                InventoryItemDTO item = current.get(id);
+                boolean low = item != null && item.getQuantity() <= item.getReorderLevel();
+                boolean wasLow = low ? lowStock.put(id, item) != null : lowStock.remove(id) != null;
+                if (low != wasLow) {
+                    alerts.add(new LowStockAlertDTO(id, low, item));
+                }
+            }
+        }
+        alerts.forEach(this::publish);
+    }
+    
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter());
+    }
+    
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+    
+    private void publish(LowStockAlertDTO alert) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue().offer(alert)) {
+                scheduleDrain(subscriber);
+            } else {
+                drop(subscriber);
+            }
+        }
+    }
+    
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lowStockPushExecutor.execute(() -> drain(subscriber));
+        } catch (TaskRejectedException e) {
+            subscriber.draining().set(false);
+            // No send is in flight for this subscriber, so completing it here does not wait on its connection
+            logger.warn("Dropping low-stock subscriber: push backlog full");
+            subscribers.remove(subscriber);
+            subscriber.queue().clear();
+            subscriber.emitter().complete();
+        }
+    }
+    
+    private void drain(Subscriber subscriber) {
+        try {
+            LowStockAlertDTO alert;
+            while (!subscriber.dropped().get() && (alert = subscriber.queue().poll()) != null) {
+                subscriber.emitter().send(SseEmitter.event().name("low-stock").data(alert));
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping low-stock subscriber after failed send", e);
+            subscribers.remove(subscriber);
+            subscriber.queue().clear();
+            subscriber.dropped().set(true);
+        } finally {
+            subscriber.draining().set(false);
+        }
+        if (subscriber.dropped().get()) {
+            subscriber.emitter().complete();
+        } else if (!subscriber.queue().isEmpty()) {
+            // An alert offered after the last poll but before the flag was cleared would otherwise wait for the next one
+            scheduleDrain(subscriber);
+        }
+    }
+    
+    // Stops sending to the subscriber at once; its emitter is completed on a push thread once the send in flight returns
+    private void drop(Subscriber subscriber) {
+        logger.info("Dropping slow low-stock subscriber");
+        subscribers.remove(subscriber);
+        subscriber.queue().clear();
+        subscriber.dropped().set(true);
+        scheduleDrain(subscriber);
+    }
+    
+    private record Subscriber(SseEmitter emitter, BlockingQueue<LowStockAlertDTO> queue, AtomicBoolean draining,
+                              AtomicBoolean dropped) {
+        Subscriber(SseEmitter emitter, BlockingQueue<LowStockAlertDTO> queue) {
+            this(emitter, queue, new AtomicBoolean(), new AtomicBoolean());
+        }
+    }
+}
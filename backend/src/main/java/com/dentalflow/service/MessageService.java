@@ -1,21 +1,31 @@
 
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
 import com.dentalflow.dto.ContactDTO;
+import com.dentalflow.dto.CursorPageDTO;
 import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.dto.UnreadCountDTO;
+import com.dentalflow.event.MessageSentEvent;
 import com.dentalflow.model.Contact;
 import com.dentalflow.model.Message;
+import com.dentalflow.model.MessageUnreadCounter;
 import com.dentalflow.repository.ContactRepository;
 import com.dentalflow.repository.MessageRepository;
+import com.dentalflow.repository.MessageUnreadCounterRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,37 +34,118 @@ public class MessageService {
     
     private final MessageRepository messageRepository;
     private final ContactRepository contactRepository;
+    private final MessageUnreadCounterRepository unreadCounterRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaginationConfig paginationConfig;
+    private final MessageWriteBehindQueue writeBehindQueue;
+    private final TransactionTemplate transactionTemplate;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
-    public List<ContactDTO> getAllContacts() {
-        List<Contact> contacts = contactRepository.findAll();
-        return contacts.stream()
+    /**
+     * All contacts; when receiverId is given, each contact's unread badge is that receiver's
+     * unread count in the direct conversation with the contact.
+     */
+    public List<ContactDTO> getAllContacts(String receiverId) {
+        List<ContactDTO> contacts = contactRepository.findAll().stream()
                 .map(this::convertToContactDTO)
                 .collect(Collectors.toList());
+        if (receiverId != null) {
+            Map<String, Long> unreadBySender = unreadCounterRepository.findUnreadByReceiverId(receiverId).stream()
+                    .filter(c -> MessageUnreadCounter.DIRECT_THREAD.equals(c.getId().getThreadType()))
+                    .collect(Collectors.toMap(c -> c.getId().getThreadId(), MessageUnreadCounter::getUnread));
+            contacts.forEach(c -> c.setUnread(unreadBySender.getOrDefault(c.getId(), 0L).intValue()));
+        }
+        return contacts;
     }
     
-    public List<MessageDTO> getMessagesByCaseId(String caseId) {
-        List<Message> messages = messageRepository.findByCaseId(caseId);
-        return messages.stream()
-                .map(this::convertToMessageDTO)
+    public List<UnreadCountDTO> getUnreadCounts(String receiverId) {
+        return unreadCounterRepository.findUnreadByReceiverId(receiverId).stream()
+                .map(c -> new UnreadCountDTO(c.getId().getThreadType(), c.getId().getThreadId(), c.getUnread()))
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Marks the receiver's unread messages in one thread as read with a single UPDATE, up to
+     * upToId when given, and takes the changed rows off the thread's counter.
+     */
     @Transactional
+    public int markThreadRead(String receiverId, String caseId, String senderId, Long upToId) {
+        if ((caseId == null) == (senderId == null)) {
+            throw new IllegalArgumentException("Specify either caseId or senderId");
+        }
+        long upTo = upToId != null ? upToId : Long.MAX_VALUE;
+        int updated;
+        if (caseId != null) {
+            updated = messageRepository.markCaseThreadRead(receiverId, caseId, upTo);
+            if (updated > 0) {
+                unreadCounterRepository.decrement(receiverId, MessageUnreadCounter.CASE_THREAD, caseId, updated);
+            }
+        } else {
+            updated = messageRepository.markDirectThreadRead(receiverId, senderId, upTo);
+            if (updated > 0) {
+                unreadCounterRepository.decrement(receiverId, MessageUnreadCounter.DIRECT_THREAD, senderId, updated);
+            }
+        }
+        return updated;
+    }
+    
+    /**
+     * One chunk of a case thread, always in ascending id order. With afterId it holds the next
+     * messages after that id and the cursor is the id to continue from; otherwise it holds the
+     * newest messages (before beforeId, if given) and the cursor is the id to scroll back from.
+     */
+    public CursorPageDTO<MessageDTO> getMessagesByCaseId(String caseId, Long afterId, Long beforeId, Integer limit) {
+        if (afterId != null && beforeId != null) {
+            throw new IllegalArgumentException("Use either after or before, not both");
+        }
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        
+        if (afterId != null) {
+            return CursorPageDTO.of(messageRepository.findByCaseIdAfter(caseId, afterId, window), pageSize,
+                    this::convertToMessageDTO, m -> m.getId().toString());
+        }
+        
+        List<Message> newestFirst = beforeId != null
+                ? messageRepository.findByCaseIdBefore(caseId, beforeId, window)
+                : messageRepository.findLatestByCaseId(caseId, window);
+        CursorPageDTO<MessageDTO> page = CursorPageDTO.of(newestFirst, pageSize,
+                this::convertToMessageDTO, m -> m.getId().toString());
+        Collections.reverse(page.getItems());
+        return page;
+    }
+    
+    // Not @Transactional: a write-behind send must not take a connection, so only the direct path opens a transaction
     public MessageDTO sendMessage(MessageDTO messageDTO) {
         Message message = convertToMessageEntity(messageDTO);
         message.setTimestamp(LocalDateTime.now());
         message.setRead(false);
         
-        Message savedMessage = messageRepository.save(message);
-        return convertToMessageDTO(savedMessage);
+        if (writeBehindQueue.isEnabled()) {
+            // The id is assigned by the writer to its own copy; the DTO goes back without one
+            writeBehindQueue.enqueue(message, convertToMessageDTO(message));
+            return convertToMessageDTO(message);
+        }
+        
+        return transactionTemplate.execute(status -> {
+            Message savedMessage = messageRepository.save(message);
+            MessageUnreadCounter.Key thread = MessageUnreadCounter.Key.of(savedMessage);
+            unreadCounterRepository.add(thread.getReceiverId(), thread.getThreadType(), thread.getThreadId(), 1);
+            MessageDTO saved = convertToMessageDTO(savedMessage);
+            eventPublisher.publishEvent(new MessageSentEvent(saved));
+            return saved;
+        });
     }
     
-    private MessageDTO convertToMessageDTO(Message message) {
+    MessageDTO convertToMessageDTO(Message message) {
         MessageDTO dto = new MessageDTO();
-        BeanUtils.copyProperties(message, dto);
-        dto.setId(message.getId().toString());
+        dto.setId(message.getId() != null ? message.getId().toString() : null);
+        dto.setSenderId(message.getSenderId());
+        dto.setReceiverId(message.getReceiverId());
+        dto.setContent(message.getContent());
+        dto.setCaseId(message.getCaseId());
+        dto.setRead(message.isRead());
         
         if (message.getTimestamp() != null) {
             dto.setTimestamp(message.getTimestamp().format(DATE_FORMATTER));
@@ -65,19 +156,26 @@ public class MessageService {
     
     private Message convertToMessageEntity(MessageDTO dto) {
         Message entity = new Message();
-        BeanUtils.copyProperties(dto, entity);
-        
-        if (dto.getId() != null && !dto.getId().isEmpty()) {
-            entity.setId(Long.parseLong(dto.getId()));
-        }
-        
+        entity.setSenderId(dto.getSenderId());
+        entity.setReceiverId(dto.getReceiverId());
+        entity.setContent(dto.getContent());
+        entity.setCaseId(dto.getCaseId());
+        entity.setRead(dto.isRead());
+        // A sent message is always new: an id from the client would make save merge over an existing message
         return entity;
     }
     
     private ContactDTO convertToContactDTO(Contact contact) {
         ContactDTO dto = new ContactDTO();
-        BeanUtils.copyProperties(contact, dto);
         dto.setId(contact.getId().toString());
+        dto.setName(contact.getName());
+        dto.setRole(contact.getRole());
+        dto.setAvatar(contact.getAvatar());
+        dto.setInitials(contact.getInitials());
+        dto.setOnline(contact.isOnline());
+        dto.setLastMessage(contact.getLastMessage());
+        dto.setTimestamp(contact.getTimestamp());
+        dto.setUnread(contact.getUnread());
         return dto;
     }
 }
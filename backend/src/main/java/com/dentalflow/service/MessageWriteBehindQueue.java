@@ -0,0 +1,238 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.event.MessageSentEvent;
+import com.dentalflow.exception.ServiceUnavailableException;
+import com.dentalflow.model.Message;
+import com.dentalflow.model.MessageUnreadCounter;
+import com.dentalflow.repository.MessageUnreadCounterRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind path for message sends (messages.write-behind.enabled).
+ *
+ * Senders are acknowledged once their message is in a bounded queue; when the queue stays full
+ * for longer than the offer timeout the send is refused with 503. A single writer thread takes
+ * up to batch-size messages at a time and stores them with one batched INSERT, the unread
+ * counter updates and a single commit. One writer consuming a FIFO queue keeps messages in send
+ * order, so ids and push order within a case follow the order messages were accepted.
+ * Senders have already been answered, so a batch that fails on a lost connection or a lock timeout is
+ * retried with backoff until the database is back; the full queue pushes back on senders meanwhile.
+ * A batch that fails on its data is written again one message at a time, so only the bad message is lost.
+ * On shutdown the writer finishes the queue before the data source is closed.
+ */
+@Service
+public class MessageWriteBehindQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindQueue.class);
+    
+    private static final String INSERT_SQL = "INSERT INTO messages " +
+            "(sender_id, receiver_id, content, case_id, is_read, timestamp, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransaction;
+    private final MessageUnreadCounterRepository unreadCounterRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long drainTimeoutMillis;
+    private final BlockingQueue<Pending> queue;
+    
+    private volatile boolean running;
+    private Thread writer;
+    
+    public MessageWriteBehindQueue(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MessageUnreadCounterRepository unreadCounterRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${messages.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${messages.write-behind.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${messages.write-behind.batch-size:100}") int batchSize,
+                                   @Value("${messages.write-behind.offer-timeout-ms:200}") long offerTimeoutMillis,
+                                   @Value("${messages.write-behind.drain-timeout-seconds:30}") long drainTimeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.unreadCounterRepository = unreadCounterRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.drainTimeoutMillis = TimeUnit.SECONDS.toMillis(drainTimeoutSeconds);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queues a message that has not been saved yet. The writer owns the DTO from here on: it sets
+     * the id once the batch is written and pushes it to case subscribers after commit.
+     */
+    public void enqueue(Message message, MessageDTO dto) {
+        if (!running && writer != null) {
+            throw new ServiceUnavailableException("Message writer is shutting down");
+        }
+        try {
+            if (!queue.offer(new Pending(message, dto), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("Message queue is full, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while queueing message");
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "message-writer");
+        // A writer still retrying against an unreachable database must not keep the JVM alive after stop()
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Message write-behind enabled, batch size {}", batchSize);
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(drainTimeoutMillis);
+        if (!queue.isEmpty()) {
+            logger.error("Shut down with {} queued messages not written", queue.size());
+        }
+    }
+    
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                // Keep draining; stop() ends the loop through the running flag
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void writeWithRetry(List<Pending> batch) throws InterruptedException {
+        for (long backoff = INITIAL_BACKOFF_MILLIS; ; backoff = Math.min(2 * backoff, MAX_BACKOFF_MILLIS)) {
+            try {
+                batchTransaction.executeWithoutResult(status -> write(batch));
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    writeOneByOne(batch, e);
+                    return;
+                }
+                logger.warn("Message batch write failed, retrying in {} ms", backoff, e);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+    
+    private void writeOneByOne(List<Pending> batch, RuntimeException cause) throws InterruptedException {
+        if (batch.size() == 1) {
+            Message message = batch.get(0).message();
+            logger.error("Dropping message from {} to {} that cannot be stored",
+                    message.getSenderId(), message.getReceiverId(), cause);
+            return;
+        }
+        logger.warn("Message batch write failed, writing its {} messages one at a time", batch.size(), cause);
+        for (Pending pending : batch) {
+            writeWithRetry(List.of(pending));
+        }
+    }
+    
+    // Failures that say nothing about the messages themselves: refused or lost connections, failover,
+    // lock and query timeouts, deadlocks
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+    
+    private void write(List<Pending> batch) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Message message = batch.get(i).message();
+                        Timestamp timestamp = Timestamp.valueOf(message.getTimestamp());
+                        ps.setString(1, message.getSenderId());
+                        ps.setString(2, message.getReceiverId());
+                        ps.setString(3, message.getContent());
+                        ps.setString(4, message.getCaseId());
+                        ps.setBoolean(5, message.isRead());
+                        ps.setTimestamp(6, timestamp);
+                        ps.setTimestamp(7, timestamp);
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keys);
+        
+        // One counter update per thread rather than per message
+        Map<MessageUnreadCounter.Key, Long> unread = new LinkedHashMap<>();
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            pending.dto().setId(((Number) keyList.get(i).values().iterator().next()).toString());
+            unread.merge(MessageUnreadCounter.Key.of(pending.message()), 1L, Long::sum);
+            eventPublisher.publishEvent(new MessageSentEvent(pending.dto()));
+        }
+        unread.forEach((key, count) ->
+                unreadCounterRepository.add(key.getReceiverId(), key.getThreadType(), key.getThreadId(), count));
+    }
+    
+    private record Pending(Message message, MessageDTO dto) {
+    }
+}
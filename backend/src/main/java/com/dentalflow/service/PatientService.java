@@ -1,36 +1,45 @@
 
 package com.dentalflow.service;
 
+import com.dentalflow.config.PaginationConfig;
+import com.dentalflow.dto.CursorPageDTO;
 import com.dentalflow.dto.PatientDTO;
-import com.dentalflow.model.Dentist;
 import com.dentalflow.model.Patient;
-import com.dentalflow.repository.DentistRepository;
 import com.dentalflow.repository.PatientRepository;
+import com.dentalflow.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class PatientService {
     
     private final PatientRepository patientRepository;
-    private final DentistRepository dentistRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final PaginationConfig paginationConfig;
     
-    public List<PatientDTO> getAllPatients() {
-        return patientRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<PatientDTO> getAllPatients(String cursor, Integer limit) {
+        int pageSize = paginationConfig.resolvePageSize(limit);
+        Pageable window = paginationConfig.window(pageSize);
+        
+        List<PatientDTO> patients;
+        if (cursor == null || cursor.isEmpty()) {
+            patients = patientRepository.findFirstPage(window);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            patients = patientRepository.findPageAfter(after.key(), after.id(), window);
+        }
+        return CursorPageDTO.of(patients, pageSize, Function.identity(),
+                p -> PageCursor.encode(p.getLastName(), p.getId()));
     }
     
     public List<PatientDTO> getPatientsByDentistId(Long dentistId) {
-        return patientRepository.findByDentistId(dentistId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return patientRepository.findViewsByDentistId(dentistId);
     }
     
     public PatientDTO getPatientById(Long id) {
@@ -64,9 +73,15 @@ public class PatientService {
         patientRepository.deleteById(id);
     }
     
-    private PatientDTO convertToDTO(Patient patient) {
+    PatientDTO convertToDTO(Patient patient) {
         PatientDTO dto = new PatientDTO();
-        BeanUtils.copyProperties(patient, dto);
+        
+        dto.setId(patient.getId());
+        dto.setFirstName(patient.getFirstName());
+        dto.setLastName(patient.getLastName());
+        dto.setEmail(patient.getEmail());
+        dto.setPhone(patient.getPhone());
+        dto.setAddress(patient.getAddress());
         
         if (patient.getDentist() != null) {
             dto.setDentistId(patient.getDentist().getId());
@@ -78,12 +93,16 @@ public class PatientService {
     
     private Patient convertToEntity(PatientDTO dto) {
         Patient entity = new Patient();
-        BeanUtils.copyProperties(dto, entity);
+        
+        entity.setId(dto.getId());
+        entity.setFirstName(dto.getFirstName());
+        entity.setLastName(dto.getLastName());
+        entity.setEmail(dto.getEmail());
+        entity.setPhone(dto.getPhone());
+        entity.setAddress(dto.getAddress());
         
         if (dto.getDentistId() != null) {
-            Dentist dentist = dentistRepository.findById(dto.getDentistId())
-                    .orElseThrow(() -> new EntityNotFoundException("Dentist not found with id: " + dto.getDentistId()));
-            entity.setDentist(dentist);
+            entity.setDentist(referenceDataCache.getDentist(dto.getDentistId()));
         }
         
         return entity;
@@ -0,0 +1,170 @@
+package com.dentalflow.service;
+
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.InventoryCategory;
+import com.dentalflow.model.Supplier;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.InventoryCategoryRepository;
+import com.dentalflow.repository.SupplierRepository;
+import com.dentalflow.util.ExpiringCache;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of the small, rarely written tables that other records point at: dentists,
+ * inventory categories and suppliers. Values are detached copies without their collections, so they
+ * can be shared between requests and bound as associations in any persistence context. The names of
+ * all dentists are cached as one list for searches across every schedule. Dentist writes invalidate
+ * their entry and that list; categories and suppliers are only edited outside the application, so the
+ * time-to-live bounds how long such an edit goes unseen.
+ */
+@Service
+public class ReferenceDataCache {
+    
+    private static final String ALL_DENTISTS = "all";
+    
+    private final DentistRepository dentistRepository;
+    private final ReadThrough<Dentist> dentists;
+    private final ExpiringCache<String, Map<Long, String>> dentistNames;
+    private final AtomicLong dentistNamesGeneration = new AtomicLong();
+    private final ReadThrough<InventoryCategory> categories;
+    private final ReadThrough<Supplier> suppliers;
+    
+    public ReferenceDataCache(DentistRepository dentistRepository,
+                              InventoryCategoryRepository categoryRepository,
+                              SupplierRepository supplierRepository,
+                              @Value("${reference-data.cache.max-size:1000}") int maxSize,
+                              @Value("${reference-data.cache.ttl-seconds:600}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.dentistRepository = dentistRepository;
+        this.dentistNames = new ExpiringCache<>(1, ttl);
+        this.dentists = new ReadThrough<>("Dentist", maxSize, ttl,
+                id -> dentistRepository.findById(id).orElse(null), ReferenceDataCache::copyOf);
+        this.categories = new ReadThrough<>("Category", maxSize, ttl,
+                id -> categoryRepository.findById(id).orElse(null), ReferenceDataCache::copyOf);
+        this.suppliers = new ReadThrough<>("Supplier", maxSize, ttl,
+                id -> supplierRepository.findById(id).orElse(null), ReferenceDataCache::copyOf);
+    }
+    
+    public Dentist getDentist(Long id) {
+        return dentists.get(id);
+    }
+    
+    /**
+     * Every dentist's "first last" name by id, in id order. The map is shared and unmodifiable.
+     */
+    public Map<Long, String> getDentistNames() {
+        Map<Long, String> cached = dentistNames.get(ALL_DENTISTS);
+        if (cached != null) {
+            return cached;
+        }
+        // As in ReadThrough.get: a list read while an invalidation ran is returned but not cached
+        long loadedAt = dentistNamesGeneration.get();
+        Map<Long, String> loaded = Collections.unmodifiableMap(dentistRepository.findAllNames().stream()
+                .collect(Collectors.toMap(DentistRepository.NameRow::id,
+                        row -> row.firstName() + " " + row.lastName(), (a, b) -> a, LinkedHashMap::new)));
+        if (dentistNamesGeneration.get() == loadedAt) {
+            dentistNames.put(ALL_DENTISTS, loaded);
+        }
+        return loaded;
+    }
+    
+    public InventoryCategory getCategory(Long id) {
+        return categories.get(id);
+    }
+    
+    public Supplier getSupplier(Long id) {
+        return suppliers.get(id);
+    }
+    
+    public void invalidateDentist(Long id) {
+        dentists.invalidate(id);
+        dentistNamesGeneration.incrementAndGet();
+        dentistNames.invalidate(ALL_DENTISTS);
+    }
+    
+    private static Dentist copyOf(Dentist dentist) {
+        Dentist copy = new Dentist();
+        copy.setId(dentist.getId());
+        copy.setFirstName(dentist.getFirstName());
+        copy.setLastName(dentist.getLastName());
+        copy.setEmail(dentist.getEmail());
+        copy.setPhone(dentist.getPhone());
+        copy.setAddress(dentist.getAddress());
+        copy.setCreatedAt(dentist.getCreatedAt());
+        copy.setUpdatedAt(dentist.getUpdatedAt());
+        return copy;
+    }
+    
+    private static InventoryCategory copyOf(InventoryCategory category) {
+        InventoryCategory copy = new InventoryCategory();
+        copy.setId(category.getId());
+        copy.setName(category.getName());
+        copy.setDescription(category.getDescription());
+        copy.setCreatedAt(category.getCreatedAt());
+        copy.setUpdatedAt(category.getUpdatedAt());
+        return copy;
+    }
+    
+    private static Supplier copyOf(Supplier supplier) {
+        Supplier copy = new Supplier();
+        copy.setId(supplier.getId());
+        copy.setName(supplier.getName());
+        copy.setContactPerson(supplier.getContactPerson());
+        copy.setEmail(supplier.getEmail());
+        copy.setPhone(supplier.getPhone());
+        copy.setAddress(supplier.getAddress());
+        copy.setCreatedAt(supplier.getCreatedAt());
+        copy.setUpdatedAt(supplier.getUpdatedAt());
+        return copy;
+    }
+    
+    private static final class ReadThrough<T> {
+    
+        private final String name;
+        private final ExpiringCache<Long, T> entries;
+        private final Function<Long, T> loader;
+        private final UnaryOperator<T> copier;
+        private final AtomicLong generation = new AtomicLong();
+    
+        ReadThrough(String name, int maxSize, Duration ttl, Function<Long, T> loader, UnaryOperator<T> copier) {
+            this.name = name;
+            this.entries = new ExpiringCache<>(maxSize, ttl);
+            this.loader = loader;
+            this.copier = copier;
+        }
+    
+        T get(Long id) {
+            T cached = entries.get(id);
+            if (cached != null) {
+                return cached;
+            }
+            // A row read while an invalidation ran may already be stale, so it is returned but not cached
+            long loadedAt = generation.get();
+            T loaded = loader.apply(id);
+            if (loaded == null) {
+                throw new EntityNotFoundException(name + " not found with id: " + id);
+            }
+            T copy = copier.apply(loaded);
+            if (generation.get() == loadedAt) {
+                entries.put(id, copy);
+            }
+            return copy;
+        }
+    
+        void invalidate(Long id) {
+            generation.incrementAndGet();
+            entries.invalidate(id);
+        }
+    }
+}
@@ -2,75 +2,172 @@
 package com.dentalflow.service;
 
 import com.dentalflow.dto.ReportDTO;
+import com.dentalflow.event.InvoiceChangedEvent;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.InvoiceDailyRollupRepository;
 import com.dentalflow.repository.InvoiceRepository;
-import com.dentalflow.repository.CaseRepository;
-import lombok.RequiredArgsConstructor;
+import com.dentalflow.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class ReportService {
     
     private final InvoiceRepository invoiceRepository;
-    private final CaseRepository caseRepository;
+    private final InvoiceDailyRollupRepository rollupRepository;
+    private final DentistRepository dentistRepository;
+    private final CaseCycleTimeAggregator cycleTimeAggregator;
+    private final ThreadPoolTaskExecutor reportExecutor;
+    
+    // Invoice-based reports, keyed by report kind and period; cleared whenever an invoice changes
+    private final ExpiringCache<String, ReportDTO> invoiceReports;
+    private final AtomicLong invoiceGeneration = new AtomicLong();
+    
+    public ReportService(InvoiceRepository invoiceRepository,
+                         InvoiceDailyRollupRepository rollupRepository,
+                         DentistRepository dentistRepository,
+                         CaseCycleTimeAggregator cycleTimeAggregator,
+                         @Qualifier("reportExecutor") ThreadPoolTaskExecutor reportExecutor,
+                         @Value("${reports.cache.max-size:64}") int cacheMaxSize,
+                         @Value("${reports.cache.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.invoiceRepository = invoiceRepository;
+        this.rollupRepository = rollupRepository;
+        this.dentistRepository = dentistRepository;
+        this.cycleTimeAggregator = cycleTimeAggregator;
+        this.reportExecutor = reportExecutor;
+        this.invoiceReports = new ExpiringCache<>(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds));
+    }
     
     public ReportDTO getFinancialReport(int months) {
-        ReportDTO report = new ReportDTO();
-        
-        // Get invoice summary
-        Long unpaidCount = invoiceRepository.getCountByStatus("unpaid");
-        BigDecimal unpaidTotal = invoiceRepository.getTotalAmountByStatus("unpaid");
-        if (unpaidTotal == null) unpaidTotal = BigDecimal.ZERO;
-        
-        Long overdueCount = (long) invoiceRepository.findOverdueInvoices().size();
-        BigDecimal overdueTotal = invoiceRepository.findOverdueInvoices().stream()
-                .map(invoice -> invoice.getTotal())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        Long paidCount = invoiceRepository.getCountByStatus("paid");
-        BigDecimal paidTotal = invoiceRepository.getTotalAmountByStatus("paid");
-        if (paidTotal == null) paidTotal = BigDecimal.ZERO;
-        
-        ReportDTO.InvoiceSummaryDTO summary = new ReportDTO.InvoiceSummaryDTO(
-                unpaidCount, unpaidTotal, overdueCount, overdueTotal, paidCount, paidTotal);
-        report.setInvoiceSummary(summary);
-        
-        // Get monthly revenue
-        LocalDate startDate = LocalDate.now().minusMonths(months);
-        report.setMonthlyRevenue(invoiceRepository.getMonthlyRevenue(startDate));
-        
-        // Get top dentists
-        report.setTopDentists(invoiceRepository.getTopDentistsByInvoiceCount());
-        
-        return report;
+        return cachedInvoiceReport("financial:" + months, () -> {
+            LocalDate startDate = LocalDate.now().minusMonths(months);
+            CompletableFuture<List<Map<String, Object>>> monthlyRevenue =
+                    CompletableFuture.supplyAsync(() -> rollupRepository.getMonthlyRevenue(startDate), reportExecutor);
+            CompletableFuture<List<Map<String, Object>>> topDentists =
+                    CompletableFuture.supplyAsync(rollupRepository::getTopDentistsByInvoiceCount, reportExecutor);
+            
+            ReportDTO report = new ReportDTO();
+            report.setInvoiceSummary(getInvoiceSummary());
+            report.setMonthlyRevenue(monthlyRevenue.join());
+            report.setTopDentists(topDentists.join());
+            return report;
+        });
     }
     
     public ReportDTO getCaseReport(int months) {
-        // Create a new report DTO
         ReportDTO report = new ReportDTO();
         
-        // Get monthly case statistics
-        LocalDate startDate = LocalDate.now().minusMonths(months);
-        
         // Get top dentists by case count
         report.setTopDentists(invoiceRepository.getTopDentistsByCaseCount());
         
+        // Cycle times for the current month and the months before it
+        YearMonth to = YearMonth.now();
+        YearMonth from = to.minusMonths(Math.max(months, 1) - 1L);
+        
+        List<ReportDTO.CycleTimeDTO> byMonth = new ArrayList<>();
+        cycleTimeAggregator.getTurnaroundByMonth(from, to).forEach((month, stats) -> {
+            ReportDTO.CycleTimeDTO dto = toCycleTimeDTO(stats);
+            dto.setPeriod(month.toString());
+            byMonth.add(dto);
+        });
+        report.setTurnaroundByMonth(byMonth);
+        
+        Map<Long, CaseCycleTimeAggregator.Stats> byDentist = cycleTimeAggregator.getTurnaroundByDentist(from, to);
+        Map<Long, Dentist> dentists = dentistRepository.findAllById(byDentist.keySet()).stream()
+                .collect(Collectors.toMap(Dentist::getId, Function.identity()));
+        List<ReportDTO.CycleTimeDTO> dentistRows = new ArrayList<>();
+        byDentist.forEach((dentistId, stats) -> {
+            ReportDTO.CycleTimeDTO dto = toCycleTimeDTO(stats);
+            dto.setDentistId(dentistId);
+            Dentist dentist = dentists.get(dentistId);
+            if (dentist != null) {
+                dto.setDentistName(dentist.getFirstName() + " " + dentist.getLastName());
+            }
+            dentistRows.add(dto);
+        });
+        dentistRows.sort(Comparator.comparing(ReportDTO.CycleTimeDTO::getP50Hours));
+        report.setTurnaroundByDentist(dentistRows);
+        
+        List<ReportDTO.CycleTimeDTO> statusRows = new ArrayList<>();
+        cycleTimeAggregator.getDwellByStatus(from, to).forEach((status, stats) -> {
+            ReportDTO.CycleTimeDTO dto = toCycleTimeDTO(stats);
+            dto.setStatus(status);
+            statusRows.add(dto);
+        });
+        statusRows.sort(Comparator.comparing(ReportDTO.CycleTimeDTO::getStatus));
+        report.setDwellByStatus(statusRows);
+        
         return report;
     }
     
     public ReportDTO getDentistReport(int months) {
-        // Create a new report DTO
-        ReportDTO report = new ReportDTO();
-        
-        // Get dentist performance metrics
-        LocalDate startDate = LocalDate.now().minusMonths(months);
-        
-        // Get top dentists by revenue
-        report.setTopDentists(invoiceRepository.getTopDentistsByRevenue(startDate));
-        
+        return cachedInvoiceReport("dentists:" + months, () -> {
+            ReportDTO report = new ReportDTO();
+            
+            // Get top dentists by revenue
+            LocalDate startDate = LocalDate.now().minusMonths(months);
+            report.setTopDentists(rollupRepository.getTopDentistsByRevenue(startDate));
+            
+            return report;
+        });
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        invoiceGeneration.incrementAndGet();
+        invoiceReports.clear();
+    }
+    
+    private ReportDTO.InvoiceSummaryDTO getInvoiceSummary() {
+        ReportDTO.InvoiceSummaryDTO summary = invoiceRepository.getInvoiceSummary();
+        if (summary.getUnpaidTotal() == null) summary.setUnpaidTotal(BigDecimal.ZERO);
+        if (summary.getOverdueTotal() == null) summary.setOverdueTotal(BigDecimal.ZERO);
+        if (summary.getPaidTotal() == null) summary.setPaidTotal(BigDecimal.ZERO);
+        return summary;
+    }
+    
+    private static ReportDTO.CycleTimeDTO toCycleTimeDTO(CaseCycleTimeAggregator.Stats stats) {
+        ReportDTO.CycleTimeDTO dto = new ReportDTO.CycleTimeDTO();
+        dto.setCount(stats.getCount());
+        dto.setAverageHours(hours(stats.getMean()));
+        dto.setP50Hours(hours(stats.quantile(0.5)));
+        dto.setP90Hours(hours(stats.quantile(0.9)));
+        return dto;
+    }
+    
+    private static double hours(double seconds) {
+        return Math.round(seconds / 36.0) / 100.0;
+    }
+    
+    private ReportDTO cachedInvoiceReport(String key, Supplier<ReportDTO> loader) {
+        ReportDTO cached = invoiceReports.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // A report built while an invoice changed may already be stale, so it is returned but not cached
+        long generation = invoiceGeneration.get();
+        ReportDTO report = loader.get();
+        if (invoiceGeneration.get() == generation) {
+            invoiceReports.put(key, report);
+        }
         return report;
     }
 }
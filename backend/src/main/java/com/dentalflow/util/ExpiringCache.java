@@ -0,0 +1,93 @@
+package com.dentalflow.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded LRU cache whose entries expire after a fixed time-to-live.
+ * Entries may also carry their own, earlier expiry (e.g. a token's exp claim).
+ */
+public class ExpiringCache<K, V> {
+    
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringCache.this.maxSize;
+            }
+        };
+    }
+    
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+    
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+    
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long expiresAt = Math.min(expiresAtMillis, System.currentTimeMillis() + ttlMillis);
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+    
+    /**
+     * Returns the cached value or loads and caches it. The loader runs outside the
+     * cache lock, so concurrent misses for the same key may load more than once.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+    
+    public synchronized void invalidateIf(Predicate<? super K> predicate) {
+        Iterator<K> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (predicate.test(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+    
+    public synchronized void clear() {
+        entries.clear();
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.dentalflow.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming quantile estimate for non-negative values. Values are counted in logarithmic buckets,
+ * so any quantile is returned within the configured relative error, memory grows only with the
+ * value range, and two sketches with the same accuracy merge by adding their bucket counts.
+ * Not thread-safe.
+ */
+public class QuantileSketch {
+    
+    private static final double MIN_INDEXABLE = 1e-9;
+    
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+    
+    public QuantileSketch(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+    
+    public void add(double value) {
+        if (value < MIN_INDEXABLE) {
+            zeroCount++;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(value) / logGamma), 1L, Long::sum);
+        }
+        count++;
+    }
+    
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        other.buckets.forEach((index, n) -> buckets.merge(index, n, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Estimated value at quantile q (0..1), or NaN when the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (rank < seen) {
+                return 2 * Math.pow(gamma, bucket.getKey()) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, buckets.lastKey()) / (gamma + 1);
+    }
+}
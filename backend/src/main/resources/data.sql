@@ -1,5 +1,5 @@
 
--- This script will run automatically if spring.jpa.hibernate.ddl-auto=create or create-drop
+-- Sample data for a freshly migrated database; load it with spring.sql.init.mode=always
 
 -- Insert dentists
 INSERT INTO dentists (first_name, last_name, email, phone, address, created_at, updated_at) 
@@ -37,14 +37,17 @@ VALUES
 ('INV-2025-038', 'paid', 5, 1, 5, 850.00, 85.00, 935.00, 'Thank you for your payment', '2025-03-20', '2025-04-05', '2025-04-02', '2025-03-20 10:00:00', CURRENT_TIMESTAMP);
 
 -- Insert invoice items
-INSERT INTO invoice_items (invoice_id, description, quantity, unit_price, amount, created_at, updated_at) 
+INSERT INTO invoice_items (id, invoice_id, description, quantity, unit_price, amount, created_at, updated_at) 
 VALUES 
-(1, 'Porcelain Crown', 1, 950.00, 950.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(1, 'Digital Impression', 1, 200.00, 200.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(1, 'Temporary Crown', 1, 200.00, 200.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(2, 'Three-unit Bridge', 1, 1800.00, 1800.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(2, 'Digital Impression', 1, 300.00, 300.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(3, 'Full Upper Denture', 1, 950.00, 950.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(4, 'Custom Implant Abutment', 1, 850.00, 850.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(4, 'Implant Crown', 1, 900.00, 900.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-(5, 'Partial Lower Denture', 1, 850.00, 850.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+(1, 1, 'Porcelain Crown', 1, 950.00, 950.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(2, 1, 'Digital Impression', 1, 200.00, 200.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(3, 1, 'Temporary Crown', 1, 200.00, 200.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(4, 2, 'Three-unit Bridge', 1, 1800.00, 1800.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(5, 2, 'Digital Impression', 1, 300.00, 300.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(6, 3, 'Full Upper Denture', 1, 950.00, 950.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(7, 4, 'Custom Implant Abutment', 1, 850.00, 850.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(8, 4, 'Implant Crown', 1, 900.00, 900.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(9, 5, 'Partial Lower Denture', 1, 850.00, 850.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+
+-- Invoice item ids come from a document_counters block; move the counter past the rows above
+UPDATE document_counters SET next_value = 60 WHERE series = 'invoice_items';
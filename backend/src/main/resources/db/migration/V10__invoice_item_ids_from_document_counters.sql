@@ -0,0 +1,11 @@
+-- Invoice item ids are now reserved from document_counters on the numbering pool. The table-backed
+-- sequence took a second connection from the main pool while the caller's transaction held one.
+-- Start past existing items and past any block a running node may still hold from the old sequence.
+insert into document_counters (series, next_value)
+select 'invoice_items', greatest(
+        (select coalesce(max(next_val), 1) from invoice_item_seq) + 50,
+        (select coalesce(max(id), 0) + 1 from invoice_items))
+from dual
+where not exists (select * from document_counters where series = 'invoice_items');
+
+drop table invoice_item_seq;
@@ -0,0 +1,4 @@
+-- InvoiceRepository.getInvoiceSummary: reads every paid and unpaid invoice, so it is answered from the index
+-- alone once total is in it. Replaces idx_invoices_status_due, which is a prefix of this one.
+create index idx_invoices_status_due_total on invoices (status, due_date, total);
+drop index idx_invoices_status_due on invoices;
@@ -0,0 +1,2 @@
+-- CaseRepository.findDueBetween: the calendar and deadline views read a few weeks of due dates
+create index idx_cases_due_date on cases (due_date, id);
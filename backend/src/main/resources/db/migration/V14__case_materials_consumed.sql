@@ -0,0 +1,7 @@
+-- Set once completion has deducted a case's bill of materials, so completing it again after a reopen deducts nothing
+alter table cases add column materials_consumed bit not null default 0;
+
+-- Cases already deducted in the ledger, and completed cases whose movements may have been compacted away
+update cases set materials_consumed = 1
+where lower(status) = 'completed'
+   or id in (select case_id from inventory_movements where movement_type = 'consume' and case_id is not null);
@@ -0,0 +1,236 @@
+-- Schema as Hibernate's ddl-auto=update used to create it. Databases that already have it
+-- are baselined at this version (spring.flyway.baseline-on-migrate) and continue from V2.
+
+create table appointments (
+    appointment_date date not null,
+    appointment_time time(6) not null,
+    case_id bigint,
+    created_at datetime(6),
+    dentist_id bigint not null,
+    id bigint not null auto_increment,
+    patient_id bigint not null,
+    updated_at datetime(6),
+    appointment_type varchar(255) not null,
+    notes varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table cases (
+    due_date date,
+    created_at datetime(6),
+    dentist_id bigint,
+    id bigint not null auto_increment,
+    patient_id bigint,
+    updated_at datetime(6),
+    case_number varchar(255) not null,
+    description varchar(255),
+    priority varchar(255),
+    status varchar(255) not null,
+    title varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table contacts (
+    online bit,
+    unread integer,
+    id bigint not null auto_increment,
+    avatar varchar(255),
+    initials varchar(255),
+    last_message varchar(255),
+    name varchar(255) not null,
+    role varchar(255) not null,
+    timestamp varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table dentists (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    address varchar(255),
+    email varchar(255),
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    phone varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table inventory_categories (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    description varchar(255),
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table inventory_items (
+    last_ordered date,
+    quantity integer not null,
+    reorder_level integer not null,
+    unit_price decimal(10,2) not null,
+    category_id bigint,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    supplier_id bigint,
+    updated_at datetime(6),
+    description TEXT,
+    name varchar(255) not null,
+    unit varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table invoice_items (
+    amount decimal(10,2) not null,
+    quantity integer not null,
+    unit_price decimal(10,2) not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    invoice_id bigint not null,
+    updated_at datetime(6),
+    description varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table invoices (
+    amount decimal(10,2) not null,
+    due_date date not null,
+    issue_date date not null,
+    paid_date date,
+    tax decimal(10,2) not null,
+    total decimal(10,2) not null,
+    case_id bigint,
+    created_at datetime(6),
+    dentist_id bigint not null,
+    id bigint not null auto_increment,
+    patient_id bigint not null,
+    updated_at datetime(6),
+    invoice_number varchar(255) not null,
+    notes varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table messages (
+    is_read bit not null,
+    id bigint not null auto_increment,
+    timestamp datetime(6),
+    updated_at datetime(6),
+    case_id varchar(255),
+    content TEXT not null,
+    receiver_id varchar(255) not null,
+    sender_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table patients (
+    created_at datetime(6),
+    dentist_id bigint,
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    address varchar(255),
+    email varchar(255),
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    phone varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table suppliers (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    address varchar(255),
+    contact_person varchar(255),
+    email varchar(255),
+    name varchar(255) not null,
+    phone varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table cases
+   add constraint UK_d2x5t06l1d3krie16abr38r0y unique (case_number);
+
+alter table inventory_categories
+   add constraint UK_kc2daxpagckyuuklbng7ba7lm unique (name);
+
+alter table invoices
+   add constraint UK_l1x55mfsay7co0r3m9ynvipd5 unique (invoice_number);
+
+alter table users
+   add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users
+   add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table appointments
+   add constraint FKqsnula0nj86s67otibu2j2hsv
+   foreign key (dentist_id)
+   references dentists (id);
+
+alter table appointments
+   add constraint FK8exap5wmg8kmb1g1rx3by21yt
+   foreign key (patient_id)
+   references patients (id);
+
+alter table appointments
+   add constraint FK8rliyvm03pviul5c1r4ioj5yf
+   foreign key (case_id)
+   references cases (id);
+
+alter table cases
+   add constraint FKhf6kbu5nyqi79ieig9hyuydta
+   foreign key (dentist_id)
+   references dentists (id);
+
+alter table cases
+   add constraint FKsk5oeirlie1kuscqtj2gg8r7a
+   foreign key (patient_id)
+   references patients (id);
+
+alter table inventory_items
+   add constraint FKt2pkky7lnde8q4masble4dqu9
+   foreign key (category_id)
+   references inventory_categories (id);
+
+alter table inventory_items
+   add constraint FKhc7q0chmfralakw27k36ds0c1
+   foreign key (supplier_id)
+   references suppliers (id);
+
+alter table invoice_items
+   add constraint FK46ae0lhu1oqs7cv91fn6y9n7w
+   foreign key (invoice_id)
+   references invoices (id);
+
+alter table invoices
+   add constraint FKnb24wtrxnn1sq0v31d5nuxj8x
+   foreign key (case_id)
+   references cases (id);
+
+alter table invoices
+   add constraint FKbucardinjtmnw4y3vh61du1ve
+   foreign key (dentist_id)
+   references dentists (id);
+
+alter table invoices
+   add constraint FKrpyotno5h237hyoaokuggqqog
+   foreign key (patient_id)
+   references patients (id);
+
+alter table patients
+   add constraint FK3bluhev8jfuox54oyr54mosn1
+   foreign key (dentist_id)
+   references dentists (id);
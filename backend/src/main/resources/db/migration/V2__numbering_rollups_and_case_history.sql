@@ -0,0 +1,41 @@
+-- Tables added while the schema was still managed by ddl-auto=update. IF NOT EXISTS lets
+-- this run both on new databases and on baselined ones where Hibernate already created them.
+
+create table if not exists case_status_transitions (
+    case_id bigint not null,
+    changed_at datetime(6) not null,
+    dentist_id bigint,
+    id bigint not null auto_increment,
+    from_status varchar(255),
+    to_status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists document_counters (
+    next_value bigint not null,
+    series varchar(32) not null,
+    primary key (series)
+) engine=InnoDB;
+
+create table if not exists invoice_daily_rollups (
+    issue_date date not null,
+    total_amount decimal(14,2) not null,
+    dentist_id bigint not null,
+    invoice_count bigint not null,
+    status varchar(255) not null,
+    primary key (issue_date, dentist_id, status)
+) engine=InnoDB;
+
+-- Invoice item ids come from this pooled sequence table rather than auto_increment
+create table if not exists invoice_item_seq (
+    next_val bigint
+) engine=InnoDB;
+
+alter table invoice_items modify id bigint not null;
+
+insert into invoice_item_seq (next_val)
+select 1 from dual where not exists (select * from invoice_item_seq);
+
+-- Start past existing items, leaving room for a block another node may already hold
+update invoice_item_seq
+set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from invoice_items));
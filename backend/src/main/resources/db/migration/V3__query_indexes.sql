@@ -0,0 +1,38 @@
+-- Composite indexes matched to the repository queries that filter or order on them.
+
+-- CaseRepository.findByDentistIdAndStatus
+create index idx_cases_dentist_status on cases (dentist_id, status);
+-- CaseRepository.findFirstPage / findPageAfter with and without a status filter, streamForExport
+create index idx_cases_status_created on cases (status, created_at, id);
+create index idx_cases_created on cases (created_at, id);
+
+-- AppointmentRepository.findByDentistIdAndAppointmentDate(Between)
+create index idx_appointments_dentist_date on appointments (dentist_id, appointment_date);
+-- AppointmentRepository.findByPatientIdAndAppointmentDateBetween
+create index idx_appointments_patient_date on appointments (patient_id, appointment_date);
+-- AppointmentRepository.findByAppointmentDate, findFirstPage / findPageAfter, streamForExport
+create index idx_appointments_date on appointments (appointment_date, id);
+
+-- InvoiceRepository.getInvoiceSummary (status with due_date for the overdue figures)
+create index idx_invoices_status_due on invoices (status, due_date);
+-- InvoiceRepository.findFirstPage / findPageAfter with and without a status filter, streamForExport
+create index idx_invoices_status_issue on invoices (status, issue_date, id);
+create index idx_invoices_issue on invoices (issue_date, id);
+
+-- MessageRepository.findByCaseId
+create index idx_messages_case on messages (case_id, id);
+-- MessageRepository.findByReceiverIdAndIsReadFalse
+create index idx_messages_receiver_read on messages (receiver_id, is_read);
+-- MessageRepository.findBySenderIdAndReceiverId
+create index idx_messages_sender_receiver on messages (sender_id, receiver_id);
+
+-- PatientRepository.findViewsByDentistId
+create index idx_patients_dentist_last_name on patients (dentist_id, last_name, id);
+-- PatientRepository.findFirstPage / findPageAfter
+create index idx_patients_last_name on patients (last_name, id);
+
+-- InventoryItemRepository.findFirstPage / findPageAfter
+create index idx_inventory_items_name on inventory_items (name, id);
+
+-- CaseStatusTransitionRepository.insertMissingCreations
+create index idx_case_status_transitions_case on case_status_transitions (case_id, id);
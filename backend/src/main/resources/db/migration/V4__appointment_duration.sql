@@ -0,0 +1,2 @@
+-- Appointments occupy a time span; existing ones are taken to last the default 30 minutes
+alter table appointments add column duration_minutes integer not null default 30;
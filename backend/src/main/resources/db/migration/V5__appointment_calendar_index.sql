@@ -0,0 +1,2 @@
+-- AppointmentRepository.findCalendarRows: date range read in (date, dentist, time) order
+create index idx_appointments_calendar on appointments (appointment_date, dentist_id, appointment_time);
@@ -0,0 +1,18 @@
+-- Unread messages per receiver and thread: a case thread ('case', case_id) or a direct
+-- conversation ('direct', sender_id) for messages without a case
+create table message_unread_counters (
+    receiver_id varchar(255) not null,
+    thread_type varchar(16) not null,
+    thread_id varchar(255) not null,
+    unread bigint not null,
+    primary key (receiver_id, thread_type, thread_id)
+) engine=InnoDB;
+
+insert into message_unread_counters (receiver_id, thread_type, thread_id, unread)
+select receiver_id,
+       case when case_id is null then 'direct' else 'case' end,
+       coalesce(case_id, sender_id),
+       count(*)
+from messages
+where is_read = false
+group by receiver_id, case when case_id is null then 'direct' else 'case' end, coalesce(case_id, sender_id);
@@ -0,0 +1,25 @@
+-- Append-only stock movements; inventory_items.quantity stays the current snapshot
+create table inventory_movements (
+    id bigint not null auto_increment,
+    item_id bigint not null,
+    movement_type varchar(16) not null,
+    quantity_delta integer not null,
+    case_id bigint,
+    occurred_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_inventory_movements_item on inventory_movements (item_id, occurred_at);
+create index idx_inventory_movements_occurred on inventory_movements (occurred_at);
+
+-- Quantity of an item before any movement at or after as_of
+create table inventory_checkpoints (
+    item_id bigint not null,
+    as_of datetime(6) not null,
+    quantity integer not null,
+    primary key (item_id, as_of)
+) engine=InnoDB;
+
+-- History starts now: existing stock becomes each item's first checkpoint
+insert into inventory_checkpoints (item_id, as_of, quantity)
+select id, current_timestamp(6), quantity from inventory_items;
@@ -0,0 +1,10 @@
+-- Case type (e.g. "crown", "bridge") selects the bill of materials consumed on completion
+alter table cases add column case_type varchar(64);
+
+create table bill_of_material_lines (
+    case_type varchar(64) not null,
+    item_id bigint not null,
+    quantity integer not null,
+    primary key (case_type, item_id),
+    constraint fk_bom_lines_item foreign key (item_id) references inventory_items (id)
+) engine=InnoDB;
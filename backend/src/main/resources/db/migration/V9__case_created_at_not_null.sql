@@ -0,0 +1,5 @@
+-- Cases are paged by (created_at, id), so the sort key may not be null. Rows written before
+-- creation timestamps were recorded take their last update time instead.
+update cases set created_at = coalesce(updated_at, current_timestamp(6)) where created_at is null;
+
+alter table cases modify created_at datetime(6) not null;
@@ -0,0 +1,73 @@
+package com.dentalflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtConfigTest {
+    
+    private static JwtConfig jwtConfig(long expirationMillis, int cacheSize) {
+        JwtConfig jwtConfig = new JwtConfig(cacheSize, 600);
+        ReflectionTestUtils.setField(jwtConfig, "expiration", expirationMillis);
+        return jwtConfig;
+    }
+    
+    @Test
+    void repeatedVerificationIsServedFromTheCache() {
+        JwtConfig jwtConfig = jwtConfig(60_000, 10);
+        String token = jwtConfig.generateToken("ada", "technician");
+        
+        VerifiedToken first = jwtConfig.verify(token).orElseThrow();
+        
+        assertThat(first.username()).isEqualTo("ada");
+        assertThat(first.role()).isEqualTo("technician");
+        // The same instance means the second call did not parse the token again
+        assertThat(jwtConfig.verify(token)).containsSame(first);
+        assertThat(jwtConfig.extractUsername(token)).isEqualTo("ada");
+        assertThat(jwtConfig.extractRole(token)).isEqualTo("technician");
+    }
+    
+    @Test
+    void tokensWithABadSignatureAreRejected() {
+        JwtConfig jwtConfig = jwtConfig(60_000, 10);
+        String token = jwtConfig.generateToken("ada", "technician");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String foreign = jwtConfig(60_000, 10).generateToken("ada", "admin");
+        
+        assertThat(jwtConfig.verify(tampered)).isEmpty();
+        assertThat(jwtConfig.verify(foreign)).isEmpty();
+        assertThat(jwtConfig.validateToken("not a token")).isFalse();
+        assertThat(jwtConfig.extractUsername(tampered)).isNull();
+    }
+    
+    @Test
+    void expiredTokensAreRejected() {
+        JwtConfig jwtConfig = jwtConfig(-1_000, 10);
+        
+        assertThat(jwtConfig.verify(jwtConfig.generateToken("ada", "technician"))).isEmpty();
+    }
+    
+    @Test
+    void cachedTokensExpireWithTheirExpClaim() throws InterruptedException {
+        JwtConfig jwtConfig = jwtConfig(1_000, 10);
+        String token = jwtConfig.generateToken("ada", "technician");
+        assertThat(jwtConfig.verify(token)).isPresent();
+        
+        // exp has whole-second precision, so the token is past it after two seconds
+        Thread.sleep(2_000);
+        
+        assertThat(jwtConfig.verify(token)).isEmpty();
+    }
+    
+    @Test
+    void aDisabledCacheStillVerifies() {
+        JwtConfig jwtConfig = jwtConfig(60_000, 0);
+        String token = jwtConfig.generateToken("ada", "technician");
+        
+        VerifiedToken first = jwtConfig.verify(token).orElseThrow();
+        VerifiedToken second = jwtConfig.verify(token).orElseThrow();
+        
+        assertThat(second).isNotSameAs(first).isEqualTo(first);
+    }
+}
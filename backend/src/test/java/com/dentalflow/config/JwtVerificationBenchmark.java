@@ -0,0 +1,107 @@
+package com.dentalflow.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifying a bearer token the way JwtAuthenticationFilter does on every request: before, with a parser
+ * built per call and the token parsed for the validity check, the username and the role; after, with
+ * one verify() through the shared parser, with and without the verified-token cache.
+ * Not run by surefire; see the README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+    
+    // Distinct signed-in users, all of whose tokens fit in the default cache
+    private static final int USERS = 1_000;
+    
+    private JwtConfig cached;
+    private JwtConfig uncached;
+    private Key key;
+    private String[] tokens;
+    private String[] uncachedTokens;
+    private final AtomicInteger next = new AtomicInteger();
+    
+    @Setup
+    public void setUp() {
+        cached = jwtConfig(10_000);
+        uncached = jwtConfig(0);
+        key = (Key) ReflectionTestUtils.getField(cached, "key");
+        tokens = new String[USERS];
+        uncachedTokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = cached.generateToken("user-" + i, "technician");
+            uncachedTokens[i] = uncached.generateToken("user-" + i, "technician");
+        }
+    }
+    
+    private static JwtConfig jwtConfig(int cacheSize) {
+        JwtConfig jwtConfig = new JwtConfig(cacheSize, 600);
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 3_600_000L);
+        return jwtConfig;
+    }
+    
+    private String nextToken(String[] tokens) {
+        return tokens[Math.floorMod(next.getAndIncrement(), USERS)];
+    }
+    
+    @Benchmark
+    public void parserPerCallThreeParses(Blackhole blackhole) {
+        String token = nextToken(tokens);
+        blackhole.consume(!parse(token).getExpiration().before(new Date()));
+        blackhole.consume(parse(token).getSubject());
+        blackhole.consume(parse(token).get("role", String.class));
+    }
+    
+    @Benchmark
+    public void sharedParserVerifyOnce(Blackhole blackhole) {
+        blackhole.consume(uncached.verify(nextToken(uncachedTokens)));
+    }
+    
+    @Benchmark
+    public void sharedParserVerifyCached(Blackhole blackhole) {
+        blackhole.consume(cached.verify(nextToken(tokens)));
+    }
+    
+    // JwtConfig.extractAllClaims as it was, building a parser for every call
+    private Claims parse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
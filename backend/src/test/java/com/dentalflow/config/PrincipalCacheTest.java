@@ -0,0 +1,96 @@
+package com.dentalflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+    
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    
+    private PrincipalCache principalCache(String mode) {
+        return new PrincipalCache(userDetailsService, mode, 10, 300);
+    }
+    
+    private void storedRole(String username, String role) {
+        when(userDetailsService.loadUserByUsername(username))
+                .thenReturn(new User(username, "", Collections.singleton(PrincipalCache.toAuthority(role))));
+    }
+    
+    private static List<String> authorities(UserDetails principal) {
+        return principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+    
+    @Test
+    void claimsModeBuildsThePrincipalWithoutTheDatabase() {
+        PrincipalCache principalCache = principalCache(PrincipalCache.MODE_CLAIMS);
+        
+        UserDetails first = principalCache.getPrincipal("ada", "technician");
+        
+        assertThat(authorities(first)).containsExactly("ROLE_TECHNICIAN");
+        assertThat(principalCache.getPrincipal("ada", "technician")).isSameAs(first);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+    
+    @Test
+    void claimsModeRebuildsThePrincipalWhenTheRoleClaimChanges() {
+        PrincipalCache principalCache = principalCache(PrincipalCache.MODE_CLAIMS);
+        principalCache.getPrincipal("ada", "technician");
+        
+        UserDetails promoted = principalCache.getPrincipal("ada", "admin");
+        
+        assertThat(authorities(promoted)).containsExactly("ROLE_ADMIN");
+        assertThat(principalCache.getPrincipal("ada", "admin")).isSameAs(promoted);
+    }
+    
+    @Test
+    void databaseModeLoadsTheUserOnce() {
+        PrincipalCache principalCache = principalCache("database");
+        storedRole("ada", "technician");
+        
+        UserDetails first = principalCache.getPrincipal("ada", "technician");
+        
+        assertThat(principalCache.getPrincipal("ada", "technician")).isSameAs(first);
+        verify(userDetailsService, times(1)).loadUserByUsername("ada");
+    }
+    
+    @Test
+    void databaseModeKeepsTheStoredRoleWhenTheTokenClaimsAnother() {
+        PrincipalCache principalCache = principalCache("database");
+        storedRole("ada", "technician");
+        
+        UserDetails first = principalCache.getPrincipal("ada", "admin");
+        
+        assertThat(authorities(first)).containsExactly("ROLE_TECHNICIAN");
+        assertThat(principalCache.getPrincipal("ada", "admin")).isSameAs(first);
+        verify(userDetailsService, times(1)).loadUserByUsername("ada");
+    }
+    
+    @Test
+    void anEvictedPrincipalIsResolvedAgain() {
+        PrincipalCache principalCache = principalCache("database");
+        storedRole("ada", "technician");
+        UserDetails first = principalCache.getPrincipal("ada", "technician");
+        
+        principalCache.evict("ada");
+        storedRole("ada", "admin");
+        UserDetails reloaded = principalCache.getPrincipal("ada", "technician");
+        
+        assertThat(reloaded).isNotSameAs(first);
+        assertThat(authorities(reloaded)).containsExactly("ROLE_ADMIN");
+        verify(userDetailsService, times(2)).loadUserByUsername("ada");
+    }
+}
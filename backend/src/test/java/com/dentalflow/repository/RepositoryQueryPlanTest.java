@@ -0,0 +1,418 @@
+package com.dentalflow.repository;
+
+import com.dentalflow.service.DocumentNumberAllocator;
+import com.dentalflow.service.InvoiceRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Runs every repository query against a seeded database, then EXPLAINs each statement it sent with the
+ * same bound values and fails on any full table scan. It needs MySQL, so it is skipped on the default H2
+ * test database; the mysql-query-plans Maven profile runs it against MySQL or MariaDB, where skipping is an
+ * error (see the README). The queries below that read a whole table by design are left out on purpose:
+ * <ul>
+ *   <li>startup and nightly passes: CaseStatusTransitionRepository.streamAll and insertMissingCreations,
+ *       InventoryCheckpointRepository.insertCheckpointsAt and findLatestAsOf,
+ *       InventoryItemRepository.findLowStockItems, InvoiceDailyRollupRepository.insertFromInvoices and
+ *       deleteAllRows, InvoiceRollupLockRepository.lockAllStripes</li>
+ *   <li>all-time report aggregates: InvoiceDailyRollupRepository.getTopDentistsByInvoiceCount,
+ *       InvoiceRepository.getTopDentistsByCaseCount</li>
+ *   <li>InventoryItemRepository.findByQuantityLessThanEqual, which compares every item's quantity</li>
+ *   <li>DentistRepository.findAllNames, which lists every dentist for the cached name list</li>
+ *   <li>single-row upserts, which read nothing: addContribution and MessageUnreadCounterRepository.add</li>
+ * </ul>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementRecorder.Registration.class)
+class RepositoryQueryPlanTest {
+    
+    // Set by the mysql-query-plans profile
+    private static final String REQUIRED_PROPERTY = "dentalflow.query-plans.required";
+    
+    private static final int DENTISTS = 100;
+    private static final int PATIENTS = 8_000;
+    private static final int CASES = 5_000;
+    private static final int APPOINTMENTS = 10_000;
+    private static final int INVOICES = 5_000;
+    private static final int MESSAGES = 5_000;
+    private static final int USERS = 200;
+    private static final int ITEMS = 8_000;
+    private static final int MOVEMENTS = 5_000;
+    private static final int CHECKPOINT_MONTHS = 2;
+    private static final int CASE_TYPES = 20;
+    
+    @Autowired
+    private StatementRecorder recorder;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DocumentNumberAllocator numberAllocator;
+    
+    @Autowired
+    private InvoiceRollupService rollupService;
+    
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private BillOfMaterialLineRepository billOfMaterialLineRepository;
+    
+    @Autowired
+    private CaseRepository caseRepository;
+    
+    @Autowired
+    private InventoryCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private InventoryItemRepository itemRepository;
+    
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+    
+    @Autowired
+    private InvoiceDailyRollupRepository rollupRepository;
+    
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    
+    @Autowired
+    private InvoiceRollupLockRepository rollupLockRepository;
+    
+    @Autowired
+    private MessageRepository messageRepository;
+    
+    @Autowired
+    private MessageUnreadCounterRepository unreadCounterRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void repositoryQueriesDoNotScanWholeTables() {
+        // H2 orders joins by its own rules, so its plans say nothing about the ones MySQL picks
+        boolean h2 = isH2();
+        assertThat(h2 && Boolean.getBoolean(REQUIRED_PROPERTY)).as("query plans required but the datasource is H2").isFalse();
+        assumeFalse(h2, "needs the MySQL datasource described in the README");
+        Sample sample = seed();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    
+        List<String> fullScans = new ArrayList<>();
+        queries(sample).forEach((name, query) -> {
+            // Rolled back, so queries that change rows leave the sample as it was for the next one
+            List<StatementRecorder.RecordedStatement> statements = recorder.record(() ->
+                    transaction.executeWithoutResult(status -> {
+                        query.run();
+                        status.setRollbackOnly();
+                    }));
+            assertThat(statements).as("statements sent by %s", name).isNotEmpty();
+            for (StatementRecorder.RecordedStatement statement : statements) {
+                for (String table : scannedTables(statement)) {
+                    fullScans.add(name + " reads all of " + table + ": " + statement.sql());
+                }
+            }
+        });
+    
+        assertThat(fullScans).isEmpty();
+    }
+    
+    private Map<String, Runnable> queries(Sample s) {
+        Pageable page = PageRequest.of(0, 50);
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+    
+        queries.put("AppointmentRepository.findByDentistId", () -> appointmentRepository.findByDentistId(s.dentistId()));
+        queries.put("AppointmentRepository.findByPatientId", () -> appointmentRepository.findByPatientId(s.patientId()));
+        queries.put("AppointmentRepository.findByAppointmentDate",
+                () -> appointmentRepository.findByAppointmentDate(today.minusDays(10)));
+        queries.put("AppointmentRepository.findByDentistIdAndAppointmentDate",
+                () -> appointmentRepository.findByDentistIdAndAppointmentDate(s.dentistId(), today.minusDays(10)));
+        queries.put("AppointmentRepository.findByDentistIdAndAppointmentDateBetween",
+                () -> appointmentRepository.findByDentistIdAndAppointmentDateBetween(s.dentistId(), today.minusDays(30), today));
+        queries.put("AppointmentRepository.findByPatientIdAndAppointmentDateBetween",
+                () -> appointmentRepository.findByPatientIdAndAppointmentDateBetween(s.patientId(), today.minusDays(30), today));
+        queries.put("AppointmentRepository.findByRelatedCaseId", () -> appointmentRepository.findByRelatedCaseId(s.caseId()));
+        queries.put("AppointmentRepository.findFirstPage", () -> appointmentRepository.findFirstPage(page));
+        queries.put("AppointmentRepository.findPageAfter",
+                () -> appointmentRepository.findPageAfter(today.minusDays(10), 0L, page));
+        queries.put("AppointmentRepository.streamForExport",
+                () -> first(appointmentRepository.streamForExport(today.minusDays(30), today)));
+        queries.put("AppointmentRepository.streamBookingsFrom",
+                () -> first(appointmentRepository.streamBookingsFrom(today, "cancelled")));
+        queries.put("AppointmentRepository.findCalendarRows",
+                () -> appointmentRepository.findCalendarRows(today, today.plusDays(6), null));
+        queries.put("AppointmentRepository.findCalendarRows for one dentist",
+                () -> appointmentRepository.findCalendarRows(today, today.plusDays(6), s.dentistId()));
+    
+        queries.put("BillOfMaterialLineRepository.findByCaseType",
+                () -> billOfMaterialLineRepository.findByCaseType(s.caseType()));
+        queries.put("BillOfMaterialLineRepository.deleteByCaseType",
+                () -> billOfMaterialLineRepository.deleteByCaseType(s.caseType()));
+    
+        queries.put("CaseRepository.findForUpdateById", () -> caseRepository.findForUpdateById(s.caseId()));
+        queries.put("CaseRepository.findByStatus", () -> caseRepository.findByStatus("pending"));
+        queries.put("CaseRepository.findByPatientId", () -> caseRepository.findByPatientId(s.patientId()));
+        queries.put("CaseRepository.findByDentistId", () -> caseRepository.findByDentistId(s.dentistId()));
+        queries.put("CaseRepository.findByDentistIdAndStatus",
+                () -> caseRepository.findByDentistIdAndStatus(s.dentistId(), "pending"));
+        queries.put("CaseRepository.findFirstPage", () -> caseRepository.findFirstPage(null, page));
+        queries.put("CaseRepository.findFirstPage by status", () -> caseRepository.findFirstPage("pending", page));
+        queries.put("CaseRepository.findPageAfter",
+                () -> caseRepository.findPageAfter(null, now.minusDays(100), Long.MAX_VALUE, page));
+        queries.put("CaseRepository.findPageAfter by status",
+                () -> caseRepository.findPageAfter("pending", now.minusDays(100), Long.MAX_VALUE, page));
+        queries.put("CaseRepository.findDueBetween", () -> caseRepository.findDueBetween(today, today.plusDays(30)));
+        queries.put("CaseRepository.streamForExport", () -> first(caseRepository.streamForExport(now.minusDays(30), now)));
+        queries.put("CaseRepository.findExistingIds", () -> caseRepository.findExistingIds(List.of(s.caseId(), -1L)));
+    
+        queries.put("InventoryCheckpointRepository.findFirstByIdItemIdAndIdAsOfLessThanEqualOrderByIdAsOfDesc",
+                () -> checkpointRepository.findFirstByIdItemIdAndIdAsOfLessThanEqualOrderByIdAsOfDesc(s.itemId(), now));
+        queries.put("InventoryCheckpointRepository.findFirstByIdItemIdOrderByIdAsOfAsc",
+                () -> checkpointRepository.findFirstByIdItemIdOrderByIdAsOfAsc(s.itemId()));
+    
+        queries.put("InventoryItemRepository.findByCategory_Id", () -> itemRepository.findByCategory_Id(s.categoryId()));
+        queries.put("InventoryItemRepository.findBySupplier_Id", () -> itemRepository.findBySupplier_Id(s.supplierId()));
+        queries.put("InventoryItemRepository.countByIdIn", () -> itemRepository.countByIdIn(List.of(s.itemId())));
+        queries.put("InventoryItemRepository.findForUpdateById", () -> itemRepository.findForUpdateById(s.itemId()));
+        queries.put("InventoryItemRepository.findViewsByIdIn", () -> itemRepository.findViewsByIdIn(List.of(s.itemId())));
+        queries.put("InventoryItemRepository.findFirstPage", () -> itemRepository.findFirstPage(page));
+        queries.put("InventoryItemRepository.findPageAfter", () -> itemRepository.findPageAfter(s.itemName(), 0L, page));
+        queries.put("InventoryItemRepository.applyQuantityDeltas",
+                () -> itemRepository.applyQuantityDeltas(Map.of(s.itemId(), 1)));
+    
+        queries.put("InventoryMovementRepository.sumDeltas",
+                () -> movementRepository.sumDeltas(s.itemId(), now.minusDays(30), now));
+        queries.put("InventoryMovementRepository.existsByItemIdAndOccurredAtLessThan",
+                () -> movementRepository.existsByItemIdAndOccurredAtLessThan(s.itemId(), now.minusDays(30)));
+        queries.put("InventoryMovementRepository.findEarliestOccurredAt", movementRepository::findEarliestOccurredAt);
+        queries.put("InventoryMovementRepository.deleteOccurredBefore",
+                () -> movementRepository.deleteOccurredBefore(now.minusYears(10)));
+    
+        queries.put("InvoiceDailyRollupRepository.getMonthlyRevenue",
+                () -> rollupRepository.getMonthlyRevenue(today.minusMonths(1)));
+        queries.put("InvoiceDailyRollupRepository.getTopDentistsByRevenue",
+                () -> rollupRepository.getTopDentistsByRevenue(today.minusMonths(1)));
+    
+        queries.put("InvoiceRollupLockRepository.lockStripe", () -> rollupLockRepository.lockStripe(1));
+    
+        queries.put("InvoiceRepository.findForUpdateById", () -> invoiceRepository.findForUpdateById(s.invoiceId()));
+        queries.put("InvoiceRepository.findByStatus", () -> invoiceRepository.findByStatus("unpaid"));
+        queries.put("InvoiceRepository.findByPatientId", () -> invoiceRepository.findByPatientId(s.patientId()));
+        queries.put("InvoiceRepository.findByDentistId", () -> invoiceRepository.findByDentistId(s.dentistId()));
+        queries.put("InvoiceRepository.findFirstPage", () -> invoiceRepository.findFirstPage(null, page));
+        queries.put("InvoiceRepository.findFirstPage by status", () -> invoiceRepository.findFirstPage("unpaid", page));
+        queries.put("InvoiceRepository.findPageAfter",
+                () -> invoiceRepository.findPageAfter(null, today.minusDays(100), Long.MAX_VALUE, page));
+        queries.put("InvoiceRepository.findPageAfter by status",
+                () -> invoiceRepository.findPageAfter("unpaid", today.minusDays(100), Long.MAX_VALUE, page));
+        queries.put("InvoiceRepository.streamForExport",
+                () -> first(invoiceRepository.streamForExport(today.minusDays(30), today)));
+        queries.put("InvoiceRepository.getInvoiceSummary", invoiceRepository::getInvoiceSummary);
+    
+        queries.put("MessageRepository.findLatestByCaseId",
+                () -> messageRepository.findLatestByCaseId(s.messageCaseId(), page));
+        queries.put("MessageRepository.findByCaseIdBefore",
+                () -> messageRepository.findByCaseIdBefore(s.messageCaseId(), Long.MAX_VALUE, page));
+        queries.put("MessageRepository.findByCaseIdAfter",
+                () -> messageRepository.findByCaseIdAfter(s.messageCaseId(), 0L, page));
+        queries.put("MessageRepository.markCaseThreadRead",
+                () -> messageRepository.markCaseThreadRead(s.receiverId(), s.messageCaseId(), Long.MAX_VALUE));
+        queries.put("MessageRepository.markDirectThreadRead",
+                () -> messageRepository.markDirectThreadRead(s.receiverId(), s.senderId(), Long.MAX_VALUE));
+        queries.put("MessageRepository.findBySenderIdAndReceiverId",
+                () -> messageRepository.findBySenderIdAndReceiverId(s.senderId(), s.receiverId()));
+    
+        queries.put("MessageUnreadCounterRepository.decrement",
+                () -> unreadCounterRepository.decrement(s.receiverId(), "case", s.messageCaseId(), 1));
+        queries.put("MessageUnreadCounterRepository.findUnreadByReceiverId",
+                () -> unreadCounterRepository.findUnreadByReceiverId(s.receiverId()));
+    
+        queries.put("PatientRepository.findByDentistId", () -> patientRepository.findByDentistId(s.dentistId()));
+        queries.put("PatientRepository.findViewsByDentistId", () -> patientRepository.findViewsByDentistId(s.dentistId()));
+        queries.put("PatientRepository.findFirstPage", () -> patientRepository.findFirstPage(page));
+        queries.put("PatientRepository.findPageAfter", () -> patientRepository.findPageAfter(s.patientLastName(), 0L, page));
+        queries.put("PatientRepository.streamForExport",
+                () -> first(patientRepository.streamForExport(now.minusDays(30), now)));
+    
+        queries.put("UserRepository.findByUsername", () -> userRepository.findByUsername(s.username()));
+        queries.put("UserRepository.findByEmail", () -> userRepository.findByEmail(s.email()));
+        queries.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername(s.username()));
+        queries.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail(s.email()));
+        return queries;
+    }
+    
+    private record Sample(Long dentistId, Long patientId, String patientLastName, Long caseId, String caseType,
+                          Long invoiceId, Long itemId, String itemName, Long categoryId, Long supplierId,
+                          String messageCaseId, String senderId, String receiverId, String username, String email) {
+    }
+    
+    // Enough rows, spread the way production data is, that an index beats reading the table. Below several
+    // thousand rows MySQL sorts a whole table rather than walk an index for a first page, so the tables paged
+    // from the top are seeded past that
+    private Sample seed() {
+        String run = Long.toString(System.nanoTime(), 36);
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+    
+        List<Long> dentists = insert("dentists", "first_name, last_name, email, created_at", DENTISTS,
+                i -> new Object[] { "Dentist", run + "-" + i, "dentist-" + run + "-" + i + "@example.com", now });
+        List<Long> patients = insert("patients", "first_name, last_name, dentist_id, created_at", PATIENTS,
+                i -> new Object[] { "Patient", String.format("P%s-%05d", run, i), pick(dentists, random),
+                        now.minusMinutes(random.nextInt(1_000_000)) });
+        // Most cases are long completed, as in a lab that has run for a while
+        List<Long> cases = insert("cases", "case_number, title, status, case_type, dentist_id, patient_id, created_at, due_date",
+                CASES, i -> new Object[] { "CASE-" + run + "-" + i, "Crown", i % 20 == 0 ? "pending" : i % 20 == 1 ? "in-progress" : "completed",
+                        "type-" + run + "-" + (i % CASE_TYPES), pick(dentists, random), pick(patients, random),
+                        now.minusMinutes(random.nextInt(1_000_000)), today.plusDays(30 - random.nextInt(730)) });
+        insert("appointments", "appointment_date, appointment_time, duration_minutes, appointment_type, status, " +
+                "dentist_id, patient_id, case_id, created_at", APPOINTMENTS, i -> {
+            boolean upcoming = i % 25 == 0;
+            LocalDate date = upcoming ? today.plusDays(random.nextInt(30)) : today.minusDays(1 + random.nextInt(700));
+            return new Object[] { date, LocalTime.of(8, 0).plusMinutes(30L * (i % 20)), 30, "fitting",
+                    upcoming ? "scheduled" : i % 50 == 1 ? "cancelled" : "completed",
+                    pick(dentists, random), pick(patients, random), i % 10 == 0 ? pick(cases, random) : null, now };
+        });
+        List<Long> invoices = insert("invoices", "invoice_number, status, patient_id, dentist_id, amount, tax, total, " +
+                "issue_date, due_date, created_at", INVOICES, i -> {
+            LocalDate issued = today.minusDays(random.nextInt(700));
+            return new Object[] { "INV-" + run + "-" + i, i % 20 == 0 ? "unpaid" : "paid", pick(patients, random),
+                    pick(dentists, random), 100, 10, 110, issued, issued.plusDays(30), now };
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO invoice_items (id, invoice_id, description, quantity, unit_price, amount) " +
+                "VALUES (?, ?, 'Crown', 1, 100, 100)", rows(INVOICES, i -> new Object[] {
+                        numberAllocator.nextId(DocumentNumberAllocator.INVOICE_ITEM_IDS), invoices.get(i) }));
+        rollupService.rebuild();
+    
+        jdbcTemplate.batchUpdate("INSERT INTO messages (case_id, sender_id, receiver_id, content, is_read, timestamp) " +
+                "VALUES (?, ?, ?, 'Update', ?, ?)", rows(MESSAGES, i -> new Object[] {
+                        i % 5 == 0 ? null : String.valueOf(pick(cases, random)), user(run, random), user(run, random),
+                        i % 20 != 0, now.minusMinutes(MESSAGES - i) }));
+        jdbcTemplate.batchUpdate("INSERT INTO message_unread_counters (receiver_id, thread_type, thread_id, unread) " +
+                "VALUES (?, 'case', ?, 1)", rows(MESSAGES / 5, i -> new Object[] { user(run, random), run + "-" + i }));
+        insert("users", "username, email, password, first_name, last_name, role", USERS,
+                i -> new Object[] { "user-" + run + "-" + i, "user-" + run + "-" + i + "@example.com", "x", "U", "Ser", "technician" });
+    
+        List<Long> categories = insert("inventory_categories", "name", 20, i -> new Object[] { "Category " + run + "-" + i });
+        List<Long> suppliers = insert("suppliers", "name", 20, i -> new Object[] { "Supplier " + run + "-" + i });
+        List<Long> items = insert("inventory_items", "name, quantity, reorder_level, unit_price, unit, category_id, supplier_id",
+                ITEMS, i -> new Object[] { String.format("Item %s-%04d", run, i), 100, 10, 5, "piece",
+                        pick(categories, random), pick(suppliers, random) });
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_movements (item_id, movement_type, quantity_delta, occurred_at) " +
+                "VALUES (?, 'consume', -1, ?)", rows(MOVEMENTS, i -> new Object[] {
+                        pick(items, random), now.minusMinutes(random.nextInt(1_000_000)) }));
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_checkpoints (item_id, as_of, quantity) VALUES (?, ?, 100)",
+                rows(ITEMS * CHECKPOINT_MONTHS, i -> new Object[] { items.get(i / CHECKPOINT_MONTHS),
+                        today.withDayOfMonth(1).minusMonths(i % CHECKPOINT_MONTHS).atStartOfDay() }));
+        jdbcTemplate.batchUpdate("INSERT INTO bill_of_material_lines (case_type, item_id, quantity) VALUES (?, ?, 1)",
+                rows(CASE_TYPES * 5, i -> new Object[] { "type-" + run + "-" + (i / 5), items.get(i) }));
+    
+        refreshStatistics();
+        Long caseId = cases.get(CASES / 2);
+        String messageCaseId = jdbcTemplate.queryForObject(
+                "SELECT MIN(case_id) FROM messages WHERE case_id LIKE '%'", String.class);
+        return new Sample(dentists.get(0), patients.get(0), String.format("P%s-%05d", run, PATIENTS / 2), caseId,
+                "type-" + run + "-1", invoices.get(0), items.get(0), String.format("Item %s-%04d", run, ITEMS / 2),
+                categories.get(0), suppliers.get(0), messageCaseId, user(run, random), user(run, random),
+                "user-" + run + "-1", "user-" + run + "-1@example.com");
+    }
+    
+    // Inserts the rows and returns their generated ids
+    private List<Long> insert(String table, String columns, int count, IntFunction<Object[]> row) {
+        Long before = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        String placeholders = String.join(", ", Collections.nCopies(columns.split(",").length, "?"));
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")", rows(count, row));
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id", Long.class, before);
+    }
+    
+    private static List<Object[]> rows(int count, IntFunction<Object[]> row) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(row.apply(i));
+        }
+        return rows;
+    }
+    
+    private static Long pick(List<Long> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+    
+    private static String user(String run, Random random) {
+        return "user-" + run + "-" + random.nextInt(USERS);
+    }
+    
+    private static void first(Stream<?> stream) {
+        try (stream) {
+            stream.findFirst();
+        }
+    }
+    
+    private void refreshStatistics() {
+        jdbcTemplate.execute("ANALYZE TABLE appointments, bill_of_material_lines, cases, dentists, " +
+                "inventory_categories, inventory_checkpoints, inventory_items, inventory_movements, " +
+                "invoice_daily_rollups, invoice_items, invoices, message_unread_counters, messages, patients, " +
+                "suppliers, users");
+    }
+    
+    private boolean isH2() {
+        return "H2".equals(jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+    }
+    
+    // Tables (by alias) the plan reads in full, i.e. with access type ALL
+    private List<String> scannedTables(StatementRecorder.RecordedStatement statement) {
+        String sql = statement.sql().trim().toLowerCase(Locale.ROOT);
+        if (!sql.startsWith("select") && !sql.startsWith("update") && !sql.startsWith("delete")) {
+            return List.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            List<String> tables = new ArrayList<>();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+                statement.bindTo(explain);
+                try (ResultSet plan = explain.executeQuery()) {
+                    while (plan.next()) {
+                        if ("ALL".equals(plan.getString("type"))) {
+                            tables.add(plan.getString("table"));
+                        }
+                    }
+                }
+            }
+            return tables;
+        });
+    }
+}
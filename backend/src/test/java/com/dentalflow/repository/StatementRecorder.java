@@ -0,0 +1,147 @@
+package com.dentalflow.repository;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps the application DataSource so a test can see the statements a call prepares, with the values
+ * bound to them and how often they ran, and prepare them again elsewhere, e.g. under EXPLAIN. Tests that share
+ * {@code @Import(StatementRecorder.Registration.class)} share one application context.
+ */
+public class StatementRecorder implements BeanPostProcessor {
+    
+    private final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+    
+    @TestConfiguration
+    public static class Registration {
+    
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+    
+    public static final class RecordedStatement {
+        private final String sql;
+        private final List<Binding> bindings = new ArrayList<>();
+        private int executions;
+        private int batchedRows;
+    
+        private RecordedStatement(String sql) {
+            this.sql = sql;
+        }
+    
+        public String sql() {
+            return sql;
+        }
+    
+        // Round trips: each execute call, including each executeBatch
+        public int executions() {
+            return executions;
+        }
+    
+        public int batchedRows() {
+            return batchedRows;
+        }
+    
+        // Repeats every setXxx(index, ...) call the application made on the original statement
+        public void bindTo(PreparedStatement target) throws SQLException {
+            for (Binding binding : bindings) {
+                try {
+                    binding.setter().invoke(target, binding.arguments());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLException sqlException) {
+                        throw sqlException;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+    }
+    
+    private record Binding(Method setter, Object[] arguments) {
+    }
+    
+    /**
+     * Runs the call on this thread and returns the statements it prepared, in order.
+     */
+    public List<RecordedStatement> record(Runnable call) {
+        List<RecordedStatement> statements = new ArrayList<>();
+        recording.set(statements);
+        try {
+            call.run();
+        } finally {
+            recording.remove();
+        }
+        return statements;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, (method, args) -> {
+                Object result = invoke(method, dataSource, args);
+                return result instanceof Connection connection
+                        ? proxy(Connection.class, (connectionMethod, connectionArgs) ->
+                                onConnection(connection, connectionMethod, connectionArgs))
+                        : result;
+            });
+        }
+        return bean;
+    }
+    
+    private Object onConnection(Connection connection, Method method, Object[] args) throws Throwable {
+        Object result = invoke(method, connection, args);
+        List<RecordedStatement> statements = recording.get();
+        if (statements == null || !method.getName().equals("prepareStatement")) {
+            return result;
+        }
+        RecordedStatement recorded = new RecordedStatement((String) args[0]);
+        statements.add(recorded);
+        PreparedStatement statement = (PreparedStatement) result;
+        return proxy(PreparedStatement.class, (statementMethod, statementArgs) -> {
+            String name = statementMethod.getName();
+            if (name.startsWith("set") && statementArgs != null && statementArgs.length >= 2
+                    && statementArgs[0] instanceof Integer) {
+                recorded.bindings.add(new Binding(statementMethod, statementArgs.clone()));
+            } else if (name.startsWith("execute")) {
+                recorded.executions++;
+            } else if (name.equals("addBatch")) {
+                recorded.batchedRows++;
+            }
+            return invoke(statementMethod, statement, statementArgs);
+        });
+    }
+    
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+    
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(method, args);
+        return type.cast(Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[] { type },
+                invocationHandler));
+    }
+    
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.AppointmentDTO;
+import com.dentalflow.dto.FreeSlotDTO;
+import com.dentalflow.exception.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentScheduleTest {
+    
+    private static final LocalDate DAY = LocalDate.now().plusYears(1);
+    
+    @Autowired
+    private AppointmentService appointmentService;
+    
+    @Autowired
+    private AppointmentSchedule schedule;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private Long dentistId;
+    private Long otherDentistId;
+    private Long patientId;
+    
+    // Fresh dentists for every test, so bookings left in the shared index by other tests never clash
+    @BeforeEach
+    void createParties() {
+        dentistId = insert("INSERT INTO dentists (first_name, last_name) VALUES (?, 'Schedule')", "dentists");
+        otherDentistId = insert("INSERT INTO dentists (first_name, last_name) VALUES (?, 'Schedule')", "dentists");
+        patientId = insert("INSERT INTO patients (first_name, last_name) VALUES (?, 'Schedule')", "patients");
+    }
+    
+    @Test
+    void overlappingAppointmentsForOneDentistAreRejected() {
+        appointmentService.createAppointment(appointment(dentistId, LocalTime.of(9, 0)));
+        
+        assertThatThrownBy(() -> appointmentService.createAppointment(appointment(dentistId, LocalTime.of(9, 15))))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> appointmentService.createAppointment(appointment(dentistId, LocalTime.of(8, 45))))
+                .isInstanceOf(ConflictException.class);
+        // Back to back and another dentist's time are both free
+        appointmentService.createAppointment(appointment(dentistId, LocalTime.of(9, 30)));
+        appointmentService.createAppointment(appointment(otherDentistId, LocalTime.of(9, 0)));
+        assertThat(count(dentistId)).isEqualTo(2);
+    }
+    
+    @Test
+    void aBookingIsUndoneWhenItsTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            appointmentService.createAppointment(appointment(dentistId, LocalTime.of(10, 0)));
+            status.setRollbackOnly();
+        });
+        
+        appointmentService.createAppointment(appointment(dentistId, LocalTime.of(10, 0)));
+        assertThat(count(dentistId)).isEqualTo(1);
+    }
+    
+    @Test
+    void aCancellationIsUndoneWhenItsTransactionRollsBack() {
+        Long id = appointmentService.createAppointment(appointment(dentistId, LocalTime.of(11, 0))).getId();
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            appointmentService.deleteAppointment(id);
+            status.setRollbackOnly();
+        });
+        
+        assertThatThrownBy(() -> appointmentService.createAppointment(appointment(dentistId, LocalTime.of(11, 0))))
+                .isInstanceOf(ConflictException.class);
+    }
+    
+    @Test
+    void otherTransactionsSeeABookingOrCancellationOnlyOnceItCommits() {
+        Long id = appointmentService.createAppointment(appointment(dentistId, LocalTime.of(12, 0))).getId();
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            appointmentService.deleteAppointment(id);
+            appointmentService.createAppointment(appointment(dentistId, LocalTime.of(15, 0)));
+            
+            // Listings still show the committed day...
+            assertThat(freeTime(DAY)).containsExactly(slot(8, 0, 12, 0), slot(12, 30, 18, 0));
+            // ...while another thread can take neither the time being freed nor the time being booked
+            assertThatThrownBy(() -> bookElsewhere(LocalTime.of(12, 0))).hasCauseInstanceOf(ConflictException.class);
+            assertThatThrownBy(() -> bookElsewhere(LocalTime.of(15, 0))).hasCauseInstanceOf(ConflictException.class);
+        });
+        
+        assertThat(freeTime(DAY)).containsExactly(slot(8, 0, 15, 0), slot(15, 30, 18, 0));
+    }
+    
+    @Test
+    void anAppointmentCanBeMovedWithinItsOwnTime() {
+        Long id = appointmentService.createAppointment(appointment(dentistId, LocalTime.of(16, 0))).getId();
+        
+        AppointmentDTO moved = appointment(dentistId, LocalTime.of(16, 15));
+        appointmentService.updateAppointment(id, moved);
+        
+        assertThat(freeTime(DAY)).containsExactly(slot(8, 0, 16, 15), slot(16, 45, 18, 0));
+    }
+    
+    @Test
+    void cancelledRowsAreNotLoadedWhateverTheirCase() {
+        jdbcTemplate.update("INSERT INTO appointments (appointment_date, appointment_time, duration_minutes, appointment_type, " +
+                "status, dentist_id, patient_id, created_at) VALUES (?, ?, 30, 'fitting', 'Cancelled', ?, ?, ?)",
+                DAY, LocalTime.of(14, 0), dentistId, patientId, LocalDateTime.now());
+        
+        schedule.load();
+        
+        appointmentService.createAppointment(appointment(dentistId, LocalTime.of(14, 0)));
+    }
+    
+    @Test
+    void pastDaysAreEvicted() {
+        LocalDate past = LocalDate.now().minusDays(3);
+        schedule.book(new AppointmentSchedule.Booking(-1L, dentistId, past, LocalTime.of(9, 0), 60));
+        assertThat(freeTime(past)).doesNotContain(new FreeSlotDTO(past, LocalTime.of(8, 0), LocalTime.of(18, 0), null, null));
+        
+        assertThat(schedule.evictBefore(LocalDate.now())).isPositive();
+        
+        assertThat(freeTime(past)).containsExactly(new FreeSlotDTO(past, LocalTime.of(8, 0), LocalTime.of(18, 0), null, null));
+    }
+    
+    // Outside any transaction, so the booking applies at once if it is free
+    private void bookElsewhere(LocalTime time) {
+        CompletableFuture.runAsync(() -> schedule.book(new AppointmentSchedule.Booking(-1L, dentistId, DAY, time, 30))).join();
+    }
+    
+    private static FreeSlotDTO slot(int startHour, int startMinute, int endHour, int endMinute) {
+        return new FreeSlotDTO(DAY, LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute), null, null);
+    }
+    
+    private List<FreeSlotDTO> freeTime(LocalDate date) {
+        return schedule.findFreeSlots(dentistId, date, date, 1);
+    }
+    
+    private AppointmentDTO appointment(Long dentistId, LocalTime time) {
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setDentistId(dentistId);
+        dto.setPatientId(patientId);
+        dto.setAppointmentDate(DAY);
+        dto.setAppointmentTime(time);
+        dto.setDurationMinutes(30);
+        dto.setAppointmentType("fitting");
+        dto.setStatus("scheduled");
+        return dto;
+    }
+    
+    private int count(Long dentistId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments WHERE dentist_id = ?", Integer.class, dentistId);
+    }
+    
+    private Long insert(String sql, String table) {
+        String marker = "Schedule " + System.nanoTime();
+        jdbcTemplate.update(sql, marker);
+        return jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE first_name = ?", Long.class, marker);
+    }
+}
@@ -0,0 +1,89 @@
+package com.dentalflow.service;
+
+import com.dentalflow.config.PaginationConfig;
+import com.dentalflow.dto.FreeSlotDTO;
+import com.dentalflow.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceTest {
+    
+    private static final LocalDate DAY = LocalDate.now().plusDays(30);
+    private static final int DURATION = 30;
+    
+    private final AppointmentSchedule schedule = mock(AppointmentSchedule.class);
+    private final ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+    private AppointmentService appointmentService;
+    
+    @BeforeEach
+    void createService() {
+        appointmentService = new AppointmentService(mock(AppointmentRepository.class), mock(EntityReferences.class),
+                referenceDataCache, mock(PaginationConfig.class), schedule);
+        ReflectionTestUtils.setField(appointmentService, "defaultDurationMinutes", DURATION);
+        ReflectionTestUtils.setField(appointmentService, "availabilityMaxDays", 31);
+        ReflectionTestUtils.setField(appointmentService, "maxSearchResults", 50);
+        
+        Map<Long, String> dentists = new LinkedHashMap<>();
+        dentists.put(1L, "Ada One");
+        dentists.put(2L, "Bo Two");
+        dentists.put(3L, "Cy Three");
+        when(referenceDataCache.getDentistNames()).thenReturn(dentists);
+        // Every dentist has free time on the first day; the next day only dentist 1 does, from opening
+        bookable(1L, DAY, LocalTime.of(10, 0));
+        bookable(2L, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0));
+        bookable(3L, DAY, LocalTime.of(9, 0));
+        bookable(1L, DAY.plusDays(1), LocalTime.of(8, 0));
+    }
+    
+    @Test
+    void slotsAreOrderedByTimeThenDentistAndTheSearchStopsAtTheDayThatFillsTheCount() {
+        List<FreeSlotDTO> slots = appointmentService.getFirstAvailable(DAY, null, 3);
+        
+        assertThat(slots).extracting(FreeSlotDTO::getDate, FreeSlotDTO::getStartTime, FreeSlotDTO::getDentistId,
+                FreeSlotDTO::getDentistName).containsExactly(
+                tuple(DAY, LocalTime.of(9, 0), 2L, "Bo Two"),
+                tuple(DAY, LocalTime.of(9, 0), 3L, "Cy Three"),
+                tuple(DAY, LocalTime.of(10, 0), 1L, "Ada One"));
+        verify(schedule, never()).findBookableSlots(anyLong(), eq(DAY.plusDays(1)), anyInt(), any());
+    }
+    
+    @Test
+    void theSearchMovesOnToLaterDaysOnlyUntilTheCountIsFilled() {
+        List<FreeSlotDTO> slots = appointmentService.getFirstAvailable(DAY, null, 5);
+        
+        assertThat(slots).extracting(FreeSlotDTO::getDate, FreeSlotDTO::getStartTime, FreeSlotDTO::getDentistId)
+                .containsExactly(
+                        tuple(DAY, LocalTime.of(9, 0), 2L),
+                        tuple(DAY, LocalTime.of(9, 0), 3L),
+                        tuple(DAY, LocalTime.of(10, 0), 1L),
+                        tuple(DAY, LocalTime.of(10, 0), 2L),
+                        tuple(DAY.plusDays(1), LocalTime.of(8, 0), 1L));
+        verify(schedule, never()).findBookableSlots(anyLong(), eq(DAY.plusDays(2)), anyInt(), any());
+    }
+    
+    private void bookable(Long dentistId, LocalDate date, LocalTime... starts) {
+        List<FreeSlotDTO> slots = Arrays.stream(starts)
+                .map(start -> new FreeSlotDTO(date, start, start.plusMinutes(DURATION), dentistId, null))
+                .toList();
+        when(schedule.findBookableSlots(dentistId, date, DURATION, LocalTime.MIDNIGHT)).thenReturn(slots);
+    }
+}
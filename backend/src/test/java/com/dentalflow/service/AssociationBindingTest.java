@@ -0,0 +1,150 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.AppointmentDTO;
+import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.repository.StatementRecorder;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writes that point at a patient read it once, since the response carries the patient's name, and check
+ * a case the response only identifies by id with a count rather than a load.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementRecorder.Registration.class)
+class AssociationBindingTest {
+    
+    private static final Pattern PATIENTS = Pattern.compile("\\bpatients\\b");
+    private static final Pattern CASES = Pattern.compile("\\bcases\\b");
+    
+    @Autowired
+    private StatementRecorder recorder;
+    
+    @Autowired
+    private CaseService caseService;
+    
+    @Autowired
+    private AppointmentService appointmentService;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Long dentistId;
+    private Long patientId;
+    private Long caseId;
+    
+    @BeforeEach
+    void createParties() {
+        String marker = "Bound " + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO dentists (first_name, last_name) VALUES (?, 'Dentist')", marker);
+        dentistId = jdbcTemplate.queryForObject("SELECT id FROM dentists WHERE first_name = ?", Long.class, marker);
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES (?, 'Patient')", marker);
+        patientId = jdbcTemplate.queryForObject("SELECT id FROM patients WHERE first_name = ?", Long.class, marker);
+        jdbcTemplate.update("INSERT INTO cases (case_number, title, status, dentist_id, patient_id, created_at) " +
+                "VALUES (?, 'Bridge', 'pending', ?, ?, ?)", marker, dentistId, patientId, LocalDateTime.now());
+        caseId = jdbcTemplate.queryForObject("SELECT id FROM cases WHERE case_number = ?", Long.class, marker);
+    }
+    
+    @Test
+    void creatingACaseReadsThePatientOnce() {
+        CaseDTO dto = new CaseDTO();
+        dto.setTitle("Crown");
+        dto.setStatus("pending");
+        dto.setPatientId(patientId);
+        dto.setDentistId(dentistId);
+        AtomicReference<CaseDTO> created = new AtomicReference<>();
+    
+        List<StatementRecorder.RecordedStatement> statements = recorder.record(() -> created.set(caseService.createCase(dto)));
+    
+        assertThat(touching(statements, PATIENTS)).hasSize(1);
+        assertThat(created.get().getPatientName()).endsWith("Patient");
+    }
+    
+    @Test
+    void creatingAnAppointmentReadsThePatientAndCaseOnceEach() {
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setPatientId(patientId);
+        dto.setDentistId(dentistId);
+        dto.setCaseId(caseId);
+        dto.setAppointmentDate(LocalDate.of(2100, 1, 1));
+        dto.setAppointmentTime(LocalTime.of(9, 0));
+        dto.setAppointmentType("try-in");
+        dto.setStatus("scheduled");
+        AtomicReference<AppointmentDTO> created = new AtomicReference<>();
+    
+        List<StatementRecorder.RecordedStatement> statements = recorder.record(
+                () -> created.set(appointmentService.createAppointment(dto)));
+    
+        assertThat(touching(statements, PATIENTS)).hasSize(1);
+        assertThat(touching(statements, CASES)).hasSize(1);
+        assertThat(created.get().getPatientName()).endsWith("Patient");
+        assertThat(created.get().getCaseName()).isEqualTo("Bridge");
+    }
+    
+    @Test
+    void creatingAnInvoiceReadsThePatientOnceAndOnlyCountsTheCase() {
+        AtomicReference<InvoiceDTO> created = new AtomicReference<>();
+    
+        List<StatementRecorder.RecordedStatement> statements = recorder.record(
+                () -> created.set(invoiceService.createInvoice(invoice(patientId, caseId))));
+    
+        assertThat(touching(statements, PATIENTS)).hasSize(1);
+        assertThat(touching(statements, CASES)).singleElement()
+                .satisfies(statement -> assertThat(statement.sql().toLowerCase(Locale.ROOT)).contains("count("));
+        assertThat(created.get().getPatientName()).endsWith("Patient");
+        assertThat(created.get().getCaseId()).isEqualTo(caseId);
+    }
+    
+    @Test
+    void aMissingPatientOrCaseIsRejected() {
+        assertThatThrownBy(() -> invoiceService.createInvoice(invoice(-1L, caseId)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("Patient");
+        assertThatThrownBy(() -> invoiceService.createInvoice(invoice(patientId, -1L)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("Case");
+    }
+    
+    private InvoiceDTO invoice(Long patientId, Long caseId) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setPatientId(patientId);
+        dto.setDentistId(dentistId);
+        dto.setCaseId(caseId);
+        dto.setStatus("unpaid");
+        dto.setIssueDate(LocalDate.now());
+        dto.setDueDate(LocalDate.now().plusDays(30));
+        dto.setItems(List.of(new InvoiceItemDTO(null, "Bridge", 1, new BigDecimal("100.00"), null)));
+        return dto;
+    }
+    
+    private static List<StatementRecorder.RecordedStatement> touching(
+            List<StatementRecorder.RecordedStatement> statements, Pattern table) {
+        return statements.stream()
+                .filter(statement -> table.matcher(statement.sql().toLowerCase(Locale.ROOT)).find())
+                .toList();
+    }
+}
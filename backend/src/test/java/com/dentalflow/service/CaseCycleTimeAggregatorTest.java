@@ -0,0 +1,159 @@
+package com.dentalflow.service;
+
+import com.dentalflow.event.CaseDeletedEvent;
+import com.dentalflow.event.CaseStatusChangedEvent;
+import com.dentalflow.model.CaseStatusTransition;
+import com.dentalflow.repository.CaseRepository;
+import com.dentalflow.repository.CaseStatusTransitionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CaseCycleTimeAggregatorTest {
+    
+    private static final YearMonth JANUARY = YearMonth.of(2030, 1);
+    private static final LocalDateTime START = JANUARY.atDay(1).atStartOfDay();
+    private static final long DENTIST = 7L;
+    
+    private final CaseStatusTransitionRepository transitionRepository = mock(CaseStatusTransitionRepository.class);
+    private final CaseRepository caseRepository = mock(CaseRepository.class);
+    private final CaseCycleTimeAggregator aggregator = new CaseCycleTimeAggregator(transitionRepository, caseRepository);
+    private long nextTransitionId = 1;
+    
+    @Test
+    void dwellAndTurnaroundAreMeasuredBetweenTransitions() {
+        transition(1, null, "new", START);
+        transition(1, "new", "in progress", START.plusHours(2));
+        transition(1, "in progress", "completed", START.plusDays(1));
+        transition(2, null, "new", START);
+        transition(2, "new", "completed", START.plusDays(3));
+        
+        Map<String, CaseCycleTimeAggregator.Stats> dwell = aggregator.getDwellByStatus(JANUARY, JANUARY);
+        assertThat(dwell).containsOnlyKeys("new", "in progress");
+        assertThat(dwell.get("new").getCount()).isEqualTo(2);
+        assertThat(dwell.get("new").getMean()).isEqualTo((2 * 3600 + 3 * 86_400) / 2.0);
+        assertThat(dwell.get("in progress").getMean()).isEqualTo(22 * 3600);
+        
+        CaseCycleTimeAggregator.Stats turnaround = aggregator.getTurnaroundByMonth(JANUARY, JANUARY).get(JANUARY);
+        assertThat(turnaround.getCount()).isEqualTo(2);
+        assertThat(turnaround.getMean()).isEqualTo(2 * 86_400);
+        assertThat(turnaround.quantile(0)).isCloseTo(86_400, within(864.0));
+        assertThat(turnaround.quantile(1)).isCloseTo(3 * 86_400, within(3 * 864.0));
+        assertThat(aggregator.getTurnaroundByDentist(JANUARY, JANUARY).get(DENTIST).getCount()).isEqualTo(2);
+        assertThat(openCases()).isEmpty();
+    }
+    
+    @Test
+    void statisticsAreBucketedByTheMonthTheyEnded() {
+        transition(1, null, "new", START.plusDays(30));
+        transition(1, "new", "completed", START.plusDays(33));
+        YearMonth february = JANUARY.plusMonths(1);
+        
+        assertThat(aggregator.getTurnaroundByMonth(JANUARY, JANUARY)).isEmpty();
+        assertThat(aggregator.getTurnaroundByMonth(JANUARY, february)).containsOnlyKeys(february);
+        assertThat(aggregator.getDwellByStatus(february, february).get("new").getMean()).isEqualTo(3 * 86_400);
+    }
+    
+    @Test
+    void deliveredCasesAreNotKept() {
+        transition(1, null, "new", START);
+        transition(1, "new", "completed", START.plusDays(1));
+        transition(1, "completed", "delivered", START.plusDays(2));
+        transition(2, null, "new", START);
+        transition(2, "new", "delivered", START.plusDays(4));
+        
+        assertThat(openCases()).isEmpty();
+        assertThat(aggregator.getDwellByStatus(JANUARY, JANUARY)).doesNotContainKeys("completed", "delivered");
+        // A case delivered without being marked completed first still ends its turnaround
+        assertThat(aggregator.getTurnaroundByMonth(JANUARY, JANUARY).get(JANUARY).getCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void deletedCasesAreEvicted() {
+        when(transitionRepository.streamAll()).thenReturn(Stream.empty());
+        aggregator.replay();
+        transition(1, null, "new", START);
+        transition(2, null, "new", START);
+        
+        aggregator.onCaseDeleted(new CaseDeletedEvent(1L));
+        
+        assertThat(openCases()).containsOnlyKeys(2L);
+    }
+    
+    @Test
+    void replaySkipsSeenTransitionsAndDropsDeletedCases() {
+        List<CaseStatusTransition> log = List.of(
+                newTransition(1, null, "new", START),
+                newTransition(2, null, "new", START),
+                newTransition(1, "new", "in progress", START.plusHours(1)));
+        when(transitionRepository.streamAll()).thenReturn(log.stream());
+        when(caseRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        
+        aggregator.replay();
+        // Committed during the replay, so delivered once more by its event
+        aggregator.apply(log.get(2));
+        
+        assertThat(openCases()).containsOnlyKeys(1L);
+        assertThat(aggregator.getDwellByStatus(JANUARY, JANUARY).get("new").getCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void liveEventsArrivingDuringTheReplayAreAppliedAfterIt() {
+        CaseStatusTransition created = newTransition(1, null, "new", START);
+        CaseStatusTransition started = newTransition(1, "new", "in progress", START.plusHours(1));
+        CaseStatusTransition completed = newTransition(1, "in progress", "completed", START.plusHours(3));
+        // Both later transitions commit while the replay is on the first entry; only "started" made it into the log read
+        when(transitionRepository.streamAll()).thenReturn(Stream.of(created, started).peek(transition -> {
+            if (transition == created) {
+                aggregator.onCaseStatusChanged(new CaseStatusChangedEvent(started));
+                aggregator.onCaseStatusChanged(new CaseStatusChangedEvent(completed));
+            }
+        }));
+        when(caseRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        
+        aggregator.replay();
+        
+        Map<String, CaseCycleTimeAggregator.Stats> dwell = aggregator.getDwellByStatus(JANUARY, JANUARY);
+        assertThat(dwell.get("new").getCount()).isEqualTo(1);
+        assertThat(dwell.get("new").getMean()).isEqualTo(3600);
+        assertThat(dwell.get("in progress").getMean()).isEqualTo(2 * 3600);
+        assertThat(aggregator.getTurnaroundByMonth(JANUARY, JANUARY).get(JANUARY).getCount()).isEqualTo(1);
+        assertThat(openCases()).isEmpty();
+        
+        // Once replayed, events apply straight away
+        CaseStatusTransition reopened = newTransition(1, "completed", "in progress", START.plusHours(4));
+        aggregator.onCaseStatusChanged(new CaseStatusChangedEvent(reopened));
+        assertThat(openCases()).containsOnlyKeys(1L);
+    }
+    
+    private void transition(long caseId, String from, String to, LocalDateTime at) {
+        aggregator.apply(newTransition(caseId, from, to, at));
+    }
+    
+    private CaseStatusTransition newTransition(long caseId, String from, String to, LocalDateTime at) {
+        CaseStatusTransition transition = new CaseStatusTransition();
+        transition.setId(nextTransitionId++);
+        transition.setCaseId(caseId);
+        transition.setDentistId(DENTIST);
+        transition.setFromStatus(from);
+        transition.setToStatus(to);
+        transition.setChangedAt(at);
+        return transition;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> openCases() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(aggregator, "cases");
+    }
+}
@@ -0,0 +1,250 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.event.MessageSentEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CaseMessageBroadcasterTest {
+    
+    // The production messages.push.pool-size; the subscriber queue is kept shorter than production's
+    private static final int PUSH_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final long SEND_TIME_LIMIT_MILLIS = 300;
+    
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+    private final List<Thread> sendingThreads = new CopyOnWriteArrayList<>();
+    
+    @AfterEach
+    void stopExecutors() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+    
+    @Test
+    void aSlowSubscriberIsDroppedWithoutHoldingBackTheOthers() throws Exception {
+        CaseMessageBroadcaster broadcaster = broadcaster(PUSH_THREADS, 64, QUEUE_CAPACITY);
+        // The slow subscriber's first send does not return until released, so its queue fills up behind it
+        CountDownLatch stuck = new CountDownLatch(1);
+        WebSocketSession slow = session("slow");
+        doAnswer(invocation -> {
+            stuck.await();
+            return null;
+        }).when(slow).sendMessage(any());
+        List<String> fastFrames = new CopyOnWriteArrayList<>();
+        WebSocketSession fast = recordingSession("fast", fastFrames);
+        broadcaster.subscribe("case-1", slow);
+        broadcaster.subscribe("case-1", fast);
+    
+        int messages = QUEUE_CAPACITY + 3;
+        try {
+            // Paced so that only the slow subscriber falls behind
+            for (int i = 0; i < messages; i++) {
+                broadcaster.onMessageSent(new MessageSentEvent(message("case-1", "update " + i)));
+                awaitFrames(fastFrames, i + 1);
+            }
+    
+            assertThat(fastFrames).hasSize(messages);
+            for (int i = 0; i < messages; i++) {
+                assertThat(fastFrames.get(i)).contains("update " + i);
+            }
+        } finally {
+            stuck.countDown();
+        }
+    
+        // Closed by its push thread once the send in flight returns, and sent nothing after being dropped
+        verify(slow, timeout(5_000)).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        verify(slow, times(1)).sendMessage(any());
+        verify(fast, never()).close(any());
+        assertThat(sendingThreads).doesNotContain(Thread.currentThread());
+    }
+    
+    @Test
+    void moreStalledSubscribersThanPushThreadsDoNotStopDeliveryOrBlockPublishing() throws Exception {
+        CaseMessageBroadcaster broadcaster = broadcaster(PUSH_THREADS, 64, 16);
+        // Each stalled send gives up after the send time limit, as the container's blocking send does
+        List<WebSocketSession> stalled = new ArrayList<>();
+        for (int i = 0; i < PUSH_THREADS + 2; i++) {
+            WebSocketSession session = session("stalled-" + i);
+            doAnswer(invocation -> {
+                sendingThreads.add(Thread.currentThread());
+                Thread.sleep(SEND_TIME_LIMIT_MILLIS);
+                throw new IOException("Send timed out");
+            }).when(session).sendMessage(any());
+            broadcaster.subscribe("case-1", session);
+            stalled.add(session);
+        }
+        List<String> fastFrames = new CopyOnWriteArrayList<>();
+        WebSocketSession fast = recordingSession("fast", fastFrames);
+        broadcaster.subscribe("case-1", fast);
+    
+        int messages = 10;
+        long started = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            broadcaster.onMessageSent(new MessageSentEvent(message("case-1", "update " + i)));
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    
+        assertThat(publishMillis).as("publishing time").isLessThan(SEND_TIME_LIMIT_MILLIS);
+        awaitFrames(fastFrames, messages);
+        assertThat(fastFrames).hasSize(messages);
+        for (int i = 0; i < messages; i++) {
+            assertThat(fastFrames.get(i)).contains("update " + i);
+        }
+        for (WebSocketSession session : stalled) {
+            verify(session, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+            verify(session, times(1)).sendMessage(any());
+        }
+        verify(fast, never()).close(any());
+        assertThat(sendingThreads).doesNotContain(Thread.currentThread());
+    }
+    
+    @Test
+    void aSubscriberIsDroppedRatherThanSentToOnThePublishingThreadWhenTheBacklogIsFull() throws Exception {
+        // One push thread, held by a stalled subscriber, and room in the backlog for one more drain
+        CaseMessageBroadcaster broadcaster = broadcaster(1, 1, QUEUE_CAPACITY);
+        CountDownLatch stuck = new CountDownLatch(1);
+        WebSocketSession stalled = session("stalled");
+        doAnswer(invocation -> {
+            sendingThreads.add(Thread.currentThread());
+            stuck.await();
+            return null;
+        }).when(stalled).sendMessage(any());
+        List<String> frames = new CopyOnWriteArrayList<>();
+        WebSocketSession first = recordingSession("first", frames);
+        WebSocketSession second = recordingSession("second", frames);
+        broadcaster.subscribe("case-1", stalled);
+        try {
+            broadcaster.onMessageSent(new MessageSentEvent(message("case-1", "before")));
+            awaitSendStarted();
+            broadcaster.subscribe("case-1", first);
+            broadcaster.subscribe("case-1", second);
+    
+            broadcaster.onMessageSent(new MessageSentEvent(message("case-1", "after")));
+    
+            // Whichever of the two was offered the message second found the backlog full
+            assertThat(closedWith(first, CloseStatus.SERVICE_OVERLOAD) + closedWith(second, CloseStatus.SERVICE_OVERLOAD))
+                    .isEqualTo(1);
+            assertThat(frames).isEmpty();
+        } finally {
+            stuck.countDown();
+        }
+        awaitFrames(frames, 1);
+        assertThat(frames).singleElement().asString().contains("after");
+        verify(stalled, never()).close(any());
+        assertThat(sendingThreads).doesNotContain(Thread.currentThread());
+    }
+    
+    @Test
+    void onlySubscribersOfTheMessagesCaseReceiveIt() throws Exception {
+        ThreadPoolTaskExecutor executor = executor(PUSH_THREADS, 64);
+        CaseMessageBroadcaster broadcaster = new CaseMessageBroadcaster(new ObjectMapper(), executor, QUEUE_CAPACITY,
+                SEND_TIME_LIMIT_MILLIS);
+        WebSocketSession subscriber = session("subscriber");
+        WebSocketSession otherCase = session("other");
+        WebSocketSession unsubscribed = session("gone");
+        broadcaster.subscribe("case-1", subscriber);
+        broadcaster.subscribe("case-2", otherCase);
+        broadcaster.subscribe("case-1", unsubscribed);
+        broadcaster.unsubscribe("case-1", unsubscribed);
+    
+        broadcaster.onMessageSent(new MessageSentEvent(message("case-1", "hello")));
+        broadcaster.onMessageSent(new MessageSentEvent(message(null, "direct")));
+    
+        verify(subscriber, timeout(5_000)).sendMessage(argThat(frame -> frame.getPayload().toString().contains("hello")));
+        executor.getThreadPoolExecutor().shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        verify(subscriber).sendMessage(any());
+        verify(otherCase, never()).sendMessage(any());
+        verify(unsubscribed, never()).sendMessage(any());
+    }
+    
+    private CaseMessageBroadcaster broadcaster(int pushThreads, int backlog, int queueCapacity) {
+        return new CaseMessageBroadcaster(new ObjectMapper(), executor(pushThreads, backlog), queueCapacity,
+                SEND_TIME_LIMIT_MILLIS);
+    }
+    
+    // Configured as ExecutorConfig.messagePushExecutor is
+    private ThreadPoolTaskExecutor executor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+    
+    private static int closedWith(WebSocketSession session, CloseStatus status) {
+        return (int) mockingDetails(session).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("close"))
+                .filter(invocation -> ((CloseStatus) invocation.getArgument(0)).getCode() == status.getCode())
+                .count();
+    }
+    
+    private void awaitSendStarted() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sendingThreads.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(sendingThreads).isNotEmpty();
+    }
+    
+    private static void awaitFrames(List<String> frames, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (frames.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+    
+    private WebSocketSession recordingSession(String id, List<String> frames) throws IOException {
+        WebSocketSession session = session(id);
+        doAnswer(invocation -> {
+            sendingThreads.add(Thread.currentThread());
+            frames.add(invocation.<TextMessage>getArgument(0).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+    
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+    
+    private static MessageDTO message(String caseId, String content) {
+        MessageDTO message = new MessageDTO();
+        message.setId(String.valueOf(content.hashCode()));
+        message.setSenderId("sender");
+        message.setReceiverId("receiver");
+        message.setCaseId(caseId);
+        message.setContent(content);
+        return message;
+    }
+}
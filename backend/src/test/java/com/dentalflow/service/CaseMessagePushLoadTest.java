@@ -0,0 +1,104 @@
+package com.dentalflow.service;
+
+import com.dentalflow.config.JwtConfig;
+import com.dentalflow.dto.MessageDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thousands of WebSocket subscribers on one case, each of which must receive a posted message.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class CaseMessagePushLoadTest {
+    
+    private static final int SUBSCRIBERS = 2_000;
+    private static final String CASE_ID = "push-load";
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private JwtConfig jwtConfig;
+    
+    @Autowired
+    private MessageService messageService;
+    
+    @Autowired
+    private CaseMessageBroadcaster broadcaster;
+    
+    @Test
+    void everySubscriberReceivesAPostedMessage() throws Exception {
+        String url = "ws://localhost:" + port + "/ws/cases/" + CASE_ID + "/messages?token="
+                + jwtConfig.generateToken("push-load", "technician");
+        CountDownLatch received = new CountDownLatch(SUBSCRIBERS);
+        TextWebSocketHandler client = new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                if (message.getPayload().contains("Impression received")) {
+                    received.countDown();
+                }
+            }
+        };
+    
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        List<CompletableFuture<WebSocketSession>> connecting = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            connecting.add(webSocketClient.execute(client, url));
+        }
+        List<WebSocketSession> sessions = new ArrayList<>();
+        try {
+            for (CompletableFuture<WebSocketSession> session : connecting) {
+                sessions.add(session.get(30, TimeUnit.SECONDS));
+            }
+            awaitSubscribers(SUBSCRIBERS);
+    
+            MessageDTO message = new MessageDTO();
+            message.setSenderId("push-load-sender");
+            message.setReceiverId("push-load-receiver");
+            message.setCaseId(CASE_ID);
+            message.setContent("Impression received");
+            long sent = System.nanoTime();
+            messageService.sendMessage(message);
+    
+            assertThat(received.await(30, TimeUnit.SECONDS))
+                    .as("%d of %d subscribers received the message", SUBSCRIBERS - received.getCount(), SUBSCRIBERS)
+                    .isTrue();
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - sent)).isLessThan(30);
+        } finally {
+            for (WebSocketSession session : sessions) {
+                session.close();
+            }
+        }
+    }
+    
+    // The server registers a subscriber after the handshake the client has already seen complete
+    @SuppressWarnings("unchecked")
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        Map<String, Set<?>> subscribersByCase =
+                (Map<String, Set<?>>) ReflectionTestUtils.getField(broadcaster, "subscribersByCase");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (subscribersByCase.getOrDefault(CASE_ID, Set.of()).size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(subscribersByCase.getOrDefault(CASE_ID, Set.of())).hasSize(expected);
+    }
+}
@@ -0,0 +1,150 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.InventoryItem;
+import com.dentalflow.model.Patient;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.InventoryItemRepository;
+import com.dentalflow.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CaseServiceTest {
+    
+    private static final int THREADS = 8;
+    
+    @Autowired
+    private CaseService caseService;
+    
+    @Autowired
+    private BillOfMaterialsService billOfMaterialsService;
+    
+    @Autowired
+    private InventoryItemRepository itemRepository;
+    
+    @Autowired
+    private DentistRepository dentistRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void concurrentCompletionsDeductTheBillOfMaterialsOnce() throws Exception {
+        Long itemId = itemInBillOfMaterials("concurrent-crown");
+        Long caseId = caseService.createCase(newCase("concurrent-crown")).getId();
+        
+        List<String> statuses = Concurrently.run(THREADS,
+                () -> caseService.updateStatus(caseId, CaseCycleTimeAggregator.COMPLETED).getStatus());
+        
+        assertThat(statuses).containsOnly(CaseCycleTimeAggregator.COMPLETED);
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(97);
+        assertThat(movements(caseId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM case_status_transitions WHERE case_id = ? AND to_status = ?",
+                Integer.class, caseId, CaseCycleTimeAggregator.COMPLETED)).isEqualTo(1);
+    }
+    
+    @Test
+    void completingAReopenedCaseDoesNotDeductAgain() {
+        Long itemId = itemInBillOfMaterials("reopened-crown");
+        Long caseId = caseService.createCase(newCase("reopened-crown")).getId();
+        
+        caseService.updateStatus(caseId, CaseCycleTimeAggregator.COMPLETED);
+        caseService.updateStatus(caseId, "in_progress");
+        caseService.updateStatus(caseId, CaseCycleTimeAggregator.COMPLETED);
+        
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(97);
+        assertThat(movements(caseId)).isEqualTo(1);
+    }
+    
+    @Test
+    void anEditWithoutACaseTypeKeepsTheStoredOne() {
+        Long itemId = itemInBillOfMaterials("edited-crown");
+        CaseDTO created = caseService.createCase(newCase("edited-crown"));
+        
+        // As the case form sends it: every field it shows, but no type
+        CaseDTO edit = newCase(null);
+        edit.setTitle("Crown 14, shade A2");
+        edit.setStatus(CaseCycleTimeAggregator.COMPLETED);
+        edit.setDentistId(created.getDentistId());
+        edit.setPatientId(created.getPatientId());
+        CaseDTO updated = caseService.updateCase(created.getId(), edit);
+        
+        assertThat(updated.getCaseType()).isEqualTo("edited-crown");
+        assertThat(itemRepository.findById(itemId).orElseThrow().getQuantity()).isEqualTo(97);
+        assertThat(movements(created.getId())).isEqualTo(1);
+    }
+    
+    @Test
+    void dueCasesAreListedForAtMostACalendarsSpan() {
+        LocalDate day = LocalDate.of(2160, 1, 10);
+        Long onTheDay = caseDue(day);
+        Long lastDay = caseDue(day.plusDays(62));
+        caseDue(day.plusDays(63));
+        
+        assertThat(caseService.getCasesDueBetween(day, day.plusDays(62)))
+                .extracting(CaseDTO::getId).containsExactly(onTheDay, lastDay);
+        assertThatThrownBy(() -> caseService.getCasesDueBetween(day, day.plusDays(63)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> caseService.getCasesDueBetween(LocalDate.of(1900, 1, 1), LocalDate.of(2999, 12, 31)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> caseService.getCasesDueBetween(day, day.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private Long caseDue(LocalDate dueDate) {
+        CaseDTO dto = newCase(null);
+        dto.setDueDate(dueDate);
+        return caseService.createCase(dto).getId();
+    }
+    
+    private Long itemInBillOfMaterials(String caseType) {
+        InventoryItem item = new InventoryItem();
+        item.setName("Zirconia blank");
+        item.setQuantity(100);
+        item.setUnitPrice(new BigDecimal("40.00"));
+        item.setReorderLevel(5);
+        item.setUnit("piece");
+        Long itemId = itemRepository.save(item).getId();
+        billOfMaterialsService.replaceBillOfMaterials(caseType, List.of(new StockChangeDTO.LineDTO(itemId, 3, null)));
+        return itemId;
+    }
+    
+    private int movements(Long caseId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_movements WHERE case_id = ?", Integer.class, caseId);
+    }
+    
+    private CaseDTO newCase(String caseType) {
+        Dentist dentist = new Dentist();
+        dentist.setFirstName("Ada");
+        dentist.setLastName("Completion");
+        Patient patient = new Patient();
+        patient.setFirstName("Pat");
+        patient.setLastName("Completion");
+        
+        CaseDTO dto = new CaseDTO();
+        dto.setTitle("Crown 14");
+        dto.setStatus("in_progress");
+        dto.setCaseType(caseType);
+        dto.setDentistId(dentistRepository.save(dentist).getId());
+        dto.setPatientId(patientRepository.save(patient).getId());
+        return dto;
+    }
+}
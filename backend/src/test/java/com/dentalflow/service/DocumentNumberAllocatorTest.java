@@ -0,0 +1,111 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.Patient;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DocumentNumberAllocatorTest {
+    
+    private static final int THREADS = 16;
+    private static final int INVOICES_PER_THREAD = 250;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private DocumentNumberAllocator allocator;
+    
+    @Autowired
+    private DentistRepository dentistRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    @Qualifier("numberingDataSource")
+    private DataSource numberingDataSource;
+    
+    @Test
+    void concurrentInvoiceCreationNeverReusesANumber() throws Exception {
+        Dentist dentist = new Dentist();
+        dentist.setFirstName("Ada");
+        dentist.setLastName("Numbering");
+        dentist = dentistRepository.save(dentist);
+        Patient patient = new Patient();
+        patient.setFirstName("Pat");
+        patient.setLastName("Numbering");
+        patient = patientRepository.save(patient);
+        Long dentistId = dentist.getId();
+        Long patientId = patient.getId();
+    
+        List<String> numbers = flatten(Concurrently.run(THREADS, () -> {
+            List<String> created = new ArrayList<>();
+            for (int i = 0; i < INVOICES_PER_THREAD; i++) {
+                created.add(invoiceService.createInvoice(invoice(patientId, dentistId)).getInvoiceNumber());
+            }
+            return created;
+        }));
+    
+        int expected = THREADS * INVOICES_PER_THREAD;
+        assertThat(numbers).hasSize(expected).doesNotHaveDuplicates()
+                .allMatch(number -> number.matches("INV-" + LocalDate.now().getYear() + "-\\d{6}"));
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM invoices WHERE dentist_id = ?", Integer.class, dentistId);
+        assertThat(stored).isEqualTo(expected);
+    }
+    
+    @Test
+    void nodesSharingTheCounterRowHandOutDisjointNumbers() throws Exception {
+        // A second allocator over the same counter table stands in for another node; the small
+        // block makes both refill often, so their reservations interleave
+        DocumentNumberAllocator otherNode = new DocumentNumberAllocator(numberingDataSource, 7);
+    
+        List<String> numbers = flatten(Concurrently.run(THREADS, () -> {
+            List<String> allocated = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                allocated.add((i % 2 == 0 ? allocator : otherNode).next("TEST"));
+            }
+            return allocated;
+        }));
+    
+        assertThat(numbers).hasSize(THREADS * 2_000).doesNotHaveDuplicates();
+    }
+    
+    private static InvoiceDTO invoice(Long patientId, Long dentistId) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setPatientId(patientId);
+        dto.setDentistId(dentistId);
+        dto.setStatus("unpaid");
+        dto.setIssueDate(LocalDate.now());
+        dto.setDueDate(LocalDate.now().plusDays(30));
+        dto.setItems(List.of(new InvoiceItemDTO(null, "Crown", 1, new BigDecimal("100.00"), null)));
+        return dto;
+    }
+    
+    private static List<String> flatten(List<List<String>> perThread) {
+        return perThread.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,289 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.DentistDTO;
+import com.dentalflow.dto.InventoryItemDTO;
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.dto.PatientDTO;
+import com.dentalflow.model.Case;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.InventoryCategory;
+import com.dentalflow.model.InventoryItem;
+import com.dentalflow.model.Invoice;
+import com.dentalflow.model.InvoiceItem;
+import com.dentalflow.model.Message;
+import com.dentalflow.model.Patient;
+import com.dentalflow.model.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-row cost of mapping each entity to its DTO: before, with BeanUtils.copyProperties followed by the
+ * derived fields, as the services did; after, with the services' explicit mappers. Not run by surefire;
+ * see the README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+    
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    private CaseService caseService;
+    private InvoiceService invoiceService;
+    private PatientService patientService;
+    private DentistService dentistService;
+    private InventoryService inventoryService;
+    private MessageService messageService;
+    
+    private Case caseEntity;
+    private Invoice invoice;
+    private Patient patient;
+    private Dentist dentist;
+    private InventoryItem inventoryItem;
+    private Message message;
+    
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        caseService = withoutCollaborators(CaseService.class);
+        invoiceService = withoutCollaborators(InvoiceService.class);
+        patientService = withoutCollaborators(PatientService.class);
+        dentistService = withoutCollaborators(DentistService.class);
+        inventoryService = withoutCollaborators(InventoryService.class);
+        messageService = withoutCollaborators(MessageService.class);
+    
+        LocalDateTime now = LocalDateTime.now();
+        dentist = new Dentist();
+        dentist.setId(1L);
+        dentist.setFirstName("Ada");
+        dentist.setLastName("Lovelace");
+        dentist.setEmail("ada@example.com");
+        dentist.setPhone("555-0100");
+        dentist.setAddress("1 Main Street");
+        dentist.setCreatedAt(now);
+        dentist.setUpdatedAt(now);
+    
+        patient = new Patient();
+        patient.setId(2L);
+        patient.setFirstName("Grace");
+        patient.setLastName("Hopper");
+        patient.setEmail("grace@example.com");
+        patient.setPhone("555-0101");
+        patient.setAddress("2 Main Street");
+        patient.setDentist(dentist);
+        patient.setCreatedAt(now);
+        patient.setUpdatedAt(now);
+    
+        caseEntity = new Case();
+        caseEntity.setId(3L);
+        caseEntity.setCaseNumber("CASE-000003");
+        caseEntity.setTitle("Upper crown");
+        caseEntity.setDescription("Zirconia crown, shade A2");
+        caseEntity.setStatus("in_progress");
+        caseEntity.setPriority("normal");
+        caseEntity.setCaseType("crown");
+        caseEntity.setPatient(patient);
+        caseEntity.setDentist(dentist);
+        caseEntity.setDueDate(LocalDate.now().plusDays(7));
+        caseEntity.setCreatedAt(now);
+        caseEntity.setUpdatedAt(now);
+    
+        invoice = new Invoice();
+        invoice.setId(4L);
+        invoice.setInvoiceNumber("INV-000004");
+        invoice.setStatus("unpaid");
+        invoice.setPatient(patient);
+        invoice.setDentist(dentist);
+        invoice.setCaseRef(caseEntity);
+        invoice.setAmount(new BigDecimal("300.00"));
+        invoice.setTax(new BigDecimal("30.00"));
+        invoice.setTotal(new BigDecimal("330.00"));
+        invoice.setNotes("Net 30");
+        invoice.setIssueDate(LocalDate.now());
+        invoice.setDueDate(LocalDate.now().plusDays(30));
+        invoice.setCreatedAt(now);
+        invoice.setUpdatedAt(now);
+        for (long i = 0; i < 3; i++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setId(10L + i);
+            item.setInvoice(invoice);
+            item.setDescription("Unit " + i);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("100.00"));
+            item.setAmount(new BigDecimal("100.00"));
+            item.setCreatedAt(now);
+            item.setUpdatedAt(now);
+            invoice.getItems().add(item);
+        }
+    
+        InventoryCategory category = new InventoryCategory();
+        category.setId(5L);
+        category.setName("Ceramics");
+        Supplier supplier = new Supplier();
+        supplier.setId(6L);
+        supplier.setName("Dental Supply Co");
+        inventoryItem = new InventoryItem();
+        inventoryItem.setId(7L);
+        inventoryItem.setName("Zirconia disc");
+        inventoryItem.setDescription("98 mm, 14 mm thick");
+        inventoryItem.setQuantity(40);
+        inventoryItem.setUnitPrice(new BigDecimal("85.00"));
+        inventoryItem.setReorderLevel(10);
+        inventoryItem.setUnit("disc");
+        inventoryItem.setCategory(category);
+        inventoryItem.setSupplier(supplier);
+        inventoryItem.setLastOrdered(LocalDate.now());
+        inventoryItem.setCreatedAt(now);
+        inventoryItem.setUpdatedAt(now);
+    
+        message = new Message();
+        message.setId(8L);
+        message.setSenderId("ada");
+        message.setReceiverId("grace");
+        message.setContent("Impression received");
+        message.setCaseId("3");
+        message.setTimestamp(now);
+        message.setUpdatedAt(now);
+    }
+    
+    // The mappers touch none of a service's collaborators
+    private static <T> T withoutCollaborators(Class<T> service) throws ReflectiveOperationException {
+        Constructor<?> constructor = service.getConstructors()[0];
+        return service.cast(constructor.newInstance(new Object[constructor.getParameterCount()]));
+    }
+    
+    @Benchmark
+    public CaseDTO caseReflective() {
+        CaseDTO dto = new CaseDTO();
+        BeanUtils.copyProperties(caseEntity, dto);
+        dto.setPatientId(caseEntity.getPatient().getId());
+        dto.setPatientName(caseEntity.getPatient().getFirstName() + " " + caseEntity.getPatient().getLastName());
+        dto.setDentistId(caseEntity.getDentist().getId());
+        dto.setDentistName(caseEntity.getDentist().getFirstName() + " " + caseEntity.getDentist().getLastName());
+        dto.setCreatedAt(caseEntity.getCreatedAt().format(DATE_TIME_FORMATTER));
+        dto.setUpdatedAt(caseEntity.getUpdatedAt().format(DATE_TIME_FORMATTER));
+        return dto;
+    }
+    
+    @Benchmark
+    public CaseDTO caseExplicit() {
+        return caseService.convertToDTO(caseEntity);
+    }
+    
+    @Benchmark
+    public InvoiceDTO invoiceReflective() {
+        InvoiceDTO dto = new InvoiceDTO();
+        BeanUtils.copyProperties(invoice, dto);
+        dto.setPatientId(invoice.getPatient().getId());
+        dto.setPatientName(invoice.getPatient().getFirstName() + " " + invoice.getPatient().getLastName());
+        dto.setDentistId(invoice.getDentist().getId());
+        dto.setDentistName(invoice.getDentist().getFirstName() + " " + invoice.getDentist().getLastName());
+        dto.setCaseId(invoice.getCaseRef().getId());
+        dto.setCreatedAt(invoice.getCreatedAt().format(DATE_TIME_FORMATTER));
+        dto.setUpdatedAt(invoice.getUpdatedAt().format(DATE_TIME_FORMATTER));
+        dto.setItems(invoice.getItems().stream()
+                .map(item -> {
+                    InvoiceItemDTO itemDTO = new InvoiceItemDTO();
+                    BeanUtils.copyProperties(item, itemDTO);
+                    return itemDTO;
+                })
+                .collect(Collectors.toList()));
+        return dto;
+    }
+    
+    @Benchmark
+    public InvoiceDTO invoiceExplicit() {
+        return invoiceService.convertToDTO(invoice);
+    }
+    
+    @Benchmark
+    public PatientDTO patientReflective() {
+        PatientDTO dto = new PatientDTO();
+        BeanUtils.copyProperties(patient, dto);
+        dto.setDentistId(patient.getDentist().getId());
+        dto.setDentistName(patient.getDentist().getFirstName() + " " + patient.getDentist().getLastName());
+        return dto;
+    }
+    
+    @Benchmark
+    public PatientDTO patientExplicit() {
+        return patientService.convertToDTO(patient);
+    }
+    
+    @Benchmark
+    public DentistDTO dentistReflective() {
+        DentistDTO dto = new DentistDTO();
+        BeanUtils.copyProperties(dentist, dto);
+        return dto;
+    }
+    
+    @Benchmark
+    public DentistDTO dentistExplicit() {
+        return dentistService.convertToDTO(dentist);
+    }
+    
+    @Benchmark
+    public InventoryItemDTO inventoryItemReflective() {
+        InventoryItemDTO dto = new InventoryItemDTO();
+        BeanUtils.copyProperties(inventoryItem, dto);
+        dto.setCategoryId(inventoryItem.getCategory().getId());
+        dto.setCategoryName(inventoryItem.getCategory().getName());
+        dto.setSupplierId(inventoryItem.getSupplier().getId());
+        dto.setSupplierName(inventoryItem.getSupplier().getName());
+        dto.setLastOrdered(inventoryItem.getLastOrdered().format(DATE_FORMATTER));
+        dto.setCreatedAt(inventoryItem.getCreatedAt().toString());
+        dto.setUpdatedAt(inventoryItem.getUpdatedAt().toString());
+        return dto;
+    }
+    
+    @Benchmark
+    public InventoryItemDTO inventoryItemExplicit() {
+        return inventoryService.convertToDTO(inventoryItem);
+    }
+    
+    @Benchmark
+    public MessageDTO messageReflective() {
+        MessageDTO dto = new MessageDTO();
+        BeanUtils.copyProperties(message, dto);
+        dto.setId(message.getId().toString());
+        dto.setTimestamp(message.getTimestamp().format(DATE_TIME_FORMATTER));
+        return dto;
+    }
+    
+    @Benchmark
+    public MessageDTO messageExplicit() {
+        return messageService.convertToMessageDTO(message);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,224 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.CaseDTO;
+import com.dentalflow.dto.DentistDTO;
+import com.dentalflow.dto.InventoryItemDTO;
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.dto.PatientDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Every DTO written through a service and read back carries the same fields, plus the derived ones:
+ * party names, formatted timestamps and string message ids.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DtoMappingTest {
+    
+    private static final String DATE_TIME = "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}";
+    
+    @Autowired
+    private DentistService dentistService;
+    
+    @Autowired
+    private PatientService patientService;
+    
+    @Autowired
+    private CaseService caseService;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private MessageService messageService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private DentistDTO dentist;
+    private PatientDTO patient;
+    
+    @BeforeEach
+    void createParties() {
+        DentistDTO newDentist = new DentistDTO();
+        newDentist.setFirstName("Grace");
+        newDentist.setLastName("Mapping");
+        newDentist.setEmail("grace@example.com");
+        newDentist.setPhone("555-0100");
+        newDentist.setAddress("1 Molar Way");
+        dentist = dentistService.createDentist(newDentist);
+    
+        PatientDTO newPatient = new PatientDTO();
+        newPatient.setFirstName("Alan");
+        newPatient.setLastName("Mapped");
+        newPatient.setEmail("alan@example.com");
+        newPatient.setPhone("555-0101");
+        newPatient.setAddress("2 Incisor Road");
+        newPatient.setDentistId(dentist.getId());
+        patient = patientService.createPatient(newPatient);
+    }
+    
+    @Test
+    void dentistsAndPatientsRoundTrip() {
+        assertThat(read(() -> dentistService.getDentistById(dentist.getId())))
+                .usingRecursiveComparison().isEqualTo(dentist);
+        assertThat(dentist.getAddress()).isEqualTo("1 Molar Way");
+    
+        PatientDTO read = read(() -> patientService.getPatientById(patient.getId()));
+        assertThat(read).usingRecursiveComparison().isEqualTo(patient);
+        assertThat(read.getDentistName()).isEqualTo("Grace Mapping");
+        assertThat(read.getEmail()).isEqualTo("alan@example.com");
+    }
+    
+    @Test
+    void casesRoundTripWithPartyNamesAndTimestamps() {
+        CaseDTO newCase = new CaseDTO();
+        newCase.setTitle("Bridge");
+        newCase.setDescription("Three units");
+        newCase.setStatus("pending");
+        newCase.setPriority("high");
+        newCase.setCaseType("bridge");
+        newCase.setDueDate(LocalDate.of(2030, 1, 15));
+        newCase.setPatientId(patient.getId());
+        newCase.setDentistId(dentist.getId());
+        CaseDTO created = caseService.createCase(newCase);
+    
+        CaseDTO read = read(() -> caseService.getCaseById(created.getId()));
+    
+        assertThat(read).usingRecursiveComparison().ignoringFields("id", "caseNumber", "patientName", "dentistName",
+                "createdAt", "updatedAt").isEqualTo(newCase);
+        assertThat(read.getCaseNumber()).isEqualTo(created.getCaseNumber()).isNotBlank();
+        assertThat(read.getPatientName()).isEqualTo("Alan Mapped");
+        assertThat(read.getDentistName()).isEqualTo("Grace Mapping");
+        assertThat(read.getCreatedAt()).matches(DATE_TIME);
+        assertThat(read.getUpdatedAt()).matches(DATE_TIME);
+    }
+    
+    @Test
+    void invoicesRoundTripWithTheirItems() {
+        InvoiceDTO newInvoice = new InvoiceDTO();
+        newInvoice.setStatus("unpaid");
+        newInvoice.setNotes("Net 30");
+        newInvoice.setIssueDate(LocalDate.of(2030, 2, 1));
+        newInvoice.setDueDate(LocalDate.of(2030, 3, 3));
+        newInvoice.setPatientId(patient.getId());
+        newInvoice.setDentistId(dentist.getId());
+        newInvoice.setItems(List.of(
+                new InvoiceItemDTO(null, "Crown", 2, new BigDecimal("150.00"), null),
+                new InvoiceItemDTO(null, "Post", 1, new BigDecimal("40.00"), null)));
+        InvoiceDTO created = invoiceService.createInvoice(newInvoice);
+    
+        InvoiceDTO read = read(() -> invoiceService.getInvoiceById(created.getId()));
+    
+        assertThat(read).usingRecursiveComparison().ignoringFields("createdAt", "updatedAt").isEqualTo(created);
+        assertThat(read.getPatientName()).isEqualTo("Alan Mapped");
+        assertThat(read.getDentistName()).isEqualTo("Grace Mapping");
+        assertThat(read.getNotes()).isEqualTo("Net 30");
+        assertThat(read.getCreatedAt()).matches(DATE_TIME);
+        assertThat(read.getItems()).extracting(InvoiceItemDTO::getDescription, InvoiceItemDTO::getQuantity,
+                        item -> item.getAmount().setScale(2))
+                .containsExactlyInAnyOrder(
+                        tuple("Crown", 2, new BigDecimal("300.00")),
+                        tuple("Post", 1, new BigDecimal("40.00")));
+        assertThat(read.getItems()).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+    }
+    
+    @Test
+    void inventoryItemsRoundTripWithCategoryAndSupplierNames() {
+        jdbcTemplate.update("INSERT INTO inventory_categories (name) VALUES ('Mapping ceramics')");
+        jdbcTemplate.update("INSERT INTO suppliers (name) VALUES ('Mapping supply')");
+        InventoryItemDTO newItem = new InventoryItemDTO();
+        newItem.setName("Mapping zirconia");
+        newItem.setDescription("Disc");
+        newItem.setQuantity(12);
+        newItem.setUnitPrice(new BigDecimal("25.50"));
+        newItem.setReorderLevel(3);
+        newItem.setUnit("disc");
+        newItem.setLastOrdered("2030-04-05");
+        newItem.setCategoryId(jdbcTemplate.queryForObject(
+                "SELECT id FROM inventory_categories WHERE name = 'Mapping ceramics'", Long.class));
+        newItem.setSupplierId(jdbcTemplate.queryForObject(
+                "SELECT id FROM suppliers WHERE name = 'Mapping supply'", Long.class));
+        InventoryItemDTO created = inventoryService.createItem(newItem);
+    
+        InventoryItemDTO read = read(() -> inventoryService.getItemById(created.getId()));
+    
+        assertThat(read).usingRecursiveComparison().ignoringFields("id", "categoryName", "supplierName",
+                "createdAt", "updatedAt").isEqualTo(newItem);
+        assertThat(read.getCategoryName()).isEqualTo("Mapping ceramics");
+        assertThat(read.getSupplierName()).isEqualTo("Mapping supply");
+        assertThat(read.getCreatedAt()).isNotBlank();
+    }
+    
+    @Test
+    void messagesGetStringIdsAndFormattedTimestamps() {
+        MessageDTO newMessage = new MessageDTO();
+        newMessage.setSenderId("mapping-sender");
+        newMessage.setReceiverId("mapping-receiver");
+        newMessage.setContent("Shade A2, please");
+        newMessage.setCaseId("mapping-case");
+    
+        MessageDTO sent = messageService.sendMessage(newMessage);
+    
+        assertThat(sent.getId()).matches("\\d+");
+        assertThat(sent.getTimestamp()).matches(DATE_TIME);
+        assertThat(sent.isRead()).isFalse();
+        assertThat(read(() -> messageService.getMessagesByCaseId("mapping-case", null, null, null).getItems()))
+                .singleElement().usingRecursiveComparison().isEqualTo(sent);
+    }
+    
+    @Test
+    void aSentMessageIgnoresAClientSuppliedId() {
+        MessageDTO first = message("mapping-resend", "Shade A2, please");
+        MessageDTO sent = messageService.sendMessage(first);
+        MessageDTO second = message("mapping-resend", "Shade A3 instead");
+        second.setId(sent.getId());
+    
+        MessageDTO resent = messageService.sendMessage(second);
+    
+        assertThat(resent.getId()).isNotEqualTo(sent.getId());
+        assertThat(jdbcTemplate.queryForList("SELECT content FROM messages WHERE case_id = 'mapping-resend' ORDER BY id",
+                String.class)).containsExactly("Shade A2, please", "Shade A3 instead");
+        assertThat(jdbcTemplate.queryForObject("SELECT unread FROM message_unread_counters WHERE thread_id = 'mapping-resend'",
+                Long.class)).isEqualTo(2);
+    }
+    
+    private static MessageDTO message(String caseId, String content) {
+        MessageDTO message = new MessageDTO();
+        message.setSenderId("mapping-sender");
+        message.setReceiverId("mapping-receiver");
+        message.setContent(content);
+        message.setCaseId(caseId);
+        return message;
+    }
+    
+    // Reads the way a request does, inside the open session that lets the mapping reach lazy associations
+    private <T> T read(Supplier<T> read) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> read.get());
+    }
+}
@@ -0,0 +1,320 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.Patient;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.PatientRepository;
+import com.dentalflow.service.ExportService.ExportFormat;
+import com.dentalflow.service.ExportService.ExportType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports through /api/export on H2. Each test seeds its rows on its own day far in the future,
+ * so a date range selects exactly those rows whatever other tests have left in the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class ExportServiceTest {
+    
+    private static final LocalDate INVOICE_DAY = LocalDate.of(2150, 3, 10);
+    private static final LocalDate TABLE_DAY = LocalDate.of(2150, 4, 10);
+    private static final LocalDate STREAMING_DAY = LocalDate.of(2150, 5, 10);
+    private static final String INVOICE_HEADER = "id,invoiceNumber,status,patientId,patientName,dentistId,dentistName," +
+            "caseId,amount,tax,total,notes,issueDate,dueDate,paidDate,createdAt,updatedAt," +
+            "itemId,itemDescription,itemQuantity,itemUnitPrice,itemAmount";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private DentistRepository dentistRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private Long dentistId;
+    private Long patientId;
+    
+    @BeforeEach
+    void createParties() {
+        Dentist dentist = new Dentist();
+        dentist.setFirstName("Ada");
+        dentist.setLastName("Export");
+        Patient patient = new Patient();
+        patient.setFirstName("Pat");
+        patient.setLastName("Export");
+        dentistId = dentistRepository.save(dentist).getId();
+        patientId = patientRepository.save(patient).getId();
+    }
+    
+    @Test
+    void invoicesAsCsvRepeatTheInvoiceColumnsPerItemAndKeepInvoicesWithoutItems() throws Exception {
+        InvoiceDTO withItems = invoiceService.createInvoice(newInvoice(INVOICE_DAY, "Deliver by noon\nCall first",
+                new InvoiceItemDTO(null, "Crown, \"zirconia\"", 1, new BigDecimal("400.00"), null),
+                new InvoiceItemDTO(null, "Try-in", 2, new BigDecimal("25.00"), null)));
+        InvoiceDTO withoutItems = invoiceService.createInvoice(newInvoice(INVOICE_DAY, null));
+        InvoiceDTO nextDay = invoiceService.createInvoice(newInvoice(INVOICE_DAY.plusDays(1), null,
+                new InvoiceItemDTO(null, "Bridge", 1, new BigDecimal("900.00"), null)));
+        InvoiceDTO first = read(() -> invoiceService.getInvoiceById(withItems.getId()));
+        InvoiceDTO empty = read(() -> invoiceService.getInvoiceById(withoutItems.getId()));
+        List<InvoiceItemDTO> items = first.getItems();
+        
+        MockHttpServletResponse response = export("/api/export/invoices?format=csv&from=" + INVOICE_DAY + "&to=" + INVOICE_DAY,
+                new HttpHeaders());
+        
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment; filename=\"invoices.csv\"");
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(
+                INVOICE_HEADER + "\n" +
+                invoiceColumns(first, "\"Deliver by noon\nCall first\"") + "," +
+                line(items.get(0).getId(), "\"Crown, \"\"zirconia\"\"\"", 1, "400.00", "400.00") +
+                invoiceColumns(first, "\"Deliver by noon\nCall first\"") + "," +
+                line(items.get(1).getId(), "Try-in", 2, "25.00", "50.00") +
+                invoiceColumns(empty, null) + ",,,,," + "\n");
+        assertThat(export("/api/export/invoices?format=csv", new HttpHeaders()).getContentAsString(StandardCharsets.UTF_8))
+                .startsWith(INVOICE_HEADER + "\n")
+                .contains(line(items.get(1).getId(), "Try-in", 2, "25.00", "50.00"))
+                .contains(nextDay.getInvoiceNumber());
+    }
+    
+    @Test
+    void invoicesAsNdjsonAreGzippedWhenTheClientAcceptsIt() throws Exception {
+        InvoiceDTO withItems = invoiceService.createInvoice(newInvoice(INVOICE_DAY.plusDays(10), null,
+                new InvoiceItemDTO(null, "Veneer", 3, new BigDecimal("300.00"), null)));
+        InvoiceDTO withoutItems = invoiceService.createInvoice(newInvoice(INVOICE_DAY.plusDays(11), null));
+        invoiceService.createInvoice(newInvoice(INVOICE_DAY.plusDays(12), null,
+                new InvoiceItemDTO(null, "Inlay", 1, new BigDecimal("150.00"), null)));
+        String path = "/api/export/invoices?from=" + INVOICE_DAY.plusDays(10) + "&to=" + INVOICE_DAY.plusDays(11);
+        HttpHeaders acceptGzip = new HttpHeaders();
+        acceptGzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        
+        MockHttpServletResponse gzipped = export(path, acceptGzip);
+        MockHttpServletResponse plain = export(path, new HttpHeaders());
+        
+        assertThat(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getContentType()).startsWith("application/x-ndjson");
+        String body = gunzip(gzipped.getContentAsByteArray());
+        assertThat(body).isEqualTo(plain.getContentAsString(StandardCharsets.UTF_8)).endsWith("\n");
+        List<JsonNode> rows = ndjson(body);
+        assertThat(rows).extracting(row -> row.get("invoiceNumber").asText())
+                .containsExactly(withItems.getInvoiceNumber(), withoutItems.getInvoiceNumber());
+        assertThat(rows.get(0).get("items")).hasSize(1);
+        assertThat(rows.get(0).get("items").get(0).get("description").asText()).isEqualTo("Veneer");
+        assertThat(rows.get(0).get("patientName").asText()).isEqualTo("Pat Export");
+        assertThat(rows.get(1).get("items")).isEmpty();
+    }
+    
+    @Test
+    void casesAppointmentsAndPatientsAreExportedForTheDateRange() throws Exception {
+        Long before = insertCase("Before", TABLE_DAY.minusDays(1));
+        Long onTheDay = insertCase("On the day", TABLE_DAY);
+        Long after = insertCase("After", TABLE_DAY.plusDays(1));
+        Long appointment = insertAppointment(TABLE_DAY);
+        Long nextAppointment = insertAppointment(TABLE_DAY.plusDays(1));
+        Long patient = insertPatient("1 Main St, Springfield", TABLE_DAY);
+        insertPatient("2 Main St", TABLE_DAY.plusDays(1));
+        String range = "from=" + TABLE_DAY + "&to=" + TABLE_DAY;
+        
+        List<JsonNode> cases = ndjson(export("/api/export/cases?" + range, new HttpHeaders())
+                .getContentAsString(StandardCharsets.UTF_8));
+        List<JsonNode> appointments = ndjson(export("/api/export/appointments?" + range, new HttpHeaders())
+                .getContentAsString(StandardCharsets.UTF_8));
+        String patients = export("/api/export/patients?format=csv&" + range, new HttpHeaders())
+                .getContentAsString(StandardCharsets.UTF_8);
+        
+        assertThat(cases).extracting(row -> row.get("id").asLong()).containsExactly(onTheDay);
+        assertThat(cases.get(0).get("title").asText()).isEqualTo("On the day");
+        assertThat(cases.get(0).get("dentistName").asText()).isEqualTo("Ada Export");
+        assertThat(appointments).extracting(row -> row.get("id").asLong()).containsExactly(appointment);
+        assertThat(appointments.get(0).get("appointmentDate").asText()).isEqualTo(TABLE_DAY.toString());
+        assertThat(appointments.get(0).get("patientName").asText()).isEqualTo("Pat Export");
+        assertThat(patients).isEqualTo("id,firstName,lastName,email,phone,address,dentistId,dentistName\n" +
+                line(patient, "Tab", "Export", null, null, "\"1 Main St, Springfield\"", dentistId, "Ada Export"));
+        
+        List<Long> allCases = ndjson(export("/api/export/cases", new HttpHeaders()).getContentAsString(StandardCharsets.UTF_8))
+                .stream().map(row -> row.get("id").asLong()).toList();
+        List<Long> allAppointments = ndjson(export("/api/export/appointments", new HttpHeaders())
+                .getContentAsString(StandardCharsets.UTF_8)).stream().map(row -> row.get("id").asLong()).toList();
+        assertThat(allCases).contains(before, onTheDay, after);
+        assertThat(allAppointments).contains(appointment, nextAppointment);
+    }
+    
+    @Test
+    void entitiesAreDetachedAsTheyAreWritten() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            insertCase("Streaming case " + i + " " + "x".repeat(100), STREAMING_DAY);
+        }
+        for (int i = 0; i < 40; i++) {
+            invoiceService.createInvoice(newInvoice(STREAMING_DAY, "y".repeat(200),
+                    new InvoiceItemDTO(null, "Crown " + i, 1, new BigDecimal("400.00"), null),
+                    new InvoiceItemDTO(null, "Post " + i, 1, new BigDecimal("80.00"), null)));
+        }
+        
+        for (ExportType type : List.of(ExportType.CASES, ExportType.INVOICES)) {
+            ManagedEntityProbe probe = new ManagedEntityProbe();
+            exportService.export(type, ExportFormat.NDJSON, STREAMING_DAY, STREAMING_DAY, probe);
+            
+            // Several buffer flushes happened mid-export, and none found more than one record's entities managed
+            assertThat(probe.writes).as(type.name()).isGreaterThan(2);
+            assertThat(probe.maxManaged).as(type.name()).isBetween(1, 5);
+        }
+    }
+    
+    // Runs inside the export's transaction, so the shared EntityManager is the one doing the streaming
+    private class ManagedEntityProbe extends OutputStream {
+        private int writes;
+        private int maxManaged;
+        
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            writes++;
+            int managed = entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal()
+                    .getNumberOfManagedEntities();
+            maxManaged = Math.max(maxManaged, managed);
+        }
+    }
+    
+    private MockHttpServletResponse export(String path, HttpHeaders headers) throws Exception {
+        MvcResult started = mockMvc.perform(get(path).headers(headers))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+    
+    // Reads the way a request does, inside the open session that lets the mapping reach lazy associations
+    private <T> T read(Supplier<T> read) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> read.get());
+    }
+    
+    private List<JsonNode> ndjson(String body) throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        return rows;
+    }
+    
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    // The invoice columns of a CSV line, without the line item columns that follow them
+    private static String invoiceColumns(InvoiceDTO invoice, String notes) {
+        String columns = line(invoice.getId(), invoice.getInvoiceNumber(), invoice.getStatus(),
+                invoice.getPatientId(), "Pat Export", invoice.getDentistId(), "Ada Export", null,
+                invoice.getAmount(), invoice.getTax(), invoice.getTotal(), notes, invoice.getIssueDate(),
+                invoice.getDueDate(), null, invoice.getCreatedAt(), invoice.getUpdatedAt());
+        return columns.substring(0, columns.length() - 1);
+    }
+    
+    // Values as the export writes them, already quoted where the test needs quoting
+    private static String line(Object... values) {
+        return Stream.of(values).map(value -> value == null ? "" : value.toString())
+                .collect(Collectors.joining(",", "", "\n"));
+    }
+    
+    private InvoiceDTO newInvoice(LocalDate issueDate, String notes, InvoiceItemDTO... items) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setDentistId(dentistId);
+        dto.setPatientId(patientId);
+        dto.setStatus("unpaid");
+        dto.setNotes(notes);
+        dto.setIssueDate(issueDate);
+        dto.setDueDate(issueDate.plusDays(30));
+        dto.setItems(List.of(items));
+        return dto;
+    }
+    
+    private Long insertCase(String title, LocalDate createdOn) {
+        String caseNumber = "EXPORT-" + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO cases (case_number, title, status, dentist_id, patient_id, created_at) " +
+                "VALUES (?, ?, 'pending', ?, ?, ?)", caseNumber, title, dentistId, patientId, createdOn.atTime(9, 0));
+        return jdbcTemplate.queryForObject("SELECT id FROM cases WHERE case_number = ?", Long.class, caseNumber);
+    }
+    
+    private Long insertAppointment(LocalDate date) {
+        String notes = "Export " + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO appointments (appointment_date, appointment_time, appointment_type, status, notes, " +
+                "dentist_id, patient_id, created_at) VALUES (?, '10:00:00', 'fitting', 'scheduled', ?, ?, ?, ?)",
+                date, notes, dentistId, patientId, LocalDateTime.now());
+        return jdbcTemplate.queryForObject("SELECT id FROM appointments WHERE notes = ?", Long.class, notes);
+    }
+    
+    private Long insertPatient(String address, LocalDate createdOn) {
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name, address, dentist_id, created_at) " +
+                "VALUES ('Tab', 'Export', ?, ?, ?)", address, dentistId, createdOn.atTime(9, 0));
+        return jdbcTemplate.queryForObject("SELECT id FROM patients WHERE address = ?", Long.class, address);
+    }
+}
@@ -0,0 +1,116 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.StockChangeDTO;
+import com.dentalflow.exception.ConflictException;
+import com.dentalflow.model.InventoryItem;
+import com.dentalflow.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryServiceTest {
+    
+    private static final int THREADS = 16;
+    private static final int CHANGES_PER_THREAD = 200;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private InventoryItemRepository itemRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void concurrentConsumeAndReceiveLoseNoUpdates() throws Exception {
+        Long blankId = newItem("Zirconia blank", 10_000);
+        Long resinId = newItem("Model resin", 10_000);
+        
+        // Each thread returns the net change it applied to the blank and to the resin
+        List<int[]> applied = Concurrently.run(THREADS, () -> {
+            int[] net = new int[2];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                int blanks = random.nextInt(1, 5);
+                int resin = random.nextInt(1, 5);
+                // Both items in one request, listed in either order
+                List<StockChangeDTO.LineDTO> lines = random.nextBoolean()
+                        ? List.of(line(blankId, blanks), line(resinId, resin))
+                        : List.of(line(resinId, resin), line(blankId, blanks));
+                if (random.nextBoolean()) {
+                    inventoryService.consume(lines);
+                    net[0] -= blanks;
+                    net[1] -= resin;
+                } else {
+                    inventoryService.receive(lines);
+                    net[0] += blanks;
+                    net[1] += resin;
+                }
+            }
+            return net;
+        });
+        
+        int blankNet = applied.stream().mapToInt(net -> net[0]).sum();
+        int resinNet = applied.stream().mapToInt(net -> net[1]).sum();
+        assertThat(quantity(blankId)).isEqualTo(10_000 + blankNet);
+        assertThat(quantity(resinId)).isEqualTo(10_000 + resinNet);
+        assertThat(ledgerTotal(blankId)).isEqualTo(blankNet);
+        assertThat(ledgerTotal(resinId)).isEqualTo(resinNet);
+    }
+    
+    @Test
+    void concurrentConsumptionNeverOverdrawsStock() throws Exception {
+        Long itemId = newItem("Implant abutment", 100);
+        
+        List<Integer> taken = Concurrently.run(THREADS, () -> {
+            int successes = 0;
+            for (int i = 0; i < 20; i++) {
+                try {
+                    inventoryService.consume(List.of(line(itemId, 1)));
+                    successes++;
+                } catch (ConflictException e) {
+                    // Out of stock; the request changed nothing
+                }
+            }
+            return successes;
+        });
+        
+        assertThat(taken.stream().mapToInt(Integer::intValue).sum()).isEqualTo(100);
+        assertThat(quantity(itemId)).isZero();
+        assertThat(ledgerTotal(itemId)).isEqualTo(-100);
+    }
+    
+    private Long newItem(String name, int quantity) {
+        InventoryItem item = new InventoryItem();
+        item.setName(name);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal("12.50"));
+        item.setReorderLevel(0);
+        item.setUnit("piece");
+        return itemRepository.save(item).getId();
+    }
+    
+    private int quantity(Long itemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventory_items WHERE id = ?", Integer.class, itemId);
+    }
+    
+    private int ledgerTotal(Long itemId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity_delta), 0) FROM inventory_movements WHERE item_id = ?", Integer.class, itemId);
+    }
+    
+    private static StockChangeDTO.LineDTO line(Long itemId, int quantity) {
+        return new StockChangeDTO.LineDTO(itemId, quantity, null);
+    }
+}
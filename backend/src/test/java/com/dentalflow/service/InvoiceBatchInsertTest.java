@@ -0,0 +1,99 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.repository.StatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creating an invoice writes its line items in JDBC batches of hibernate.jdbc.batch_size, with no
+ * per-item lookups, so the round trips grow with the batches rather than with the items.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementRecorder.Registration.class)
+class InvoiceBatchInsertTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceBatchInsertTest.class);
+    private static final int BATCH_SIZE = 50;
+    
+    @Autowired
+    private StatementRecorder recorder;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Long dentistId;
+    private Long patientId;
+    
+    @BeforeEach
+    void createParties() {
+        String marker = "Batched " + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO dentists (first_name, last_name) VALUES (?, 'Dentist')", marker);
+        dentistId = jdbcTemplate.queryForObject("SELECT id FROM dentists WHERE first_name = ?", Long.class, marker);
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES (?, 'Patient')", marker);
+        patientId = jdbcTemplate.queryForObject("SELECT id FROM patients WHERE first_name = ?", Long.class, marker);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void lineItemsAreInsertedInBatches(int items) {
+        long started = System.nanoTime();
+        List<StatementRecorder.RecordedStatement> statements = recorder.record(
+                () -> invoiceService.createInvoice(invoice(items)));
+        long elapsedMicros = (System.nanoTime() - started) / 1_000;
+        
+        List<StatementRecorder.RecordedStatement> itemInserts = statements.stream()
+                .filter(statement -> statement.sql().toLowerCase(Locale.ROOT).startsWith("insert into invoice_items"))
+                .toList();
+        int batches = (items + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertThat(itemInserts.stream().mapToInt(StatementRecorder.RecordedStatement::batchedRows).sum())
+                .as("item rows added to batches").isEqualTo(items);
+        assertThat(itemInserts.stream().mapToInt(StatementRecorder.RecordedStatement::executions).sum())
+                .as("item insert round trips").isEqualTo(batches);
+        // Per invoice, not per item: the rollup lock stripe, the patient load, the dentist load (which may
+        // come from the reference cache), the header insert and the rollup upsert
+        assertThat(statements.size() - itemInserts.size()).as("other statements").isLessThanOrEqualTo(5);
+        
+        int roundTrips = statements.stream().mapToInt(StatementRecorder.RecordedStatement::executions).sum();
+        logger.info("Invoice with {} items: {} statements, {} round trips, {} us",
+                items, statements.size(), roundTrips, elapsedMicros);
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM invoice_items WHERE invoice_id = (SELECT MAX(id) FROM invoices WHERE patient_id = ?)",
+                Integer.class, patientId);
+        assertThat(stored).isEqualTo(items);
+    }
+    
+    private InvoiceDTO invoice(int items) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setPatientId(patientId);
+        dto.setDentistId(dentistId);
+        dto.setStatus("unpaid");
+        dto.setIssueDate(LocalDate.now());
+        dto.setDueDate(LocalDate.now().plusDays(30));
+        dto.setItems(IntStream.range(0, items)
+                .mapToObj(i -> new InvoiceItemDTO(null, "Unit " + i, 1, new BigDecimal("10.00"), null))
+                .toList());
+        return dto;
+    }
+}
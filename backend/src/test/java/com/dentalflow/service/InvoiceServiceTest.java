@@ -0,0 +1,151 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InvoiceDTO;
+import com.dentalflow.dto.InvoiceItemDTO;
+import com.dentalflow.dto.ReportDTO;
+import com.dentalflow.model.Dentist;
+import com.dentalflow.model.Patient;
+import com.dentalflow.repository.DentistRepository;
+import com.dentalflow.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InvoiceServiceTest {
+    
+    private static final int THREADS = 8;
+    private static final int CHANGES_PER_THREAD = 25;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private InvoiceRollupService rollupService;
+    
+    @Autowired
+    private ReportService reportService;
+    
+    @Autowired
+    private DentistRepository dentistRepository;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void concurrentStatusChangesKeepTheRollupInStep() throws Exception {
+        InvoiceDTO invoice = invoiceService.createInvoice(newInvoice("unpaid"));
+        Long id = invoice.getId();
+        
+        Concurrently.run(THREADS, () -> {
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                invoiceService.updateStatus(id, i % 2 == 0 ? "paid" : "unpaid");
+            }
+            return null;
+        });
+        
+        String status = jdbcTemplate.queryForObject("SELECT status FROM invoices WHERE id = ?", String.class, id);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT status, invoice_count, total_amount FROM invoice_daily_rollups " +
+                "WHERE dentist_id = ? AND invoice_count <> 0", invoice.getDentistId());
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).get("status")).isEqualTo(status);
+        assertThat(((Number) rows.get(0).get("invoice_count")).longValue()).isEqualTo(1);
+        assertThat((BigDecimal) rows.get(0).get("total_amount")).isEqualByComparingTo(invoice.getTotal());
+    }
+    
+    @Test
+    void rebuildingRollupsRefreshesCachedReports() {
+        invoiceService.createInvoice(newInvoice("paid"));
+        // Rollup rows edited behind the application's back, as drift would leave them
+        jdbcTemplate.update("UPDATE invoice_daily_rollups SET total_amount = total_amount + 1000");
+        BigDecimal drifted = revenue(reportService.getFinancialReport(12));
+        
+        rollupService.rebuild();
+        
+        assertThat(revenue(reportService.getFinancialReport(12))).isLessThan(drifted);
+    }
+    
+    @Test
+    void rebuildsRacingInvoiceWritesLeaveExactRollups() throws Exception {
+        // One dentist for every invoice, so the writers and the rebuild all meet on the same rollup rows
+        InvoiceDTO first = invoiceService.createInvoice(newInvoice("unpaid"));
+        Long dentistId = first.getDentistId();
+        Long patientId = first.getPatientId();
+        AtomicInteger nextThread = new AtomicInteger();
+        
+        Concurrently.run(THREADS, () -> {
+            if (nextThread.getAndIncrement() == 0) {
+                for (int i = 0; i < 10; i++) {
+                    rollupService.rebuild();
+                }
+                return null;
+            }
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                InvoiceDTO invoice = invoiceService.createInvoice(newInvoice("unpaid", dentistId, patientId));
+                invoiceService.updateStatus(invoice.getId(), "paid");
+                if (i % 3 == 0) {
+                    invoiceService.deleteInvoice(invoice.getId());
+                }
+            }
+            return null;
+        });
+        
+        List<Map<String, Object>> rollups = jdbcTemplate.queryForList(
+                "SELECT issue_date, status, invoice_count, total_amount FROM invoice_daily_rollups " +
+                "WHERE invoice_count <> 0 AND dentist_id = ? ORDER BY issue_date, status", dentistId);
+        List<Map<String, Object>> fromInvoices = jdbcTemplate.queryForList(
+                "SELECT issue_date, status, COUNT(*) AS invoice_count, SUM(total) AS total_amount FROM invoices " +
+                "WHERE dentist_id = ? GROUP BY issue_date, status ORDER BY issue_date, status", dentistId);
+        assertThat(rollups).hasSize(fromInvoices.size()).isNotEmpty();
+        for (int i = 0; i < rollups.size(); i++) {
+            Map<String, Object> rollup = rollups.get(i);
+            Map<String, Object> expected = fromInvoices.get(i);
+            assertThat(rollup.get("status")).isEqualTo(expected.get("status"));
+            assertThat(((Number) rollup.get("invoice_count")).longValue())
+                    .isEqualTo(((Number) expected.get("invoice_count")).longValue());
+            assertThat((BigDecimal) rollup.get("total_amount")).isEqualByComparingTo((BigDecimal) expected.get("total_amount"));
+        }
+    }
+    
+    private InvoiceDTO newInvoice(String status) {
+        Dentist dentist = new Dentist();
+        dentist.setFirstName("Ada");
+        dentist.setLastName("Rollup");
+        Patient patient = new Patient();
+        patient.setFirstName("Pat");
+        patient.setLastName("Rollup");
+        return newInvoice(status, dentistRepository.save(dentist).getId(), patientRepository.save(patient).getId());
+    }
+    
+    private InvoiceDTO newInvoice(String status, Long dentistId, Long patientId) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setDentistId(dentistId);
+        dto.setPatientId(patientId);
+        dto.setStatus(status);
+        dto.setIssueDate(LocalDate.now());
+        dto.setDueDate(LocalDate.now().plusDays(30));
+        dto.setItems(List.of(new InvoiceItemDTO(null, "Bridge", 2, new BigDecimal("250.00"), null)));
+        return dto;
+    }
+    
+    private static BigDecimal revenue(ReportDTO report) {
+        return report.getMonthlyRevenue().stream()
+                .map(month -> new BigDecimal(month.get("total").toString()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,141 @@
+package com.dentalflow.service;
+
+import com.dentalflow.repository.StatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * List endpoints must issue the same few statements however many rows they return. Each list is
+ * read once with a few rows and once with many, and both must stay within the same fixed count.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementRecorder.Registration.class)
+class ListQueryCountTest {
+    
+    private static final int FEW = 3;
+    private static final int MANY = 30;
+    // One select for the rows and their parties, one more for the line items of an invoice page
+    private static final int MAX_STATEMENTS = 2;
+    
+    @Autowired
+    private StatementRecorder recorder;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DocumentNumberAllocator numberAllocator;
+    
+    @Autowired
+    private CaseService caseService;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    @Autowired
+    private AppointmentService appointmentService;
+    
+    private Long fewRowsDentist;
+    private Long manyRowsDentist;
+    
+    @BeforeEach
+    void seed() {
+        fewRowsDentist = seedDentist(FEW);
+        manyRowsDentist = seedDentist(MANY);
+    }
+    
+    @Test
+    void dentistListsIssueAFixedNumberOfStatements() {
+        assertFixedStatementCount("cases by dentist", list -> caseService.getCasesByDentistId(list, null).size());
+        assertFixedStatementCount("appointments by dentist",
+                list -> appointmentService.getAppointmentsByDentistId(list).size());
+    }
+    
+    @Test
+    void pagesIssueAFixedNumberOfStatements() {
+        assertFixedStatementCount("case page", () -> caseService.getAllCases(null, null, FEW).getItems().size(),
+                () -> caseService.getAllCases(null, null, MANY).getItems().size());
+        assertFixedStatementCount("invoice page", () -> invoiceService.getAllInvoices(null, null, FEW).getItems().size(),
+                () -> invoiceService.getAllInvoices(null, null, MANY).getItems().size());
+        assertFixedStatementCount("appointment page",
+                () -> appointmentService.getAllAppointments(null, FEW).getItems().size(),
+                () -> appointmentService.getAllAppointments(null, MANY).getItems().size());
+    }
+    
+    private void assertFixedStatementCount(String list, ToIntFunction<Long> byDentist) {
+        assertFixedStatementCount(list, () -> byDentist.applyAsInt(fewRowsDentist),
+                () -> byDentist.applyAsInt(manyRowsDentist));
+    }
+    
+    private void assertFixedStatementCount(String list, Supplier<Integer> few, Supplier<Integer> many) {
+        int fewStatements = statements(list, few, FEW);
+        int manyStatements = statements(list, many, MANY);
+    
+        assertThat(manyStatements).as("statements for %d rows of %s", MANY, list).isEqualTo(fewStatements);
+        assertThat(manyStatements).as("statements for %s", list).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+    
+    // Counts the statements one list read prepares. The transaction stands in for the request's open
+    // session, which is what lets the DTO mapping reach lazy associations
+    private int statements(String list, Supplier<Integer> read, int expectedRows) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        int[] rows = new int[1];
+        int statements = recorder.record(() -> transaction.executeWithoutResult(status -> rows[0] = read.get())).size();
+        assertThat(rows[0]).as("rows of %s", list).isEqualTo(expectedRows);
+        return statements;
+    }
+    
+    // A dentist with the given number of cases, appointments and two-line invoices, each for its own
+    // patient, so that loading parties row by row would show up as one statement per row
+    private Long seedDentist(int rows) {
+        String marker = "Counted " + System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO dentists (first_name, last_name, created_at) VALUES (?, 'Dentist', ?)",
+                marker, now);
+        Long dentistId = jdbcTemplate.queryForObject("SELECT id FROM dentists WHERE first_name = ?", Long.class, marker);
+    
+        for (int i = 0; i < rows; i++) {
+            String number = marker + "-" + i;
+            jdbcTemplate.update("INSERT INTO patients (first_name, last_name, dentist_id, created_at) " +
+                    "VALUES (?, 'Patient', ?, ?)", number, dentistId, now);
+            Long patientId = jdbcTemplate.queryForObject("SELECT id FROM patients WHERE first_name = ?", Long.class, number);
+            jdbcTemplate.update("INSERT INTO cases (case_number, title, status, dentist_id, patient_id, created_at) " +
+                    "VALUES (?, 'Crown', 'pending', ?, ?, ?)", number, dentistId, patientId, now.plusSeconds(i));
+            Long caseId = jdbcTemplate.queryForObject("SELECT id FROM cases WHERE case_number = ?", Long.class, number);
+            jdbcTemplate.update("INSERT INTO appointments (appointment_date, appointment_time, duration_minutes, " +
+                    "appointment_type, status, dentist_id, patient_id, case_id, created_at) " +
+                    "VALUES (?, ?, 30, 'fitting', 'scheduled', ?, ?, ?, ?)",
+                    LocalDate.of(2000, 1, 1), LocalTime.of(8, 0).plusMinutes(i), dentistId, patientId, caseId, now);
+            jdbcTemplate.update("INSERT INTO invoices (invoice_number, status, patient_id, dentist_id, case_id, amount, tax, " +
+                    "total, issue_date, due_date, created_at) VALUES (?, 'unpaid', ?, ?, ?, 200, 20, 220, ?, ?, ?)",
+                    number, patientId, dentistId, caseId, LocalDate.now().plusYears(1), LocalDate.now().plusYears(1), now);
+            Long invoiceId = jdbcTemplate.queryForObject("SELECT id FROM invoices WHERE invoice_number = ?", Long.class, number);
+            for (int line = 0; line < 2; line++) {
+                jdbcTemplate.update("INSERT INTO invoice_items (id, invoice_id, description, quantity, unit_price, amount) " +
+                        "VALUES (?, ?, 'Crown', 1, 100, 100)",
+                        numberAllocator.nextId(DocumentNumberAllocator.INVOICE_ITEM_IDS), invoiceId);
+            }
+        }
+        return dentistId;
+    }
+}
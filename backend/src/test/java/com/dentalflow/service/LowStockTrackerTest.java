@@ -0,0 +1,164 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.InventoryItemDTO;
+import com.dentalflow.event.InventoryChangedEvent;
+import com.dentalflow.repository.InventoryItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LowStockTrackerTest {
+    
+    // The production inventory.low-stock.push.pool-size; the subscriber queue is kept shorter than production's
+    private static final int PUSH_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final Set<Long> ITEM = Set.of(1L);
+    
+    private final InventoryItemRepository itemRepository = mock(InventoryItemRepository.class);
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+    
+    @AfterEach
+    void stopExecutors() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+    
+    @Test
+    void aStalledSubscriberIsDroppedWithoutHoldingUpTheCommittingThreadOrTheOthers() throws Exception {
+        LowStockTracker tracker = tracker();
+        // Every read finds the item on the other side of its reorder level, so every change is an alert
+        AtomicInteger reads = new AtomicInteger();
+        when(itemRepository.findViewsByIdIn(anyCollection()))
+                .thenAnswer(invocation -> List.of(item(1L, reads.incrementAndGet() % 2 == 1 ? 1 : 50)));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        tracker.subscribe(stalled);
+        tracker.subscribe(fast);
+        
+        for (int i = 0; i < 20; i++) {
+            long started = System.nanoTime();
+            tracker.onInventoryChanged(new InventoryChangedEvent(ITEM));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+            // Paced so that only the stalled subscriber falls behind
+            awaitAlerts(fast, i + 1);
+        }
+        
+        assertThat(fast.alerts).hasSize(20);
+        release.countDown();
+        awaitCompleted(stalled);
+        assertThat(stalled.completed).isTrue();
+        assertThat(stalled.alerts).hasSize(1);
+        assertThat(fast.completed).isFalse();
+    }
+    
+    @Test
+    void aReadOvertakenByALaterOneIsNotApplied() throws Exception {
+        LowStockTracker tracker = tracker();
+        CountDownLatch staleReadStarted = new CountDownLatch(1);
+        CountDownLatch releaseStaleRead = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(itemRepository.findViewsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                // Read before the item was drawn down, but returns only after the later read is applied
+                staleReadStarted.countDown();
+                releaseStaleRead.await(5, TimeUnit.SECONDS);
+                return List.of(item(1L, 50));
+            }
+            return List.of(item(1L, 1));
+        });
+        
+        CompletableFuture<Void> stale = CompletableFuture.runAsync(() -> tracker.onInventoryChanged(new InventoryChangedEvent(ITEM)));
+        assertThat(staleReadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        tracker.onInventoryChanged(new InventoryChangedEvent(ITEM));
+        releaseStaleRead.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+        
+        assertThat(tracker.getLowStockItems()).extracting(InventoryItemDTO::getQuantity).containsExactly(1);
+    }
+    
+    private LowStockTracker tracker() {
+        return new LowStockTracker(itemRepository, executor(), QUEUE_CAPACITY);
+    }
+    
+    // Configured as ExecutorConfig.lowStockPushExecutor is
+    private ThreadPoolTaskExecutor executor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(PUSH_THREADS);
+        executor.setMaxPoolSize(PUSH_THREADS);
+        executor.setQueueCapacity(256);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+    
+    private static InventoryItemDTO item(Long id, int quantity) {
+        InventoryItemDTO item = new InventoryItemDTO();
+        item.setId(id);
+        item.setName("Item " + id);
+        item.setQuantity(quantity);
+        item.setReorderLevel(10);
+        return item;
+    }
+    
+    private static void awaitAlerts(RecordingEmitter emitter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (emitter.alerts.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+    
+    private static void awaitCompleted(RecordingEmitter emitter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!emitter.completed && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+    
+    // Records sends instead of writing them; with a latch, the first send does not return until it is released
+    private static class RecordingEmitter extends SseEmitter {
+        
+        private final CountDownLatch release;
+        private final List<SseEventBuilder> alerts = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+        
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            alerts.add(builder);
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.dentalflow.service;
+
+import com.dentalflow.dto.MessageDTO;
+import com.dentalflow.dto.UnreadCountDTO;
+import com.dentalflow.model.Message;
+import com.dentalflow.model.MessageUnreadCounter;
+import com.dentalflow.repository.MessageUnreadCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+/**
+ * With write-behind enabled, concurrent sends are all stored once the writer catches up, each
+ * sender's messages get ids in the order they were sent, and the unread counters match the
+ * stored rows. Stopping the writer stores whatever is still queued, a batch survives a database outage,
+ * and a message that cannot be stored costs only itself.
+ */
+@SpringBootTest(properties = "messages.write-behind.enabled=true")
+@ActiveProfiles("test")
+class MessageWriteBehindTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindTest.class);
+    private static final int SENDERS = 8;
+    private static final int MESSAGES_PER_SENDER = 250;
+    
+    @Autowired
+    private MessageService messageService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MessageUnreadCounterRepository unreadCounterRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Test
+    void concurrentSendsAreStoredInSendOrderWithTheirUnreadCounts() throws Exception {
+        String run = "write-behind-" + System.nanoTime();
+        String caseId = run + "-case";
+        String receiverId = run + "-receiver";
+        AtomicInteger nextSender = new AtomicInteger();
+    
+        Concurrently.run(SENDERS, () -> {
+            String senderId = run + "-sender-" + nextSender.getAndIncrement();
+            for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                MessageDTO message = new MessageDTO();
+                message.setSenderId(senderId);
+                message.setReceiverId(receiverId);
+                message.setCaseId(caseId);
+                message.setContent(Integer.toString(i));
+                assertThat(messageService.sendMessage(message).getId()).isNull();
+            }
+            return null;
+        });
+        awaitStored(caseId, SENDERS * MESSAGES_PER_SENDER);
+    
+        // Walking the case in id order, every sender's messages come in the order that sender sent them
+        Map<String, Integer> lastSentBySender = new HashMap<>();
+        jdbcTemplate.query("SELECT sender_id, content FROM messages WHERE case_id = ? ORDER BY id", row -> {
+            int sent = Integer.parseInt(row.getString("content"));
+            Integer previous = lastSentBySender.put(row.getString("sender_id"), sent);
+            assertThat(sent).as("message after %s from %s", previous, row.getString("sender_id"))
+                    .isEqualTo(previous == null ? 0 : previous + 1);
+        }, caseId);
+        assertThat(lastSentBySender).hasSize(SENDERS).allSatisfy((sender, last) ->
+                assertThat(last).isEqualTo(MESSAGES_PER_SENDER - 1));
+    
+        assertThat(messageService.getUnreadCounts(receiverId))
+                .singleElement()
+                .usingRecursiveComparison()
+                .isEqualTo(new UnreadCountDTO(MessageUnreadCounter.CASE_THREAD, caseId,
+                        (long) SENDERS * MESSAGES_PER_SENDER));
+    }
+    
+    // A writer of its own, so stopping it leaves the application's writer running
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void stoppingTheWriterStoresEverythingStillQueued(int batchSize) throws Exception {
+        int messages = 2_000;
+        MessageWriteBehindQueue writer = new MessageWriteBehindQueue(jdbcTemplate, transactionManager,
+                unreadCounterRepository, eventPublisher, true, messages, batchSize, 200, 30);
+        String caseId = "write-behind-drain-" + batchSize + "-" + System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            writer.enqueue(message(caseId, caseId + "-sender", i), new MessageDTO());
+        }
+    
+        long started = System.nanoTime();
+        writer.start();
+        writer.stop();
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+    
+        assertThat(storedMessages(caseId)).isEqualTo(messages);
+        assertThat(unread(caseId)).isEqualTo(messages);
+        logger.info("Batch size {}: {} messages written in {} us ({} messages/s)", batchSize, messages,
+                elapsedMicros, messages * 1_000_000L / Math.max(elapsedMicros, 1));
+    }
+    
+    @Test
+    void batchesAreRetriedUntilTheDatabaseIsBack() throws Exception {
+        // More failures in a row than a fixed number of attempts would have allowed
+        JdbcTemplate failingJdbcTemplate = spy(jdbcTemplate);
+        doThrow(new CannotGetJdbcConnectionException("Connection refused", new SQLTransientConnectionException()))
+                .doThrow(new CannotGetJdbcConnectionException("Connection refused", new SQLTransientConnectionException()))
+                .doThrow(new CannotGetJdbcConnectionException("Connection refused", new SQLTransientConnectionException()))
+                .doThrow(new TransientDataAccessResourceException("Lock wait timeout exceeded"))
+                .doThrow(new TransientDataAccessResourceException("Lock wait timeout exceeded"))
+                .doCallRealMethod()
+                .when(failingJdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                        any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        MessageWriteBehindQueue writer = new MessageWriteBehindQueue(failingJdbcTemplate, transactionManager,
+                unreadCounterRepository, eventPublisher, true, 100, 100, 200, 30);
+        String caseId = "write-behind-outage-" + System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            writer.enqueue(message(caseId, caseId + "-sender", i), new MessageDTO());
+        }
+    
+        writer.start();
+        writer.stop();
+    
+        assertThat(storedMessages(caseId)).isEqualTo(50);
+        assertThat(unread(caseId)).isEqualTo(50);
+    }
+    
+    @Test
+    void aMessageThatCannotBeStoredIsDroppedAlone() throws Exception {
+        MessageWriteBehindQueue writer = new MessageWriteBehindQueue(jdbcTemplate, transactionManager,
+                unreadCounterRepository, eventPublisher, true, 100, 100, 200, 30);
+        String caseId = "write-behind-bad-row-" + System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            // sender_id is a varchar(255)
+            String senderId = i == 4 ? "x".repeat(300) : caseId + "-sender";
+            writer.enqueue(message(caseId, senderId, i), new MessageDTO());
+        }
+    
+        writer.start();
+        writer.stop();
+    
+        assertThat(storedMessages(caseId)).isEqualTo(9);
+        assertThat(unread(caseId)).isEqualTo(9);
+        assertThat(jdbcTemplate.queryForList("SELECT content FROM messages WHERE case_id = ? ORDER BY id",
+                String.class, caseId)).containsExactly("0", "1", "2", "3", "5", "6", "7", "8", "9");
+    }
+    
+    private static Message message(String caseId, String senderId, int sequence) {
+        Message message = new Message();
+        message.setSenderId(senderId);
+        message.setReceiverId(caseId + "-receiver");
+        message.setCaseId(caseId);
+        message.setContent(Integer.toString(sequence));
+        message.setTimestamp(LocalDateTime.now());
+        return message;
+    }
+    
+    private Long unread(String caseId) {
+        return jdbcTemplate.queryForObject("SELECT unread FROM message_unread_counters WHERE thread_id = ?",
+                Long.class, caseId);
+    }
+    
+    private void awaitStored(String caseId, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (storedMessages(caseId) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(storedMessages(caseId)).isEqualTo(expected);
+    }
+    
+    private int storedMessages(String caseId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages WHERE case_id = ?", Integer.class, caseId);
+    }
+}
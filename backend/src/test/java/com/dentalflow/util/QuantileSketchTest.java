@@ -0,0 +1,71 @@
+package com.dentalflow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+    
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = { 0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1 };
+    
+    @Test
+    void quantilesStayWithinTheRelativeAccuracy() {
+        // Durations in seconds spread over several orders of magnitude, as case cycle times are
+        double[] values = new Random(42).doubles(50_000).map(u -> Math.exp(2 + 12 * u)).toArray();
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        Arrays.stream(values).forEach(sketch::add);
+        Arrays.sort(values);
+        
+        assertThat(sketch.getCount()).isEqualTo(values.length);
+        for (double q : QUANTILES) {
+            double exact = values[(int) (q * (values.length - 1))];
+            assertThat(sketch.quantile(q)).as("quantile %s", q).isCloseTo(exact, within(exact * ACCURACY * 1.000001));
+        }
+    }
+    
+    @Test
+    void mergingGivesTheSketchOfAllValues() {
+        Random random = new Random(7);
+        QuantileSketch all = new QuantileSketch(ACCURACY);
+        QuantileSketch first = new QuantileSketch(ACCURACY);
+        QuantileSketch second = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < 10_000; i++) {
+            double value = i % 100 == 0 ? 0 : random.nextDouble() * 86_400;
+            all.add(value);
+            (i % 3 == 0 ? first : second).add(value);
+        }
+        
+        first.merge(second);
+        
+        assertThat(first.getCount()).isEqualTo(all.getCount());
+        for (double q : QUANTILES) {
+            assertThat(first.quantile(q)).as("quantile %s", q).isEqualTo(all.quantile(q));
+        }
+    }
+    
+    @Test
+    void zerosAndEmptySketches() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        assertThat(sketch.quantile(0.5)).isNaN();
+        
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(100);
+        
+        assertThat(sketch.quantile(0)).isZero();
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.quantile(1)).isCloseTo(100, within(100 * ACCURACY));
+    }
+    
+    @Test
+    void sketchesWithDifferentAccuracyDoNotMerge() {
+        assertThatThrownBy(() -> new QuantileSketch(ACCURACY).merge(new QuantileSketch(0.05)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
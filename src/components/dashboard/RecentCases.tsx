@@ -21,8 +21,9 @@ type CaseStatus = keyof typeof caseStatusColors;
 const RecentCases = () => {
   const { data: casesData, isLoading, error } = useQuery({
     queryKey: ['recentCases'],
-    queryFn: () => caseService.getAll(),
-    select: (data) => data.slice(0, 4), // Only show 4 most recent cases
+    // Pages are newest first, so the first one holds the most recent cases
+    queryFn: () => caseService.getPage(),
+    select: (page) => page.items.slice(0, 4), // Only show 4 most recent cases
   });
 
   // Transform API case data to the format we need
@@ -2,12 +2,16 @@
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/components/ui/card";
 import { CalendarCheck, Clock, Loader2 } from "lucide-react";
 import { useQuery } from "@tanstack/react-query";
+import { addDays, format } from "date-fns";
 import caseService from "@/services/caseService";
 
 const UpcomingDeadlines = () => {
   const { data: casesData, isLoading, error } = useQuery({
     queryKey: ['upcomingDeadlines'],
-    queryFn: () => caseService.getAll(),
+    queryFn: () => {
+      const today = new Date();
+      return caseService.getDueBetween(format(today, 'yyyy-MM-dd'), format(addDays(today, 7), 'yyyy-MM-dd'));
+    },
     select: (data) => {
       // Get cases with upcoming deadlines (within the next 7 days)
       const now = new Date();
@@ -1,6 +1,4 @@
 
-import { useEffect, useState } from "react";
-import { useQuery } from "@tanstack/react-query";
 import { Link } from "react-router-dom";
 import { formatDistanceToNow } from "date-fns";
 import { Badge } from "@/components/ui/badge";
@@ -20,6 +18,7 @@ import {
   TableRow,
 } from "@/components/ui/table";
 import { Skeleton } from "@/components/ui/skeleton";
+import { LoadMoreButton } from "@/components/ui/load-more-button";
 import { Eye, MoreHorizontal, Printer, FileEdit, Trash2 } from "lucide-react";
 import { toast } from "@/components/ui/use-toast";
 import {
@@ -40,29 +39,24 @@ import {
   AlertDialogTitle,
   AlertDialogTrigger,
 } from "@/components/ui/alert-dialog";
-import invoiceService, { Invoice } from "@/services/invoiceService";
+import invoiceService from "@/services/invoiceService";
+import { usePagedList } from "@/hooks/use-paged-list";
 
 interface InvoiceListProps {
   filter: string;
 }
 
 export function InvoiceList({ filter }: InvoiceListProps) {
-  const [filteredInvoices, setFilteredInvoices] = useState<Invoice[]>([]);
-
-  const { data: invoices, isLoading, isError, refetch } = useQuery({
-    queryKey: ['invoices'],
-    queryFn: () => invoiceService.getAll(),
-  });
-
-  useEffect(() => {
-    if (invoices) {
-      if (filter === 'all') {
-        setFilteredInvoices(invoices);
-      } else {
-        setFilteredInvoices(invoices.filter(invoice => invoice.status === filter));
-      }
-    }
-  }, [invoices, filter]);
+  // The status filter is applied by the server, so each page holds only matching invoices
+  const {
+    items: filteredInvoices,
+    isLoading,
+    isError,
+    refetch,
+    hasNextPage,
+    isFetchingNextPage,
+    fetchNextPage,
+  } = usePagedList(['invoices', filter], (cursor) => invoiceService.getPage(filter, cursor));
 
   const handleDeleteInvoice = async (id: number | string) => {
     try {
@@ -276,6 +270,11 @@ export function InvoiceList({ filter }: InvoiceListProps) {
             </TableBody>
           </Table>
         )}
+        <LoadMoreButton
+          hasMore={hasNextPage}
+          isLoading={isFetchingNextPage}
+          onLoadMore={() => fetchNextPage()}
+        />
       </CardContent>
     </Card>
   );
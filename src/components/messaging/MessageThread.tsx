@@ -11,9 +11,20 @@ interface MessageThreadProps {
   caseId: string;
   messages: Message[];
   onSendMessage: (content: string) => void;
+  // Set when earlier messages exist that are not shown yet
+  hasOlder?: boolean;
+  isLoadingOlder?: boolean;
+  onLoadOlder?: () => void;
 }
 
-const MessageThread = ({ caseId, messages, onSendMessage }: MessageThreadProps) => {
+const MessageThread = ({
+  caseId,
+  messages,
+  onSendMessage,
+  hasOlder = false,
+  isLoadingOlder = false,
+  onLoadOlder,
+}: MessageThreadProps) => {
   const [newMessage, setNewMessage] = useState("");
   
   const handleSendMessage = () => {
@@ -26,6 +37,13 @@ const MessageThread = ({ caseId, messages, onSendMessage }: MessageThreadProps)
   return (
     <div className="flex flex-col h-full">
       <div className="overflow-y-auto flex-1 p-4 space-y-4">
+        {hasOlder && (
+          <div className="flex justify-center">
+            <Button variant="ghost" size="sm" onClick={onLoadOlder} disabled={isLoadingOlder}>
+              {isLoadingOlder ? "Loading..." : "Load earlier messages"}
+            </Button>
+          </div>
+        )}
         {messages.map((message) => (
           <div
             key={message.id}
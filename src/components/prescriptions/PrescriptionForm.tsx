@@ -29,6 +29,7 @@ import {
   PopoverTrigger,
 } from "@/components/ui/popover";
 import { Calendar } from "@/components/ui/calendar";
+import { LoadMoreButton } from "@/components/ui/load-more-button";
 
 export interface PrescriptionFormProps {
   id?: string;
@@ -37,6 +38,10 @@ export interface PrescriptionFormProps {
   onSubmit?: (formData: any) => void;
   dentists?: any[];
   patients?: any[];
+  // Patients arrive a page at a time; the picker offers the next page while there is one
+  hasMorePatients?: boolean;
+  isLoadingMorePatients?: boolean;
+  onLoadMorePatients?: () => void;
 }
 
 const PrescriptionForm = ({ 
@@ -45,7 +50,10 @@ const PrescriptionForm = ({
   setActiveTab, 
   onSubmit,
   dentists = [],
-  patients = []
+  patients = [],
+  hasMorePatients = false,
+  isLoadingMorePatients = false,
+  onLoadMorePatients = () => {}
 }: PrescriptionFormProps) => {
   const [dueDate, setDueDate] = useState<Date | undefined>(undefined);
   const [formData, setFormData] = useState({
@@ -152,6 +160,12 @@ const PrescriptionForm = ({
                       </SelectItem>
                     ))
                   )}
+                  <LoadMoreButton
+                    hasMore={hasMorePatients}
+                    isLoading={isLoadingMorePatients}
+                    onLoadMore={onLoadMorePatients}
+                    className="pt-1 pb-1"
+                  />
                 </SelectContent>
               </Select>
             </div>
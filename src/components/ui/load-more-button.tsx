@@ -0,0 +1,27 @@
+import { Loader2 } from "lucide-react"
+
+import { cn } from "@/lib/utils"
+import { Button } from "@/components/ui/button"
+
+interface LoadMoreButtonProps {
+  hasMore: boolean
+  isLoading: boolean
+  onLoadMore: () => void
+  className?: string
+}
+
+// Fetches the next page of a paged list; renders nothing once the last page is loaded
+function LoadMoreButton({ hasMore, isLoading, onLoadMore, className }: LoadMoreButtonProps) {
+  if (!hasMore) return null
+
+  return (
+    <div className={cn("flex justify-center pt-4", className)}>
+      <Button variant="outline" onClick={onLoadMore} disabled={isLoading}>
+        {isLoading && <Loader2 className="mr-2 h-4 w-4 animate-spin" />}
+        Load more
+      </Button>
+    </div>
+  )
+}
+
+export { LoadMoreButton }
@@ -0,0 +1,123 @@
+import { useCallback, useEffect, useRef, useState } from "react";
+import messageService, { Message } from "@/services/messageService";
+import { socketUrl } from "@/services/api";
+
+// Longest wait between attempts to reopen a dropped message socket
+const MAX_RECONNECT_DELAY_MS = 30_000;
+
+// Drops messages already shown, since pages fetched in either direction can overlap them
+const notIn = (current: Message[], incoming: Message[]) => {
+  const shown = new Set(current.map((message) => String(message.id)));
+  return incoming.filter((message) => !shown.has(String(message.id)));
+};
+
+// Pushed frames and fetched pages can arrive out of order; ids are sequential, so keep the thread sorted by them
+const merge = (current: Message[], incoming: Message[]) =>
+  [...current, ...notIn(current, incoming)].sort((a, b) => Number(a.id) - Number(b.id) || 0);
+
+/**
+ * A case thread, oldest first. It opens on the newest page; refresh() fetches only the messages
+ * after the last one shown and loadOlder() scrolls back before the first one. New messages are
+ * pushed over /ws/cases/{id}/messages while the thread is open.
+ */
+export function useCaseMessages(caseId?: string) {
+  const [messages, setMessages] = useState<Message[]>([]);
+  const [olderCursor, setOlderCursor] = useState<string | undefined>();
+  const [isLoadingOlder, setIsLoadingOlder] = useState(false);
+  const messagesRef = useRef<Message[]>([]);
+  const caseIdRef = useRef(caseId);
+  messagesRef.current = messages;
+  caseIdRef.current = caseId;
+
+  const loadLatest = useCallback(async (id: string) => {
+    const page = await messageService.getMessagesByCaseId(id);
+    if (caseIdRef.current === id) {
+      setMessages(page.messages);
+      setOlderCursor(page.nextCursor);
+    }
+  }, []);
+
+  useEffect(() => {
+    setMessages([]);
+    setOlderCursor(undefined);
+    if (caseId) {
+      loadLatest(caseId);
+    }
+  }, [caseId, loadLatest]);
+
+  const refresh = useCallback(async () => {
+    if (!caseId) return;
+    let after = messagesRef.current[messagesRef.current.length - 1]?.id;
+    if (!after) {
+      await loadLatest(caseId);
+      return;
+    }
+    const newer: Message[] = [];
+    do {
+      const page = await messageService.getMessagesByCaseId(caseId, { after });
+      newer.push(...page.messages);
+      after = page.nextCursor;
+    } while (after);
+    if (caseIdRef.current === caseId) {
+      setMessages((current) => merge(current, newer));
+    }
+  }, [caseId, loadLatest]);
+
+  const refreshRef = useRef(refresh);
+  refreshRef.current = refresh;
+
+  useEffect(() => {
+    const token = localStorage.getItem("token");
+    if (!caseId || !token) return;
+    let socket: WebSocket | undefined;
+    let reconnectTimer: ReturnType<typeof setTimeout> | undefined;
+    let attempts = 0;
+    let closed = false;
+
+    const connect = () => {
+      socket = new WebSocket(
+        `${socketUrl(`/ws/cases/${encodeURIComponent(caseId)}/messages`)}?token=${encodeURIComponent(token)}`
+      );
+      socket.onopen = () => {
+        // Nothing is pushed while the socket is down, so catch up on what was sent in the meantime;
+        // on the first connect that is the gap after the opening page, if it has already loaded
+        if (attempts > 0 || messagesRef.current.length > 0) refreshRef.current();
+        attempts = 0;
+      };
+      socket.onmessage = (event) => {
+        const message: Message = JSON.parse(event.data);
+        if (caseIdRef.current === caseId) {
+          setMessages((current) => merge(current, [message]));
+        }
+      };
+      socket.onclose = () => {
+        if (closed) return;
+        attempts++;
+        reconnectTimer = setTimeout(connect, Math.min(MAX_RECONNECT_DELAY_MS, 1000 * 2 ** attempts));
+      };
+    };
+
+    connect();
+    return () => {
+      closed = true;
+      clearTimeout(reconnectTimer);
+      socket?.close();
+    };
+  }, [caseId]);
+
+  const loadOlder = useCallback(async () => {
+    if (!caseId || !olderCursor) return;
+    setIsLoadingOlder(true);
+    try {
+      const page = await messageService.getMessagesByCaseId(caseId, { before: olderCursor });
+      if (caseIdRef.current === caseId) {
+        setMessages((current) => [...notIn(current, page.messages), ...current]);
+        setOlderCursor(page.nextCursor);
+      }
+    } finally {
+      setIsLoadingOlder(false);
+    }
+  }, [caseId, olderCursor]);
+
+  return { messages, hasOlder: !!olderCursor, isLoadingOlder, refresh, loadOlder };
+}
@@ -0,0 +1,25 @@
+import { useMemo } from "react";
+import { QueryKey, useInfiniteQuery } from "@tanstack/react-query";
+import { Page } from "@/services/api";
+
+/**
+ * A keyset-paginated list. Only the first page is fetched up front; fetchNextPage() follows the
+ * cursor of the last page loaded, and items holds the rows of every page loaded so far.
+ */
+export function usePagedList<T>(
+  queryKey: QueryKey,
+  fetchPage: (cursor?: string) => Promise<Page<T>>,
+  options: { enabled?: boolean } = {}
+) {
+  const query = useInfiniteQuery({
+    queryKey,
+    queryFn: ({ pageParam }) => fetchPage(pageParam),
+    initialPageParam: undefined as string | undefined,
+    getNextPageParam: (lastPage) => lastPage.nextCursor,
+    enabled: options.enabled,
+  });
+
+  const items = useMemo(() => query.data?.pages.flatMap((page) => page.items) ?? [], [query.data]);
+
+  return { ...query, items };
+}
@@ -6,7 +6,7 @@ import { Calendar as CalendarComponent } from "@/components/ui/calendar";
 import { Badge } from "@/components/ui/badge";
 import { Button } from "@/components/ui/button";
 import { Tabs, TabsContent, TabsList, TabsTrigger } from "@/components/ui/tabs";
-import { format, isToday, isFuture, isPast, parseISO, addDays, getDaysInMonth, getDay, startOfMonth } from "date-fns";
+import { format, isToday, isFuture, isPast, parseISO, addDays, getDaysInMonth, getDay, startOfMonth, endOfMonth, startOfWeek, endOfWeek } from "date-fns";
 import { cn } from "@/lib/utils";
 import { DayContentProps } from "react-day-picker";
 import { useQuery } from "@tanstack/react-query";
@@ -18,29 +18,27 @@ import caseService from "@/services/caseService";
 const Calendar = () => {
   const [date, setDate] = useState<Date | undefined>(new Date());
   const [view, setView] = useState<"day" | "week" | "month">("day");
+  const [month, setMonth] = useState<Date>(new Date());
   
   const currentUser = authService.getCurrentUser();
   const userRole = currentUser?.role || '';
   const userId = currentUser?.id;
   
+  // Only the days shown in the month grid, including the leading and trailing days of the neighbouring months
+  const rangeStart = format(startOfWeek(startOfMonth(month)), 'yyyy-MM-dd');
+  const rangeEnd = format(endOfWeek(endOfMonth(month)), 'yyyy-MM-dd');
+  
   // Fetch appointments for the current dentist or cases for technician
   const { data: appointments, isLoading: isLoadingAppointments } = useQuery({
-    queryKey: ['appointments', userId, date],
-    queryFn: () => {
-      if (!userId) return Promise.resolve([]);
-      if (userRole === 'dentist') {
-        // For dentists, get their appointments
-        return appointmentService.getByDentistId(Number(userId));
-      }
-      return Promise.resolve([]);
-    },
+    queryKey: ['appointments', userId, rangeStart, rangeEnd],
+    queryFn: () => appointmentService.getDentistAppointmentsBetween(Number(userId), rangeStart, rangeEnd),
     enabled: !!userId && userRole === 'dentist',
   });
   
   // Fetch cases for technicians
   const { data: cases, isLoading: isLoadingCases } = useQuery({
-    queryKey: ['calendar-cases', date],
-    queryFn: () => caseService.getAll(),
+    queryKey: ['calendar-cases', rangeStart, rangeEnd],
+    queryFn: () => caseService.getDueBetween(rangeStart, rangeEnd),
     enabled: userRole === 'technician',
   });
   
@@ -109,6 +107,8 @@ const Calendar = () => {
                 mode="single"
                 selected={date}
                 onSelect={setDate}
+                month={month}
+                onMonthChange={setMonth}
                 className="w-full pointer-events-auto"
                 components={{
                   DayContent: ({ date: dayDate }: DayContentProps) => {
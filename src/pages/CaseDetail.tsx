@@ -26,7 +26,8 @@ import { Link } from "react-router-dom";
 import StatusUpdateDialog from "../components/cases/StatusUpdateDialog";
 import { toast } from "@/components/ui/use-toast";
 import messageService, { Message } from "@/services/messageService";
-import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
+import { useMutation } from "@tanstack/react-query";
+import { useCaseMessages } from "@/hooks/use-case-messages";
 
 const statusColors = {
   new: "bg-dental-teal text-white",
@@ -41,7 +42,6 @@ type CaseStatus = keyof typeof statusColors;
 const CaseDetail = () => {
   const { id } = useParams<{ id: string }>();
   const [activeTab, setActiveTab] = useState("details");
-  const queryClient = useQueryClient();
   
   // In a real app, you would fetch this data based on the ID
   const [caseData, setCaseData] = useState({
@@ -78,11 +78,7 @@ const CaseDetail = () => {
     },
   ]);
 
-  const { data: messages = [] } = useQuery({
-    queryKey: ['caseMessages', id],
-    queryFn: () => id ? messageService.getMessagesByCaseId(id) : Promise.resolve([]),
-    enabled: !!id,
-  });
+  const { messages, hasOlder, isLoadingOlder, refresh, loadOlder } = useCaseMessages(id);
 
   const sendMessageMutation = useMutation({
     mutationFn: (content: string) => 
@@ -94,7 +90,7 @@ const CaseDetail = () => {
         caseId: id
       }),
     onSuccess: () => {
-      queryClient.invalidateQueries({ queryKey: ['caseMessages', id] });
+      refresh();
     }
   });
 
@@ -277,6 +273,9 @@ const CaseDetail = () => {
                     <MessageThread
                       caseId={caseData.id}
                       messages={messages}
+                      hasOlder={hasOlder}
+                      isLoadingOlder={isLoadingOlder}
+                      onLoadOlder={loadOlder}
                       onSendMessage={(content) => {
                         sendMessageMutation.mutate(content);
                       }}
@@ -1,14 +1,15 @@
 import { useState } from "react";
 import { Link } from "react-router-dom";
-import { useQuery } from "@tanstack/react-query";
 import MainLayout from "../components/layout/MainLayout";
 import CaseCard from "../components/cases/CaseCard";
 import CaseFilter from "../components/cases/CaseFilter";
 import { Button } from "@/components/ui/button";
+import { LoadMoreButton } from "@/components/ui/load-more-button";
 import { PlusCircle, Loader2 } from "lucide-react";
 import { toast } from "@/components/ui/use-toast";
 import caseService from "@/services/caseService";
 import authService from "@/services/authService";
+import { usePagedList } from "@/hooks/use-paged-list";
 
 const Cases = () => {
   const [filters, setFilters] = useState({
@@ -20,14 +21,19 @@ const Cases = () => {
   const currentUser = authService.getCurrentUser();
   const isDentist = currentUser?.role === 'dentist';
   
-  const { data: casesData, isLoading, error } = useQuery({
-    queryKey: ['cases', filters.status, isDentist],
-    queryFn: () => {
-      if (isDentist && currentUser?.id) {
-        return caseService.getDentistCases(currentUser.id, filters.status || undefined);
-      }
-      return caseService.getAll(filters.status || undefined);
-    },
+  // A dentist's own cases come back in one response; everyone else pages through all cases
+  const {
+    items: casesData,
+    isLoading,
+    error,
+    hasNextPage,
+    isFetchingNextPage,
+    fetchNextPage,
+  } = usePagedList(['cases', filters.status, isDentist], async (cursor) => {
+    if (isDentist && currentUser?.id) {
+      return { items: await caseService.getDentistCases(currentUser.id, filters.status || undefined) };
+    }
+    return caseService.getPage(filters.status || undefined, cursor);
   });
 
   const transformCaseData = (apiCases: any[] = []) => {
@@ -46,7 +52,7 @@ const Cases = () => {
     }));
   };
   
-  const preparedCases = casesData ? transformCaseData(casesData) : [];
+  const preparedCases = transformCaseData(casesData);
   
   const handleFilterChange = (newFilters: any) => {
     setFilters({...filters, ...newFilters});
@@ -100,6 +106,12 @@ const Cases = () => {
             )}
           </div>
         )}
+        
+        <LoadMoreButton
+          hasMore={hasNextPage}
+          isLoading={isFetchingNextPage}
+          onLoadMore={() => fetchNextPage()}
+        />
       </div>
     </MainLayout>
   );
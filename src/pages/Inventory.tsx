@@ -9,27 +9,38 @@ import { Button } from "@/components/ui/button";
 import { Tabs, TabsContent, TabsList, TabsTrigger } from "@/components/ui/tabs";
 import { Badge } from "@/components/ui/badge";
 import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@/components/ui/table";
+import { LoadMoreButton } from "@/components/ui/load-more-button";
 import { Plus, Search, AlertTriangle, RefreshCw, Package, FileText, Pencil, Tag, Truck, Loader2 } from "lucide-react";
 import inventoryService from "@/services/inventoryService";
+import { usePagedList } from "@/hooks/use-paged-list";
 
 const Inventory = () => {
   const [searchTerm, setSearchTerm] = useState("");
   const navigate = useNavigate();
   
-  const { data: inventoryData, isLoading, error } = useQuery({
-    queryKey: ['inventoryItems'],
-    queryFn: () => inventoryService.getAllItems(),
+  const {
+    items: inventoryData,
+    isLoading,
+    error,
+    hasNextPage,
+    isFetchingNextPage,
+    fetchNextPage,
+  } = usePagedList(['inventoryItems'], (cursor) => inventoryService.getItemsPage(cursor));
+  
+  // Served from the server's low-stock index, so it covers items on pages not loaded yet
+  const { data: lowStockData } = useQuery({
+    queryKey: ['inventoryItems', 'low-stock'],
+    queryFn: () => inventoryService.getLowStockItems(),
   });
 
-  const filteredItems = inventoryData?.filter(item => 
+  // Searches the pages loaded so far
+  const filteredItems = inventoryData.filter(item => 
     item.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
     item.categoryName?.toLowerCase().includes(searchTerm.toLowerCase()) ||
     item.id.toString().toLowerCase().includes(searchTerm.toLowerCase())
-  ) || [];
+  );
   
-  const lowStockItems = inventoryData?.filter(item => 
-    item.quantity <= item.reorderLevel
-  ) || [];
+  const lowStockItems = lowStockData || [];
   
   if (isLoading) {
     return (
@@ -82,9 +93,9 @@ const Inventory = () => {
               <Package className="h-4 w-4 text-muted-foreground" />
             </CardHeader>
             <CardContent>
-              <div className="text-2xl font-bold">{inventoryData?.length}</div>
+              <div className="text-2xl font-bold">{inventoryData.length}{hasNextPage && "+"}</div>
               <p className="text-xs text-muted-foreground">
-                Across {new Set(inventoryData?.map(item => item.categoryName)).size} categories
+                Across {new Set(inventoryData.map(item => item.categoryName)).size} categories
               </p>
             </CardContent>
           </Card>
@@ -210,6 +221,11 @@ const Inventory = () => {
                     )}
                   </TableBody>
                 </Table>
+                <LoadMoreButton
+                  hasMore={hasNextPage}
+                  isLoading={isFetchingNextPage}
+                  onLoadMore={() => fetchNextPage()}
+                />
               </TabsContent>
               
               <TabsContent value="low-stock">
@@ -271,7 +287,7 @@ const Inventory = () => {
           </CardContent>
           <CardFooter className="border-t bg-muted/50 flex justify-between">
             <div className="text-sm text-muted-foreground">
-              Showing {filteredItems.length} of {inventoryData?.length} items
+              Showing {filteredItems.length} of {inventoryData.length}{hasNextPage && "+"} items
             </div>
             <Button variant="outline" size="sm">
               Export Inventory
@@ -1,5 +1,5 @@
 
-import { useState, useMemo } from "react";
+import { useState } from "react";
 import { useQuery } from "@tanstack/react-query";
 import MainLayout from "../components/layout/MainLayout";
 import { Button } from "@/components/ui/button";
@@ -8,41 +8,23 @@ import { Link } from "react-router-dom";
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/components/ui/card";
 import { InvoiceList } from "@/components/invoice/InvoiceList";
 import { InvoiceFilter } from "@/components/invoice/InvoiceFilter";
-import invoiceService from "@/services/invoiceService";
+import reportService from "@/services/reportService";
 
 const Invoices = () => {
   const [filter, setFilter] = useState("all");
   
-  const { data: allInvoices, isLoading, error } = useQuery({
-    queryKey: ['invoices'],
-    queryFn: () => invoiceService.getAll(),
+  // Totals over every invoice come from the server's summary, since the list below loads one page at a time
+  const { data: report, isLoading, error } = useQuery({
+    queryKey: ['invoiceSummary'],
+    queryFn: () => reportService.getFinancialReport(),
   });
 
-  // Calculate statistics
-  const invoiceStats = useMemo(() => {
-    const stats = {
-      unpaid: { count: 0, total: 0 },
-      overdue: { count: 0, total: 0 },
-      paid: { count: 0, total: 0 }
-    };
-
-    if (allInvoices && allInvoices.length > 0) {
-      allInvoices.forEach(invoice => {
-        if (invoice.status === 'unpaid') {
-          stats.unpaid.count++;
-          stats.unpaid.total += invoice.total;
-        } else if (invoice.status === 'overdue') {
-          stats.overdue.count++;
-          stats.overdue.total += invoice.total;
-        } else if (invoice.status === 'paid') {
-          stats.paid.count++;
-          stats.paid.total += invoice.total;
-        }
-      });
-    }
-    
-    return stats;
-  }, [allInvoices]);
+  const summary = report?.invoiceSummary;
+  const invoiceStats = {
+    unpaid: { count: summary?.unpaidCount ?? 0, total: summary?.unpaidTotal ?? 0 },
+    overdue: { count: summary?.overdueCount ?? 0, total: summary?.overdueTotal ?? 0 },
+    paid: { count: summary?.paidCount ?? 0, total: summary?.paidTotal ?? 0 },
+  };
   
   if (isLoading) {
     return (
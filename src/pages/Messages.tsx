@@ -1,6 +1,6 @@
 
 import { useState } from "react";
-import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
+import { useQuery, useMutation } from "@tanstack/react-query";
 import MainLayout from "../components/layout/MainLayout";
 import { Input } from "@/components/ui/input";
 import { Button } from "@/components/ui/button";
@@ -9,10 +9,10 @@ import { Badge } from "@/components/ui/badge";
 import { Tabs, TabsContent, TabsList, TabsTrigger } from "@/components/ui/tabs";
 import { Search, MessageSquare, Loader2 } from "lucide-react";
 import MessageThread from "../components/messaging/MessageThread";
-import messageService, { Contact, Message } from "@/services/messageService";
+import messageService, { Contact } from "@/services/messageService";
+import { useCaseMessages } from "@/hooks/use-case-messages";
 
 const Messages = () => {
-  const queryClient = useQueryClient();
   const [selectedContact, setSelectedContact] = useState<Contact | null>(null);
   const [searchQuery, setSearchQuery] = useState("");
   
@@ -21,13 +21,7 @@ const Messages = () => {
     queryFn: () => messageService.getContacts(),
   });
 
-  const { data: messages } = useQuery({
-    queryKey: ['caseMessages', selectedContact?.id],
-    queryFn: () => selectedContact 
-      ? messageService.getMessagesByCaseId(selectedContact.id) 
-      : Promise.resolve([]),
-    enabled: !!selectedContact,
-  });
+  const { messages, hasOlder, isLoadingOlder, refresh, loadOlder } = useCaseMessages(selectedContact?.id);
 
   const sendMessageMutation = useMutation({
     mutationFn: (content: string) => 
@@ -39,7 +33,7 @@ const Messages = () => {
         caseId: selectedContact?.id
       }),
     onSuccess: () => {
-      queryClient.invalidateQueries({ queryKey: ['caseMessages', selectedContact?.id] });
+      refresh();
     }
   });
 
@@ -144,7 +138,10 @@ const Messages = () => {
             {selectedContact ? (
               <MessageThread
                 caseId={selectedContact.id}
-                messages={messages || []}
+                messages={messages}
+                hasOlder={hasOlder}
+                isLoadingOlder={isLoadingOlder}
+                onLoadOlder={loadOlder}
                 onSendMessage={(content) => {
                   sendMessageMutation.mutate(content);
                 }}
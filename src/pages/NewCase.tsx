@@ -13,6 +13,7 @@ import DentalChart from "../components/prescriptions/DentalChart";
 import caseService from "@/services/caseService";
 import patientService from "@/services/patientService";
 import dentistService from "@/services/dentistService";
+import { usePagedList } from "@/hooks/use-paged-list";
 
 const NewCase = () => {
   const [activeTab, setActiveTab] = useState("details");
@@ -25,10 +26,12 @@ const NewCase = () => {
     queryFn: () => dentistService.getAll(),
   });
   
-  const { data: patients } = useQuery({
-    queryKey: ['patients'],
-    queryFn: () => patientService.getAll(),
-  });
+  const {
+    items: patients,
+    hasNextPage: hasMorePatients,
+    isFetchingNextPage: isLoadingMorePatients,
+    fetchNextPage: fetchMorePatients,
+  } = usePagedList(['patients'], (cursor) => patientService.getPage(cursor));
   
   // Mutation for creating a new case
   const createCaseMutation = useMutation({
@@ -117,7 +120,10 @@ const NewCase = () => {
                   setActiveTab={setActiveTab}
                   onSubmit={handleSubmit}
                   dentists={dentists || []}
-                  patients={patients || []}
+                  patients={patients}
+                  hasMorePatients={hasMorePatients}
+                  isLoadingMorePatients={isLoadingMorePatients}
+                  onLoadMorePatients={() => fetchMorePatients()}
                 />
               </TabsContent>
               
@@ -129,7 +135,10 @@ const NewCase = () => {
                     setActiveTab={setActiveTab}
                     onSubmit={handleSubmit}
                     dentists={dentists || []}
-                    patients={patients || []}
+                    patients={patients}
+                    hasMorePatients={hasMorePatients}
+                    isLoadingMorePatients={isLoadingMorePatients}
+                    onLoadMorePatients={() => fetchMorePatients()}
                   />
                 ) : (
                   <div className="text-center py-12 text-muted-foreground">
@@ -9,12 +9,14 @@ import { Label } from "@/components/ui/label";
 import { Select, SelectContent, SelectItem, SelectTrigger, SelectValue } from "@/components/ui/select";
 import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@/components/ui/table";
 import { Textarea } from "@/components/ui/textarea";
+import { LoadMoreButton } from "@/components/ui/load-more-button";
 import { toast } from "@/components/ui/use-toast";
 import { PlusCircle, Trash2 } from "lucide-react";
 import invoiceService, { InvoiceCreateRequest, InvoiceItem as ServiceInvoiceItem } from "@/services/invoiceService";
 import dentistService, { Dentist } from "@/services/dentistService";
 import patientService, { Patient } from "@/services/patientService";
 import caseService from "@/services/caseService";
+import { usePagedList } from "@/hooks/use-paged-list";
 
 interface InvoiceItem {
   description: string;
@@ -56,11 +58,13 @@ const NewInvoice = () => {
     queryFn: () => dentistService.getAll()
   });
 
-  // Fetch patients
-  const { data: patients } = useQuery({
-    queryKey: ['patients'],
-    queryFn: () => patientService.getAll()
-  });
+  // Fetch patients, a page at a time
+  const {
+    items: patients,
+    hasNextPage: hasMorePatients,
+    isFetchingNextPage: isLoadingMorePatients,
+    fetchNextPage: fetchMorePatients,
+  } = usePagedList(['patients'], (cursor) => patientService.getPage(cursor));
 
   // Fetch cases when dentist is selected
   const { data: cases, refetch: refetchCases } = useQuery({
@@ -219,11 +223,17 @@ const NewInvoice = () => {
                     <SelectValue placeholder="Select patient" />
                   </SelectTrigger>
                   <SelectContent>
-                    {patients?.map((patient: Patient) => (
+                    {patients.map((patient: Patient) => (
                       <SelectItem key={patient.id} value={patient.id.toString()}>
                         {patient.firstName} {patient.lastName}
                       </SelectItem>
                     ))}
+                    <LoadMoreButton
+                      hasMore={hasMorePatients}
+                      isLoading={isLoadingMorePatients}
+                      onLoadMore={() => fetchMorePatients()}
+                      className="pt-1 pb-1"
+                    />
                   </SelectContent>
                 </Select>
               </div>
@@ -1,9 +1,33 @@
 
-import axios, { AxiosRequestConfig } from 'axios';
+import axios, { AxiosRequestConfig, AxiosResponse } from 'axios';
 import { toast } from '@/components/ui/use-toast';
 
+declare module 'axios' {
+  interface AxiosRequestConfig {
+    // Resolve with the whole response instead of its body, for callers that read headers
+    withHeaders?: boolean;
+  }
+}
+
 const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
 
+// List endpoints return one page per request and the cursor for the next page in X-Next-Cursor
+const PAGE_SIZE = 50;
+
+export interface Page<T> {
+  items: T[];
+  // Cursor for the following page; absent on the last page
+  nextCursor?: string;
+}
+
+// WebSocket endpoints are served beside /api on the same host, e.g. /ws/cases/{id}/messages
+export const socketUrl = (path: string) => {
+  const url = new URL(API_URL, window.location.href);
+  url.protocol = url.protocol === 'https:' ? 'wss:' : 'ws:';
+  url.pathname = url.pathname.replace(/\/api\/?$/, '') + path;
+  return url.toString();
+};
+
 const api = axios.create({
   baseURL: API_URL,
   headers: {
@@ -28,7 +52,7 @@ api.interceptors.request.use(
 api.interceptors.response.use(
   (response) => {
     console.log('API Response:', response.data);
-    return response.data;
+    return response.config.withHeaders ? response : response.data;
   },
   (error) => {
     console.error('API Error:', error);
@@ -83,6 +107,19 @@ const apiService = {
   
   delete: <T>(url: string, config?: AxiosRequestConfig) => 
     api.delete<T>(url, config),
+  
+  // One page of a list endpoint; pass the previous page's nextCursor to fetch the page after it
+  getPage: async <T>(
+    url: string,
+    params?: Record<string, string | undefined>,
+    cursor?: string
+  ): Promise<Page<T>> => {
+    const response: AxiosResponse<T[]> = await api.get<T[]>(url, {
+      params: { ...params, cursor, limit: PAGE_SIZE },
+      withHeaders: true,
+    });
+    return { items: response.data, nextCursor: response.headers['x-next-cursor'] };
+  },
 };
 
 export default apiService;
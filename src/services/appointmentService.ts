@@ -1,5 +1,5 @@
 import axios from 'axios';
-import { API_BASE_URL } from './api';
+import api, { API_BASE_URL, Page } from './api';
 
 export interface Appointment {
   id: number;
@@ -30,9 +30,8 @@ export interface AppointmentCreateRequest {
 }
 
 export const appointmentService = {
-  async getAppointments(): Promise<Appointment[]> {
-    const response = await axios.get<Appointment[]>(`${API_BASE_URL}/appointments`);
-    return response.data;
+  async getAppointmentsPage(cursor?: string): Promise<Page<Appointment>> {
+    return api.getPage<Appointment>('/appointments', undefined, cursor);
   },
 
   async getDentistAppointments(dentistId: string): Promise<Appointment[]> {
@@ -40,6 +39,11 @@ export const appointmentService = {
     return response.data;
   },
 
+  // Dates are yyyy-MM-dd, both inclusive
+  async getDentistAppointmentsBetween(dentistId: number, startDate: string, endDate: string): Promise<Appointment[]> {
+    return api.get<Appointment[]>(`/appointments/dentist/${dentistId}/date-range`, { params: { startDate, endDate } });
+  },
+
   async getPatientAppointments(patientId: string): Promise<Appointment[]> {
     const response = await axios.get<Appointment[]>(`${API_BASE_URL}/appointments/patient/${patientId}`);
     return response.data;
@@ -1,5 +1,5 @@
 
-import api from './api';
+import api, { Page } from './api';
 
 export interface Case {
   id: number;
@@ -8,6 +8,8 @@ export interface Case {
   description?: string;
   status: string;
   priority?: string;
+  // Selects the bill of materials used up when the case is completed
+  caseType?: string;
   patientId: number;
   patientName?: string;
   dentistId: number;
@@ -22,23 +24,33 @@ export interface CaseCreateRequest {
   description?: string;
   status: string;
   priority?: string;
+  // Selects the bill of materials used up when the case is completed
+  caseType?: string;
   patientId: number;
   dentistId: number;
   dueDate?: string;
 }
 
 const caseService = {
-  getAll: async (filter?: string): Promise<Case[]> => {
+  getPage: async (filter?: string, cursor?: string): Promise<Page<Case>> => {
     try {
-      const url = filter ? `/cases?status=${filter}` : '/cases';
-      const response = await api.get<Case[]>(url);
-      return response.data;
+      return await api.getPage<Case>('/cases', { status: filter }, cursor);
     } catch (error) {
       console.error("Failed to fetch cases:", error);
       throw error;
     }
   },
 
+  // Dates are yyyy-MM-dd, both inclusive
+  getDueBetween: async (startDate: string, endDate: string): Promise<Case[]> => {
+    try {
+      return await api.get<Case[]>('/cases/due', { params: { startDate, endDate } });
+    } catch (error) {
+      console.error(`Failed to fetch cases due between ${startDate} and ${endDate}:`, error);
+      throw error;
+    }
+  },
+
   getDentistCases: async (dentistId: number | string, filter?: string): Promise<Case[]> => {
     try {
       const url = filter 
@@ -1,4 +1,4 @@
-import api from './api';
+import api, { Page } from './api';
 
 export interface InventoryItem {
   id: number;
@@ -54,9 +54,9 @@ export interface InventoryRestockRequest {
 }
 
 const inventoryService = {
-  getAllItems: async (): Promise<InventoryItem[]> => {
+  getItemsPage: async (cursor?: string): Promise<Page<InventoryItem>> => {
     try {
-      return await api.get<InventoryItem[]>('/inventory');
+      return await api.getPage<InventoryItem>('/inventory', undefined, cursor);
     } catch (error) {
       console.error("Error fetching inventory items:", error);
       throw error;
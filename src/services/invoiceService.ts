@@ -1,5 +1,5 @@
 
-import api from './api';
+import api, { Page } from './api';
 
 export interface InvoiceItem {
   id?: number;
@@ -48,12 +48,10 @@ export interface InvoiceCreateRequest {
 const INVOICES_PATH = '/invoices';
 
 const invoiceService = {
-  getAll: async (filter?: string): Promise<Invoice[]> => {
+  getPage: async (filter?: string, cursor?: string): Promise<Page<Invoice>> => {
     try {
-      const url = filter && filter !== 'all' 
-        ? `${INVOICES_PATH}?status=${filter}` 
-        : INVOICES_PATH;
-      return await api.get<Invoice[]>(url);
+      const status = filter && filter !== 'all' ? filter : undefined;
+      return await api.getPage<Invoice>(INVOICES_PATH, { status }, cursor);
     } catch (error) {
       console.error("Error fetching invoices:", error);
       throw error;
@@ -1,4 +1,5 @@
 
+import { AxiosResponse } from 'axios';
 import api from './api';
 
 export interface Message {
@@ -11,6 +12,13 @@ export interface Message {
   isRead: boolean;
 }
 
+export interface MessagePage {
+  // Oldest first
+  messages: Message[];
+  // Cursor for the next page in the direction requested; absent on the last page
+  nextCursor?: string;
+}
+
 export interface Contact {
   id: string;
   name: string;
@@ -57,32 +65,41 @@ const messageService = {
     }
   },
 
-  getMessagesByCaseId: async (caseId: string): Promise<Message[]> => {
+  // The newest messages by default; `after` fetches only newer ones, `before` scrolls back
+  getMessagesByCaseId: async (
+    caseId: string,
+    page: { after?: string; before?: string } = {}
+  ): Promise<MessagePage> => {
     try {
-      const response = await api.get<Message[]>(`/messages/case/${caseId}`);
-      return response;
+      const response: AxiosResponse<Message[]> = await api.get<Message[]>(`/messages/case/${caseId}`, {
+        params: page,
+        withHeaders: true,
+      });
+      return { messages: response.data, nextCursor: response.headers['x-next-cursor'] };
     } catch (error) {
       console.error(`Error fetching messages for case ${caseId}:`, error);
       
       // Fallback mock data for testing until backend is fully implemented
-      return [
-        {
-          id: "1",
-          senderId: "current-user-id",
-          receiverId: caseId,
-          content: "Hello, I need to discuss the crown for patient #12345",
-          timestamp: new Date().toISOString(),
-          isRead: true
-        },
-        {
-          id: "2",
-          senderId: caseId,
-          receiverId: "current-user-id",
-          content: "Sure, what specific details do you need?",
-          timestamp: new Date().toISOString(),
-          isRead: true
-        }
-      ];
+      return {
+        messages: [
+          {
+            id: "1",
+            senderId: "current-user-id",
+            receiverId: caseId,
+            content: "Hello, I need to discuss the crown for patient #12345",
+            timestamp: new Date().toISOString(),
+            isRead: true
+          },
+          {
+            id: "2",
+            senderId: caseId,
+            receiverId: "current-user-id",
+            content: "Sure, what specific details do you need?",
+            timestamp: new Date().toISOString(),
+            isRead: true
+          }
+        ]
+      };
     }
   },
 
@@ -1,5 +1,5 @@
 
-import api from './api';
+import api, { Page } from './api';
 
 export interface Patient {
   id: number;
@@ -27,9 +27,9 @@ export interface PatientCreateRequest {
 }
 
 const patientService = {
-  getAll: async (): Promise<Patient[]> => {
+  getPage: async (cursor?: string): Promise<Page<Patient>> => {
     try {
-      return await api.get<Patient[]>('/patients');
+      return await api.getPage<Patient>('/patients', undefined, cursor);
     } catch (error) {
       console.error("Failed to fetch patients:", error);
       throw error;